@@ -0,0 +1,61 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.jmh;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Prints the compression ratio (bits per integer) for the parameters of the
+ * benchmarks. Speed is measured with JMH, but the compressed size does not
+ * depend on timing and is computed once:
+ *
+ * <pre>
+ * java --add-modules jdk.incubator.vector -cp target/benchmarks.jar me.lemire.integercompression.jmh.BitsPerInt
+ * </pre>
+ *
+ * @author Daniel Lemire
+ */
+public class BitsPerInt {
+
+        private static String[] values(Class<?> benchmark, String field) throws NoSuchFieldException {
+                return benchmark.getField(field).getAnnotation(Param.class).value();
+        }
+
+        /**
+         * @param args
+         *                ignored
+         * @throws Exception
+         *                 if the benchmark parameters cannot be read
+         */
+        public static void main(String[] args) throws Exception {
+                System.out.println("# codec, distribution, bits, bits per integer");
+                for (String distribution : values(IntegerCODECBenchmark.class, "distribution"))
+                        for (String bits : values(IntegerCODECBenchmark.class, "bits"))
+                                for (String codec : values(IntegerCODECBenchmark.class, "codec")) {
+                                        IntegerCODECBenchmark b = new IntegerCODECBenchmark();
+                                        b.codec = codec;
+                                        b.distribution = distribution;
+                                        b.bits = Integer.parseInt(bits);
+                                        b.setup();
+                                        System.out.printf("%s, %s, %s, %.2f%n", codec,
+                                                distribution, bits, b.bitsPerInt());
+                                }
+                System.out.println();
+                System.out.println("# codec, distribution, bits, bits per long");
+                for (String distribution : values(LongCODECBenchmark.class, "distribution"))
+                        for (String bits : values(LongCODECBenchmark.class, "bits"))
+                                for (String codec : values(LongCODECBenchmark.class, "codec")) {
+                                        LongCODECBenchmark b = new LongCODECBenchmark();
+                                        b.codec = codec;
+                                        b.distribution = distribution;
+                                        b.bits = Integer.parseInt(bits);
+                                        b.setup();
+                                        System.out.printf("%s, %s, %s, %.2f%n", codec,
+                                                distribution, bits, b.bitsPerLong());
+                                }
+        }
+}
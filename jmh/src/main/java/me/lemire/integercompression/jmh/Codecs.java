@@ -0,0 +1,244 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.jmh;
+
+import me.lemire.integercompression.AdaptiveCODEC;
+import me.lemire.integercompression.BinaryPacking;
+import me.lemire.integercompression.Composition;
+import me.lemire.integercompression.DeltaZigzagBinaryPacking;
+import me.lemire.integercompression.DeltaZigzagVariableByte;
+import me.lemire.integercompression.FastPFOR;
+import me.lemire.integercompression.FastPFOR128;
+import me.lemire.integercompression.FrameOfReference;
+import me.lemire.integercompression.GroupSimple9;
+import me.lemire.integercompression.IntegerCODEC;
+import me.lemire.integercompression.JustCopy;
+import me.lemire.integercompression.NewPFD;
+import me.lemire.integercompression.NewPFDS16;
+import me.lemire.integercompression.NewPFDS9;
+import me.lemire.integercompression.OptPFD;
+import me.lemire.integercompression.OptPFDS16;
+import me.lemire.integercompression.OptPFDS9;
+import me.lemire.integercompression.RunLength;
+import me.lemire.integercompression.Simple16;
+import me.lemire.integercompression.Simple8b;
+import me.lemire.integercompression.Simple9;
+import me.lemire.integercompression.SkippableComposition;
+import me.lemire.integercompression.SkippableIntegerCODEC;
+import me.lemire.integercompression.StreamVByte;
+import me.lemire.integercompression.VariableByte;
+import me.lemire.integercompression.VectorSupport;
+import me.lemire.integercompression.VerticalFastPFOR;
+import me.lemire.integercompression.differential.IntegratedBinaryPacking;
+import me.lemire.integercompression.differential.IntegratedComposition;
+import me.lemire.integercompression.differential.IntegratedStreamVByte;
+import me.lemire.integercompression.differential.IntegratedVariableByte;
+import me.lemire.integercompression.differential.XorBinaryPacking;
+import me.lemire.longcompression.LongAs2IntsCodec;
+import me.lemire.longcompression.LongBinaryPacking;
+import me.lemire.longcompression.LongCODEC;
+import me.lemire.longcompression.LongComposition;
+import me.lemire.longcompression.LongFastPFOR;
+import me.lemire.longcompression.LongFrameOfReference;
+import me.lemire.longcompression.LongJustCopy;
+import me.lemire.longcompression.LongSimple8b;
+import me.lemire.longcompression.LongVariableByte;
+import me.lemire.longcompression.SkippableLongCODEC;
+import me.lemire.longcompression.SkippableLongComposition;
+import me.lemire.longcompression.differential.IntegratedLongBinaryPacking;
+import me.lemire.longcompression.differential.IntegratedLongComposition;
+import me.lemire.longcompression.differential.IntegratedLongVariableByte;
+import me.lemire.longcompression.differential.LongGorilla;
+
+/**
+ * Codecs benchmarked, by name. The names are the values of the codec
+ * parameter of the benchmarks. Block-based codecs are followed by
+ * VariableByte (or by its delta-coded variant) so that any array length is
+ * supported. Kamikaze is left out: it reads and writes from the start of the
+ * arrays whatever the positions, so it cannot be composed.
+ *
+ * @author Daniel Lemire
+ */
+final class Codecs {
+        private Codecs() {
+        }
+
+        static IntegerCODEC integerCODEC(String name) {
+                switch (name) {
+                case "JustCopy":
+                        return new JustCopy();
+                case "VariableByte":
+                        return new VariableByte();
+                case "Simple9":
+                        return new Simple9();
+                case "Simple16":
+                        return new Simple16();
+                case "GroupSimple9":
+                        return new GroupSimple9();
+                case "Simple8b":
+                        return new Simple8b();
+                case "AdaptiveCODEC":
+                        return new AdaptiveCODEC();
+                case "RunLength":
+                        return new RunLength(new SkippableComposition(
+                                new BinaryPacking(), new VariableByte()));
+                case "StreamVByte":
+                        return new StreamVByte();
+                case "VectorStreamVByte":
+                        // falls back to StreamVByte without the Vector API
+                        return VectorSupport.newStreamVByte();
+                case "IntegratedStreamVByte":
+                        return new IntegratedStreamVByte();
+                case "VectorIntegratedStreamVByte":
+                        // falls back to IntegratedStreamVByte without the Vector API
+                        return VectorSupport.newIntegratedStreamVByte();
+                case "DeltaZigzagVariableByte":
+                        return new DeltaZigzagVariableByte();
+                case "DeltaZigzagBinaryPacking":
+                        return new Composition(new DeltaZigzagBinaryPacking(),
+                                new DeltaZigzagVariableByte());
+                case "IntegratedVariableByte":
+                        return new IntegratedVariableByte();
+                case "IntegratedBinaryPacking":
+                        return new IntegratedComposition(new IntegratedBinaryPacking(),
+                                new IntegratedVariableByte());
+                case "XorBinaryPacking":
+                        return new IntegratedComposition(new XorBinaryPacking(),
+                                new IntegratedVariableByte());
+                default:
+                        return new Composition(block(name), new VariableByte());
+                }
+        }
+
+        static SkippableIntegerCODEC skippableIntegerCODEC(String name) {
+                switch (name) {
+                case "JustCopy":
+                        return new JustCopy();
+                case "VariableByte":
+                        return new VariableByte();
+                case "Simple9":
+                        return new Simple9();
+                case "Simple16":
+                        return new Simple16();
+                case "GroupSimple9":
+                        return new GroupSimple9();
+                case "Simple8b":
+                        return new Simple8b();
+                case "AdaptiveCODEC":
+                        return new AdaptiveCODEC();
+                case "RunLength":
+                        return new RunLength(new SkippableComposition(
+                                new BinaryPacking(), new VariableByte()));
+                case "StreamVByte":
+                        return new StreamVByte();
+                case "VectorStreamVByte":
+                        // falls back to StreamVByte without the Vector API
+                        return VectorSupport.newStreamVByte();
+                default:
+                        return new SkippableComposition(
+                                (SkippableIntegerCODEC) block(name), new VariableByte());
+                }
+        }
+
+        private static IntegerCODEC block(String name) {
+                switch (name) {
+                case "BinaryPacking":
+                        return new BinaryPacking();
+                case "NewPFD":
+                        return new NewPFD();
+                case "NewPFDS9":
+                        return new NewPFDS9();
+                case "NewPFDS16":
+                        return new NewPFDS16();
+                case "OptPFD":
+                        return new OptPFD();
+                case "OptPFDS9":
+                        return new OptPFDS9();
+                case "OptPFDS16":
+                        return new OptPFDS16();
+                case "FastPFOR":
+                        return new FastPFOR();
+                case "FastPFOR128":
+                        return new FastPFOR128();
+                case "VerticalFastPFOR":
+                        return new VerticalFastPFOR();
+                case "FrameOfReference":
+                        return new FrameOfReference();
+                case "VectorFastPFOR":
+                        // falls back to VerticalFastPFOR without the Vector API
+                        return (IntegerCODEC) VectorSupport.newFastPFOR();
+                default:
+                        throw new IllegalArgumentException("Unknown codec: " + name);
+                }
+        }
+
+        static LongCODEC longCODEC(String name) {
+                switch (name) {
+                case "LongJustCopy":
+                        return new LongJustCopy();
+                case "LongVariableByte":
+                        return new LongVariableByte();
+                case "LongBinaryPacking":
+                        return new LongComposition(new LongBinaryPacking(),
+                                new LongVariableByte());
+                case "LongFastPFOR":
+                        return new LongComposition(new LongFastPFOR(),
+                                new LongVariableByte());
+                case "LongFrameOfReference":
+                        return new LongComposition(new LongFrameOfReference(),
+                                new LongVariableByte());
+                case "LongAs2IntsCodec":
+                        return new LongAs2IntsCodec();
+                case "LongSimple8b":
+                        return new LongSimple8b();
+                case "IntegratedLongVariableByte":
+                        return new IntegratedLongVariableByte();
+                case "IntegratedLongBinaryPacking":
+                        return new IntegratedLongComposition(
+                                new IntegratedLongBinaryPacking(),
+                                new IntegratedLongVariableByte());
+                case "LongGorilla":
+                        return new LongGorilla();
+                default:
+                        throw new IllegalArgumentException("Unknown codec: " + name);
+                }
+        }
+
+        /**
+         * @param name
+         *                a long codec
+         * @return the largest bit width of the longs the codec supports
+         */
+        static int maxLongBits(String name) {
+                // Simple-8b stores at most 60 bits per long
+                return name.equals("LongSimple8b") ? 60 : 64;
+        }
+
+        static SkippableLongCODEC skippableLongCODEC(String name) {
+                switch (name) {
+                case "LongJustCopy":
+                        return new LongJustCopy();
+                case "LongVariableByte":
+                        return new LongVariableByte();
+                case "LongBinaryPacking":
+                        return new SkippableLongComposition(new LongBinaryPacking(),
+                                new LongVariableByte());
+                case "LongFastPFOR":
+                        return new SkippableLongComposition(new LongFastPFOR(),
+                                new LongVariableByte());
+                case "LongFrameOfReference":
+                        return new SkippableLongComposition(new LongFrameOfReference(),
+                                new LongVariableByte());
+                case "LongAs2IntsCodec":
+                        return new LongAs2IntsCodec();
+                case "LongSimple8b":
+                        return new LongSimple8b();
+                default:
+                        throw new IllegalArgumentException("Unknown codec: " + name);
+                }
+        }
+}
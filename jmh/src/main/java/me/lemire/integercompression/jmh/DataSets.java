@@ -0,0 +1,82 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.jmh;
+
+import java.util.Random;
+
+import me.lemire.integercompression.synth.ClusteredDataGenerator;
+import me.lemire.integercompression.synth.UniformDataGenerator;
+
+/**
+ * Synthetic inputs of the benchmarks. As in
+ * me.lemire.integercompression.benchmarktools.Benchmark, sorted arrays are
+ * generated and their successive differences are compressed.
+ *
+ * @author Daniel Lemire
+ */
+final class DataSets {
+        /**
+         * Number of integers in each array.
+         */
+        static final int SIZE = 1 << 16;
+
+        private static final int SEED = 12345;
+
+        private DataSets() {
+        }
+
+        /**
+         * @param distribution
+         *                "clustered" or "uniform"
+         * @param bits
+         *                the average difference between successive sorted
+         *                integers is about 1 &lt;&lt; bits
+         * @return the differences between successive sorted integers
+         */
+        static int[] deltas(String distribution, int bits) {
+                final int max = SIZE << bits;
+                final int[] sorted;
+                switch (distribution) {
+                case "clustered":
+                        sorted = new ClusteredDataGenerator(SEED).generateClustered(SIZE, max);
+                        break;
+                case "uniform":
+                        sorted = new UniformDataGenerator(SEED).generateUniform(SIZE, max);
+                        break;
+                default:
+                        throw new IllegalArgumentException("Unknown distribution: " + distribution);
+                }
+                int[] deltas = new int[SIZE];
+                for (int k = SIZE - 1; k > 0; --k)
+                        deltas[k] = sorted[k] - sorted[k - 1];
+                deltas[0] = sorted[0];
+                return deltas;
+        }
+
+        /**
+         * 64-bit values: the low 32 bits are the differences of
+         * {@link #deltas(String, int)} (with at most 14 bits), the bits above
+         * 32 are random.
+         *
+         * @param distribution
+         *                "clustered" or "uniform"
+         * @param bits
+         *                approximate number of significant bits
+         * @return the values
+         */
+        static long[] longs(String distribution, int bits) {
+                final int[] low = deltas(distribution, Math.min(bits, 14));
+                final Random r = new Random(SEED);
+                long[] values = new long[SIZE];
+                for (int k = 0; k < SIZE; ++k) {
+                        values[k] = low[k] & 0xFFFFFFFFL;
+                        if (bits > 32)
+                                values[k] |= (r.nextLong() >>> (96 - bits)) << 32;
+                }
+                return values;
+        }
+}
@@ -0,0 +1,118 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.jmh;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.longcompression.IntegratedLongCODEC;
+import me.lemire.longcompression.LongCODEC;
+import me.lemire.longcompression.differential.LongDelta;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Speed of the LongCODEC implementations, in longs per second.
+ *
+ * @author Daniel Lemire
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LongCODECBenchmark {
+        /**
+         * Codec, see Codecs.
+         */
+        @Param({ "LongJustCopy", "LongVariableByte", "LongBinaryPacking",
+                "LongFastPFOR", "LongFrameOfReference", "LongAs2IntsCodec",
+                "LongSimple8b", "IntegratedLongVariableByte",
+                "IntegratedLongBinaryPacking", "LongGorilla" })
+        public String codec;
+
+        /**
+         * Data distribution, see DataSets.
+         */
+        @Param({ "clustered", "uniform" })
+        public String distribution;
+
+        /**
+         * Approximate bit width of the longs, see DataSets. It is capped at
+         * 60 for LongSimple8b, see Codecs.maxLongBits.
+         */
+        @Param({ "6", "14", "48", "64" })
+        public int bits;
+
+        private LongCODEC c;
+        private long[] data;
+        private long[] compressed;
+        private long[] buffer;
+        private long[] uncompressed;
+
+        /**
+         * Generate and compress the data, checking that it can be
+         * uncompressed.
+         */
+        @Setup
+        public void setup() {
+                c = Codecs.longCODEC(codec);
+                data = DataSets.longs(distribution, Math.min(bits, Codecs.maxLongBits(codec)));
+                if (c instanceof IntegratedLongCODEC)
+                        // a sorted list, whose differences are the generated
+                        // longs
+                        LongDelta.inverseDelta(data);
+                buffer = new long[2 * data.length + 1024];
+                uncompressed = new long[data.length];
+                compressed = Arrays.copyOf(buffer, compress());
+                if (uncompress() != data.length || !Arrays.equals(data, uncompressed))
+                        throw new IllegalStateException(codec + " is buggy");
+        }
+
+        /**
+         * @return the compressed length
+         */
+        @Benchmark
+        @OperationsPerInvocation(DataSets.SIZE)
+        public int compress() {
+                IntWrapper outpos = new IntWrapper();
+                c.compress(data, new IntWrapper(), data.length, buffer, outpos);
+                return outpos.get();
+        }
+
+        /**
+         * @return the number of longs uncompressed
+         */
+        @Benchmark
+        @OperationsPerInvocation(DataSets.SIZE)
+        public int uncompress() {
+                IntWrapper outpos = new IntWrapper();
+                c.uncompress(compressed, new IntWrapper(), compressed.length,
+                        uncompressed, outpos);
+                return outpos.get();
+        }
+
+        /**
+         * @return the compressed size in bits per long
+         */
+        double bitsPerLong() {
+                return compressed.length * 64.0 / data.length;
+        }
+}
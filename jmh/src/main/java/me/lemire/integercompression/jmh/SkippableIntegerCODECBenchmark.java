@@ -0,0 +1,113 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.jmh;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.SkippableIntegerCODEC;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Speed of the SkippableIntegerCODEC implementations (headless methods), in
+ * integers per second.
+ *
+ * @author Daniel Lemire
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class SkippableIntegerCODECBenchmark {
+        /**
+         * Codec, see Codecs.
+         */
+        @Param({ "JustCopy", "VariableByte", "Simple9", "Simple16", "GroupSimple9",
+                "Simple8b", "BinaryPacking", "NewPFD", "NewPFDS9", "NewPFDS16", "OptPFD",
+                "OptPFDS9", "OptPFDS16", "FastPFOR", "FastPFOR128",
+                "VerticalFastPFOR", "VectorFastPFOR", "FrameOfReference",
+                "AdaptiveCODEC", "RunLength", "StreamVByte", "VectorStreamVByte" })
+        public String codec;
+
+        /**
+         * Data distribution, see DataSets.
+         */
+        @Param({ "clustered", "uniform" })
+        public String distribution;
+
+        /**
+         * Approximate bit width of the integers, see DataSets.
+         */
+        @Param({ "2", "6", "10", "14" })
+        public int bits;
+
+        private SkippableIntegerCODEC c;
+        private int[] data;
+        private int[] compressed;
+        private int[] buffer;
+        private int[] uncompressed;
+
+        /**
+         * Generate and compress the data, checking that it can be
+         * uncompressed.
+         */
+        @Setup
+        public void setup() {
+                c = Codecs.skippableIntegerCODEC(codec);
+                data = DataSets.deltas(distribution, bits);
+                buffer = new int[2 * data.length + 1024];
+                uncompressed = new int[data.length];
+                compressed = Arrays.copyOf(buffer, compress());
+                if (uncompress() != data.length || !Arrays.equals(data, uncompressed))
+                        throw new IllegalStateException(codec + " is buggy");
+        }
+
+        /**
+         * @return the compressed length
+         */
+        @Benchmark
+        @OperationsPerInvocation(DataSets.SIZE)
+        public int compress() {
+                IntWrapper outpos = new IntWrapper();
+                c.headlessCompress(data, new IntWrapper(), data.length, buffer, outpos);
+                return outpos.get();
+        }
+
+        /**
+         * @return the number of integers uncompressed
+         */
+        @Benchmark
+        @OperationsPerInvocation(DataSets.SIZE)
+        public int uncompress() {
+                IntWrapper outpos = new IntWrapper();
+                c.headlessUncompress(compressed, new IntWrapper(), compressed.length,
+                        uncompressed, outpos, data.length);
+                return outpos.get();
+        }
+
+        /**
+         * @return the compressed size in bits per integer
+         */
+        double bitsPerInt() {
+                return compressed.length * 32.0 / data.length;
+        }
+}
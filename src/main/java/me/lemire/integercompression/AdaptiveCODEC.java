@@ -0,0 +1,272 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+
+import me.lemire.integercompression.differential.Delta;
+
+/**
+ * Codec choosing the best scheme for each chunk of the input among
+ * BinaryPacking, FastPFOR, VariableByte and Simple16 (the packing schemes are
+ * followed by VariableByte for the integers that do not fill a block).
+ *
+ * The choice is made without compressing the data: the size of the output of
+ * each scheme is estimated from the bit widths of the integers (the maximal
+ * bit width of each block of 32 integers for BinaryPacking, the bit width
+ * histogram of each block of 256 integers for FastPFOR, as in
+ * FastPFOR#getBestBFromData). The smallest output wins, but a scheme that
+ * decodes slower must save more than 1/32 of the output of a faster one.
+ * Simple16 is only considered for chunks
+ * shorter than a FastPFOR block (e.g., short lists) since its estimate is
+ * more expensive. Chunks that are sorted are differentially coded first.
+ *
+ * Each chunk starts with a header word holding a one-byte tag (the scheme
+ * and whether the chunk is differentially coded) and the number of words
+ * of the compressed chunk.
+ *
+ * <pre>
+ * IntegerCODEC codec = new AdaptiveCODEC();
+ * </pre>
+ *
+ * This codec is not thread-safe (see PooledCODEC).
+ *
+ * @author Daniel Lemire
+ */
+public class AdaptiveCODEC implements IntegerCODEC, SkippableIntegerCODEC {
+    /**
+     * Default number of integers per chunk.
+     */
+    public final static int DEFAULT_CHUNK_SIZE = 4096;
+
+    // tags, by order of preference
+    final static int BINARY_PACKING = 0;
+    final static int FAST_PFOR = 1;
+    final static int VARIABLE_BYTE = 2;
+    final static int SIMPLE16 = 3;
+    // added to the tag when the chunk is differentially coded
+    final static int DELTA = 0x80;
+
+    private final static int PFOR_BLOCK_SIZE = FastPFOR.BLOCK_SIZE;
+    private final static int PACKING_BLOCK_SIZE = BinaryPacking.BLOCK_SIZE;
+    // header words and padding of a FastPFOR page (approximation)
+    private final static int PFOR_PAGE_OVERHEAD_IN_BITS = 4 * 32;
+
+    private final int chunkSize;
+    private final SkippableIntegerCODEC[] codecs;
+    private final int[] deltas;
+    private final int[] freqs = new int[33];
+
+    /**
+     * Constructor using the default chunk size.
+     */
+    public AdaptiveCODEC() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param chunkSize
+     *            number of integers per chunk: it must be a multiple of 256
+     *            no larger than FastPFOR.DEFAULT_PAGE_SIZE
+     */
+    public AdaptiveCODEC(int chunkSize) {
+        if (chunkSize <= 0 || chunkSize % PFOR_BLOCK_SIZE != 0
+                || chunkSize > FastPFOR.DEFAULT_PAGE_SIZE)
+            throw new IllegalArgumentException("Unsupported chunk size: " + chunkSize);
+        this.chunkSize = chunkSize;
+        this.codecs = new SkippableIntegerCODEC[] {
+                new SkippableComposition(new BinaryPacking(), new VariableByte()),
+                new SkippableComposition(new FastPFOR(chunkSize), new VariableByte()),
+                new VariableByte(), new Simple16() };
+        this.deltas = new int[chunkSize];
+    }
+
+    @Override
+    public void headlessCompress(int[] in, IntWrapper inpos, int inlength,
+            int[] out, IntWrapper outpos) {
+        final IntWrapper chunkinpos = new IntWrapper();
+        final int finalinpos = inpos.get() + inlength;
+        while (inpos.get() < finalinpos) {
+            final int length = Math.min(chunkSize, finalinpos - inpos.get());
+            final int headerpos = outpos.get();
+            outpos.increment();
+            int[] chunk = in;
+            int tag = 0;
+            chunkinpos.set(inpos.get());
+            if (isSorted(in, inpos.get(), length)) {
+                Delta.delta(in, inpos.get(), length, 0, deltas);
+                chunk = deltas;
+                chunkinpos.set(0);
+                tag = DELTA;
+            }
+            tag |= select(chunk, chunkinpos.get(), length);
+            codecs[tag & ~DELTA].headlessCompress(chunk, chunkinpos, length, out, outpos);
+            out[headerpos] = ((outpos.get() - headerpos - 1) << 8) | tag;
+            inpos.add(length);
+        }
+    }
+
+    @Override
+    public void headlessUncompress(int[] in, IntWrapper inpos, int inlength,
+            int[] out, IntWrapper outpos, int num) {
+        final int finaloutpos = outpos.get() + num;
+        while (outpos.get() < finaloutpos) {
+            final int length = Math.min(chunkSize, finaloutpos - outpos.get());
+            final int header = in[inpos.get()];
+            final int tag = header & 0xFF;
+            inpos.increment();
+            final int start = outpos.get();
+            codecs[tag & ~DELTA].headlessUncompress(in, inpos, header >>> 8, out,
+                    outpos, length);
+            if ((tag & DELTA) != 0)
+                Delta.fastinverseDelta(out, start, length, 0);
+        }
+    }
+
+    @Override
+    public int maxHeadlessCompressedLength(IntWrapper compressedPositions, int inlength) {
+        int maxLength = 0;
+        for (int remaining = inlength; remaining > 0; remaining -= chunkSize) {
+            final int length = Math.min(chunkSize, remaining);
+            int maxChunkLength = 0;
+            for (SkippableIntegerCODEC codec : codecs)
+                maxChunkLength = Math.max(maxChunkLength,
+                        codec.maxHeadlessCompressedLength(new IntWrapper(), length));
+            // +1 for the header
+            maxLength += 1 + maxChunkLength;
+        }
+        compressedPositions.add(inlength);
+        return maxLength;
+    }
+
+    @Override
+    public void compress(int[] in, IntWrapper inpos, int inlength, int[] out,
+            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        out[outpos.get()] = inlength;
+        outpos.increment();
+        headlessCompress(in, inpos, inlength, out, outpos);
+    }
+
+    @Override
+    public void uncompress(int[] in, IntWrapper inpos, int inlength, int[] out,
+            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        final int outlength = in[inpos.get()];
+        inpos.increment();
+        headlessUncompress(in, inpos, inlength, out, outpos, outlength);
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName();
+    }
+
+    private static boolean isSorted(int[] in, int pos, int length) {
+        if (length < 2)
+            return false;
+        for (int k = pos + 1; k < pos + length; ++k)
+            if (in[k] < in[k - 1])
+                return false;
+        return true;
+    }
+
+    private static int variableByteBytes(int bits) {
+        return bits <= 7 ? 1 : (bits + 6) / 7;
+    }
+
+    private static long variableByteBits(int[] in, int pos, int length) {
+        long bytes = 0;
+        for (int k = pos; k < pos + length; ++k)
+            bytes += variableByteBytes(Util.bits(in[k]));
+        return bytes * 8;
+    }
+
+    // same cost model as FastPFOR#getBestBFromData, in bits
+    private long fastPFORBlockBits() {
+        int maxb = 32;
+        while (maxb > 0 && freqs[maxb] == 0)
+            maxb--;
+        // 16 bits for the bit width and the number of exceptions
+        long bestcost = maxb * PFOR_BLOCK_SIZE + 16;
+        int cexcept = 0;
+        for (int b = maxb - 1; b >= 0; --b) {
+            cexcept += freqs[b + 1];
+            if (cexcept == PFOR_BLOCK_SIZE)
+                break;
+            // 8 bits per exception for its position, 8 bits for maxbits
+            long thiscost = cexcept * 8 + cexcept * (maxb - b) + b * PFOR_BLOCK_SIZE
+                    + 8 + 16;
+            if (maxb - b == 1)
+                thiscost -= cexcept;
+            bestcost = Math.min(bestcost, thiscost);
+        }
+        return bestcost;
+    }
+
+    /**
+     * Pick the scheme with the smallest estimated output.
+     */
+    int select(int[] in, int pos, int length) {
+        final int packed = Util.greatestMultiple(length, PACKING_BLOCK_SIZE);
+        final int pforpacked = Util.greatestMultiple(length, PFOR_BLOCK_SIZE);
+        long variablebyte = 0;
+        long binarypacking = 0;
+        long fastpfor = pforpacked > 0 ? PFOR_PAGE_OVERHEAD_IN_BITS : 0;
+        int maxbits = 0;
+        Arrays.fill(freqs, 0);
+        for (int s = pos; s < pos + packed; s += PACKING_BLOCK_SIZE) {
+            int blockbits = 0;
+            for (int k = s; k < s + PACKING_BLOCK_SIZE; ++k) {
+                final int bits = Util.bits(in[k]);
+                variablebyte += variableByteBytes(bits) * 8;
+                freqs[bits]++;
+                blockbits = Math.max(blockbits, bits);
+            }
+            // BinaryPacking uses one byte per block for the bit width
+            binarypacking += blockbits * PACKING_BLOCK_SIZE + 8;
+            maxbits = Math.max(maxbits, blockbits);
+            if ((s + PACKING_BLOCK_SIZE - pos) % PFOR_BLOCK_SIZE == 0) {
+                fastpfor += fastPFORBlockBits();
+                Arrays.fill(freqs, 0);
+            }
+        }
+        final long tail = variableByteBits(in, pos + packed, length - packed);
+        variablebyte += tail;
+        binarypacking += tail;
+        fastpfor += tail + variableByteBits(in, pos + pforpacked, packed - pforpacked);
+
+        // without a full block, the packing schemes are VariableByte plus a
+        // header word
+        long[] estimates = { packed > 0 ? binarypacking : Long.MAX_VALUE,
+                pforpacked > 0 ? fastpfor : Long.MAX_VALUE, variablebyte,
+                Long.MAX_VALUE };
+        if (length < PFOR_BLOCK_SIZE) {
+            maxbits = Math.max(maxbits, Util.maxbits(in, pos + packed, length - packed));
+            if (maxbits <= 28)
+                estimates[SIMPLE16] = 32L * S16.estimatecompress(in, pos, length);
+        }
+        // the schemes are sorted by decoding speed: a slower scheme must save
+        // more than 1/32 of the output
+        int best = -1;
+        long bestwords = Long.MAX_VALUE;
+        for (int tag = 0; tag < estimates.length; ++tag) {
+            if (estimates[tag] == Long.MAX_VALUE)
+                continue;
+            final long words = (estimates[tag] + 31) / 32;
+            if (best < 0 || words + words / 32 < bestwords) {
+                best = tag;
+                bestwords = words;
+            }
+        }
+        return best;
+    }
+}
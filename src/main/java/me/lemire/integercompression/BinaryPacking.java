@@ -6,6 +6,7 @@
  */
 package me.lemire.integercompression;
 
+import java.nio.IntBuffer;
 
 /**
  * Scheme  based on a commonly used idea: can be extremely fast.
@@ -36,7 +37,7 @@ package me.lemire.integercompression;
  * 
  * @author Daniel Lemire
  */
-public final class BinaryPacking implements IntegerCODEC, SkippableIntegerCODEC {
+public final class BinaryPacking implements IntegerCODEC, SkippableIntBufferCODEC {
         public final static int BLOCK_SIZE = 32;
         private static final int MAX_BIT_WIDTH = Integer.SIZE;
 
@@ -133,6 +134,68 @@ public final class BinaryPacking implements IntegerCODEC, SkippableIntegerCODEC
             inpos.set(tmpinpos);
         }
 
+        @Override
+        public void headlessCompress(IntBuffer in, IntWrapper inpos, int inlength,
+                IntBuffer out, IntWrapper outpos) {
+            inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+            int tmpoutpos = outpos.get();
+            int s = inpos.get();
+            for (; s + BLOCK_SIZE * 4 - 1 < inpos.get() + inlength; s += BLOCK_SIZE * 4) {
+                final int mbits1 = IntBufferBitPacking.maxbits(in, s, BLOCK_SIZE);
+                final int mbits2 = IntBufferBitPacking.maxbits(in, s + BLOCK_SIZE, BLOCK_SIZE);
+                final int mbits3 = IntBufferBitPacking.maxbits(in, s + 2 * BLOCK_SIZE, BLOCK_SIZE);
+                final int mbits4 = IntBufferBitPacking.maxbits(in, s + 3 * BLOCK_SIZE, BLOCK_SIZE);
+                out.put(tmpoutpos++, (mbits1 << 24) | (mbits2 << 16)
+                        | (mbits3 << 8) | (mbits4));
+                tmpoutpos += IntBufferBitPacking.packwithoutmask(in, s, out,
+                        tmpoutpos, BLOCK_SIZE, mbits1);
+                tmpoutpos += IntBufferBitPacking.packwithoutmask(in, s + BLOCK_SIZE,
+                        out, tmpoutpos, BLOCK_SIZE, mbits2);
+                tmpoutpos += IntBufferBitPacking.packwithoutmask(in, s + 2 * BLOCK_SIZE,
+                        out, tmpoutpos, BLOCK_SIZE, mbits3);
+                tmpoutpos += IntBufferBitPacking.packwithoutmask(in, s + 3 * BLOCK_SIZE,
+                        out, tmpoutpos, BLOCK_SIZE, mbits4);
+            }
+            for (; s < inpos.get() + inlength; s += BLOCK_SIZE ) {
+                final int mbits = IntBufferBitPacking.maxbits(in, s, BLOCK_SIZE);
+                out.put(tmpoutpos++, mbits);
+                tmpoutpos += IntBufferBitPacking.packwithoutmask(in, s, out,
+                        tmpoutpos, BLOCK_SIZE, mbits);
+            }
+            inpos.add(inlength);
+            outpos.set(tmpoutpos);
+        }
+
+        @Override
+        public void headlessUncompress(IntBuffer in, IntWrapper inpos, int inlength,
+                IntBuffer out, IntWrapper outpos, int num) {
+            final int outlength = Util.greatestMultiple(num, BLOCK_SIZE);
+            int tmpinpos = inpos.get();
+            int s = outpos.get();
+            // packed and unpacked words of a block
+            final int[] buffer = new int[2 * BLOCK_SIZE];
+            for (; s + BLOCK_SIZE * 4 - 1 < outpos.get() + outlength; s += BLOCK_SIZE * 4) {
+                final int header = in.get(tmpinpos);
+                ++tmpinpos;
+                tmpinpos += IntBufferBitPacking.fastunpack(in, tmpinpos, out, s,
+                        header >>> 24, buffer);
+                tmpinpos += IntBufferBitPacking.fastunpack(in, tmpinpos, out,
+                        s + BLOCK_SIZE, (header >>> 16) & 0xFF, buffer);
+                tmpinpos += IntBufferBitPacking.fastunpack(in, tmpinpos, out,
+                        s + 2 * BLOCK_SIZE, (header >>> 8) & 0xFF, buffer);
+                tmpinpos += IntBufferBitPacking.fastunpack(in, tmpinpos, out,
+                        s + 3 * BLOCK_SIZE, header & 0xFF, buffer);
+            }
+            for (; s < outpos.get() + outlength; s += BLOCK_SIZE ) {
+                final int mbits = in.get(tmpinpos);
+                ++tmpinpos;
+                tmpinpos += IntBufferBitPacking.fastunpack(in, tmpinpos, out, s,
+                        mbits, buffer);
+            }
+            outpos.add(outlength);
+            inpos.set(tmpinpos);
+        }
+
         @Override
         public int maxHeadlessCompressedLength(IntWrapper compressedPositions, int inlength) {
             int blockCount = inlength / BLOCK_SIZE;
@@ -0,0 +1,145 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+/**
+ * Evaluates a predicate over data compressed with BinaryPacking (headless
+ * format) without uncompressing it to an array. The data is processed block
+ * by block:
+ * <ul>
+ * <li>a block of b-bit integers only holds values between 0 and 2^b - 1: it
+ * is skipped without being unpacked if the predicate cannot match any of these
+ * values, and accepted without being unpacked if all of them match;</li>
+ * <li>otherwise, the block is unpacked to a buffer of 32 integers (which stays
+ * in cache) and each value is tested.</li>
+ * </ul>
+ *
+ * The matches are reported either as positions or as a bitmap. As with
+ * BinaryPacking#headlessUncompress, only the multiple of 32 integers below
+ * num are processed: with SkippableComposition(BinaryPacking, VariableByte),
+ * the remaining integers should be uncompressed and tested directly.
+ *
+ * <pre>
+ * int count = BinaryPackingScan.scan(compressed, new IntWrapper(0), num,
+ *         ScanPredicate.lessThan(100), positions);
+ * </pre>
+ *
+ * @author Daniel Lemire
+ */
+public final class BinaryPackingScan {
+        private static final int BLOCK_SIZE = BinaryPacking.BLOCK_SIZE;
+
+        private BinaryPackingScan() {
+        }
+
+        /**
+         * Write the positions of the matching integers.
+         *
+         * @param in
+         *                data compressed with BinaryPacking#headlessCompress
+         * @param inpos
+         *                where to start reading: it is moved after the data
+         * @param num
+         *                number of compressed integers
+         * @param predicate
+         *                predicate to evaluate
+         * @param positions
+         *                where to write the positions (starting from 0) of the
+         *                matching integers: it should have room for
+         *                Util.greatestMultiple(num, 32) positions
+         * @return the number of matching integers
+         */
+        public static int scan(int[] in, IntWrapper inpos, int num,
+                ScanPredicate predicate, int[] positions) {
+                return scan(in, inpos, num, predicate, positions, null);
+        }
+
+        /**
+         * Set the bits of the matching integers in a bitmap (the bit i % 64 of
+         * bitmap[i / 64] for the integer i, starting from 0). The other bits
+         * are left unchanged.
+         *
+         * @param in
+         *                data compressed with BinaryPacking#headlessCompress
+         * @param inpos
+         *                where to start reading: it is moved after the data
+         * @param num
+         *                number of compressed integers
+         * @param predicate
+         *                predicate to evaluate
+         * @param bitmap
+         *                bitmap with at least (num + 63) / 64 words
+         * @return the number of matching integers
+         */
+        public static int scan(int[] in, IntWrapper inpos, int num,
+                ScanPredicate predicate, long[] bitmap) {
+                return scan(in, inpos, num, predicate, null, bitmap);
+        }
+
+        private static int scan(int[] in, IntWrapper inpos, int num,
+                ScanPredicate predicate, int[] positions, long[] bitmap) {
+                final int outlength = Util.greatestMultiple(num, BLOCK_SIZE);
+                final int[] buffer = new int[BLOCK_SIZE];
+                int tmpinpos = inpos.get();
+                int count = 0;
+                int s = 0;
+                for (; s + BLOCK_SIZE * 4 - 1 < outlength; s += BLOCK_SIZE * 4) {
+                        final int header = in[tmpinpos++];
+                        for (int k = 0; k < 4; ++k) {
+                                final int mbits = (header >>> (24 - 8 * k)) & 0xFF;
+                                count = scanBlock(in, tmpinpos, mbits, s + k * BLOCK_SIZE,
+                                        predicate, buffer, positions, bitmap, count);
+                                tmpinpos += mbits;
+                        }
+                }
+                for (; s < outlength; s += BLOCK_SIZE) {
+                        final int mbits = in[tmpinpos++];
+                        count = scanBlock(in, tmpinpos, mbits, s, predicate,
+                                buffer, positions, bitmap, count);
+                        tmpinpos += mbits;
+                }
+                inpos.set(tmpinpos);
+                return count;
+        }
+
+        private static int scanBlock(int[] in, int inpos, int mbits, int first,
+                ScanPredicate predicate, int[] buffer, int[] positions,
+                long[] bitmap, int count) {
+                if (mbits < 32) {
+                        final int max = (int) ((1L << mbits) - 1);
+                        if (!predicate.mayMatch(0, max))
+                                return count;
+                        if (predicate.matchesAll(0, max)) {
+                                if (positions != null) {
+                                        for (int k = 0; k < BLOCK_SIZE; ++k)
+                                                positions[count + k] = first + k;
+                                } else {
+                                        // 32 bits, aligned on 32
+                                        bitmap[first >>> 6] |= 0xFFFFFFFFL << (first & 63);
+                                }
+                                return count + BLOCK_SIZE;
+                        }
+                }
+                BitPacking.fastunpack(in, inpos, buffer, 0, mbits);
+                if (positions != null) {
+                        for (int k = 0; k < BLOCK_SIZE; ++k) {
+                                positions[count] = first + k;
+                                // branchless: the position is overwritten if
+                                // the value does not match
+                                count += predicate.test(buffer[k]) ? 1 : 0;
+                        }
+                } else {
+                        long bits = 0;
+                        for (int k = 0; k < BLOCK_SIZE; ++k)
+                                if (predicate.test(buffer[k]))
+                                        bits |= 1L << k;
+                        bitmap[first >>> 6] |= bits << (first & 63);
+                        count += Long.bitCount(bits);
+                }
+                return count;
+        }
+}
@@ -0,0 +1,27 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+/**
+ * Receives the uncompressed integers block by block (see
+ * CompressedAggregation). The block is only valid during the call: it is
+ * overwritten by the next block.
+ *
+ * @author Daniel Lemire
+ */
+@FunctionalInterface
+public interface BlockConsumer {
+        /**
+         * @param block
+         *                array holding the integers
+         * @param offset
+         *                position of the first integer
+         * @param length
+         *                number of integers
+         */
+        void accept(int[] block, int offset, int length);
+}
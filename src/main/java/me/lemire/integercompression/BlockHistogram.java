@@ -0,0 +1,74 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+/**
+ * Histogram of the integers with buckets of equal width, computed block by
+ * block. The bucket i counts the integers in [low + i * width, low + (i + 1) *
+ * width). The integers out of the buckets are counted separately.
+ *
+ * @author Daniel Lemire
+ */
+public class BlockHistogram implements BlockConsumer {
+        private final long low;
+        private final long width;
+        private final long[] counts;
+        private long below;
+        private long above;
+
+        /**
+         * @param low
+         *                lower bound of the first bucket
+         * @param width
+         *                width of the buckets (positive)
+         * @param buckets
+         *                number of buckets (positive)
+         */
+        public BlockHistogram(int low, int width, int buckets) {
+                if (width <= 0 || buckets <= 0)
+                        throw new IllegalArgumentException(
+                                "The width and the number of buckets must be positive");
+                this.low = low;
+                this.width = width;
+                this.counts = new long[buckets];
+        }
+
+        @Override
+        public void accept(int[] block, int offset, int length) {
+                final long[] c = counts;
+                for (int k = offset; k < offset + length; ++k) {
+                        final long bucket = (block[k] - low) / width;
+                        if (block[k] < low)
+                                below++;
+                        else if (bucket >= c.length)
+                                above++;
+                        else
+                                c[(int) bucket]++;
+                }
+        }
+
+        /**
+         * @return the count of each bucket (not a copy)
+         */
+        public long[] getCounts() {
+                return counts;
+        }
+
+        /**
+         * @return the number of integers smaller than the first bucket
+         */
+        public long getBelow() {
+                return below;
+        }
+
+        /**
+         * @return the number of integers larger than the last bucket
+         */
+        public long getAbove() {
+                return above;
+        }
+}
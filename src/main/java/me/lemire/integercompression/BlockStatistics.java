@@ -0,0 +1,94 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+/**
+ * Count, sum, minimum and maximum of the integers, computed block by block
+ * (as java.util.IntSummaryStatistics, but each block is folded with local
+ * variables).
+ *
+ * <pre>
+ * BlockStatistics stats = new BlockStatistics();
+ * CompressedAggregation.binaryPacking(compressed, new IntWrapper(0), num, stats);
+ * long sum = stats.getSum();
+ * </pre>
+ *
+ * @author Daniel Lemire
+ */
+public class BlockStatistics implements BlockConsumer {
+        private long count;
+        private long sum;
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+
+        @Override
+        public void accept(int[] block, int offset, int length) {
+                long s = 0;
+                int mi = min;
+                int ma = max;
+                for (int k = offset; k < offset + length; ++k) {
+                        final int v = block[k];
+                        s += v;
+                        mi = Math.min(mi, v);
+                        ma = Math.max(ma, v);
+                }
+                add(length, s, mi, ma);
+        }
+
+        /**
+         * Fold the statistics of some integers.
+         *
+         * @param count
+         *                number of integers
+         * @param sum
+         *                sum of the integers
+         * @param min
+         *                minimum of the integers
+         * @param max
+         *                maximum of the integers
+         */
+        protected void add(long count, long sum, int min, int max) {
+                this.count += count;
+                this.sum += sum;
+                this.min = Math.min(this.min, min);
+                this.max = Math.max(this.max, max);
+        }
+
+        /**
+         * @return the number of integers
+         */
+        public long getCount() {
+                return count;
+        }
+
+        /**
+         * @return the sum of the integers
+         */
+        public long getSum() {
+                return sum;
+        }
+
+        /**
+         * @return the smallest integer (Integer.MAX_VALUE if there is none)
+         */
+        public int getMin() {
+                return min;
+        }
+
+        /**
+         * @return the largest integer (Integer.MIN_VALUE if there is none)
+         */
+        public int getMax() {
+                return max;
+        }
+
+        @Override
+        public String toString() {
+                return this.getClass().getSimpleName() + "{count=" + count
+                        + ", sum=" + sum + ", min=" + min + ", max=" + max + "}";
+        }
+}
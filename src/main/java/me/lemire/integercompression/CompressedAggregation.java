@@ -0,0 +1,149 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+
+/**
+ * Aggregation of compressed data without uncompressing it to an array: the
+ * data is uncompressed block by block to a small buffer, and each block is
+ * passed to a BlockConsumer (e.g., BlockStatistics or BlockHistogram) while it
+ * is in cache. The buffer holds one block (32 integers for BinaryPacking, 256
+ * integers, i.e., 1 KB, for FastPFOR).
+ *
+ * <pre>
+ * BlockStatistics stats = new BlockStatistics();
+ * CompressedAggregation.fastPFOR(compressed, new IntWrapper(0), num, stats);
+ * </pre>
+ *
+ * As with the headlessUncompress methods, only the integers filling complete
+ * blocks are processed: with SkippableComposition(FastPFOR, VariableByte),
+ * the remaining integers should be uncompressed and passed to the consumer.
+ *
+ * See VerticalAggregation for the format of VerticalFastPFOR and
+ * VectorFastPFOR.
+ *
+ * @author Daniel Lemire
+ */
+public final class CompressedAggregation {
+
+        private CompressedAggregation() {
+        }
+
+        /**
+         * Aggregate data compressed with BinaryPacking#headlessCompress.
+         *
+         * @param in
+         *                compressed data
+         * @param inpos
+         *                where to start reading: it is moved after the data
+         * @param num
+         *                number of compressed integers
+         * @param consumer
+         *                receives the blocks of integers
+         */
+        public static void binaryPacking(int[] in, IntWrapper inpos, int num,
+                BlockConsumer consumer) {
+                final int blocksize = BinaryPacking.BLOCK_SIZE;
+                final int outlength = Util.greatestMultiple(num, blocksize);
+                final int[] block = new int[blocksize];
+                int tmpinpos = inpos.get();
+                int s = 0;
+                for (; s + blocksize * 4 - 1 < outlength; s += blocksize * 4) {
+                        final int header = in[tmpinpos++];
+                        for (int k = 0; k < 4; ++k) {
+                                final int mbits = (header >>> (24 - 8 * k)) & 0xFF;
+                                BitPacking.fastunpack(in, tmpinpos, block, 0, mbits);
+                                tmpinpos += mbits;
+                                consumer.accept(block, 0, blocksize);
+                        }
+                }
+                for (; s < outlength; s += blocksize) {
+                        final int mbits = in[tmpinpos++];
+                        BitPacking.fastunpack(in, tmpinpos, block, 0, mbits);
+                        tmpinpos += mbits;
+                        consumer.accept(block, 0, blocksize);
+                }
+                inpos.set(tmpinpos);
+        }
+
+        /**
+         * Aggregate data compressed with FastPFOR#headlessCompress, using the
+         * default page size.
+         *
+         * @param in
+         *                compressed data
+         * @param inpos
+         *                where to start reading: it is moved after the data
+         * @param num
+         *                number of compressed integers
+         * @param consumer
+         *                receives the blocks of integers
+         */
+        public static void fastPFOR(int[] in, IntWrapper inpos, int num,
+                BlockConsumer consumer) {
+                fastPFOR(in, inpos, num, FastPFOR.DEFAULT_PAGE_SIZE, consumer);
+        }
+
+        /**
+         * Aggregate data compressed with FastPFOR#headlessCompress.
+         *
+         * @param in
+         *                compressed data
+         * @param inpos
+         *                where to start reading: it is moved after the data
+         * @param num
+         *                number of compressed integers
+         * @param pageSize
+         *                page size of the FastPFOR instance used to compress
+         * @param consumer
+         *                receives the blocks of integers
+         */
+        public static void fastPFOR(int[] in, IntWrapper inpos, int num,
+                int pageSize, BlockConsumer consumer) {
+                final int outlength = Util.greatestMultiple(num, FastPFOR.BLOCK_SIZE);
+                final int[] block = new int[FastPFOR.BLOCK_SIZE];
+                final FastPFORPage page = new FastPFORPage();
+                // for each bit width, how many exceptions were used
+                final int[] exceptindex = new int[33];
+                int tmpinpos = inpos.get();
+                for (int s = 0; s < outlength; s += pageSize) {
+                        tmpinpos = page.parse(in, tmpinpos);
+                        fastPFORPage(in, page, Math.min(pageSize, outlength - s),
+                                consumer, block, exceptindex);
+                }
+                inpos.set(tmpinpos);
+        }
+
+        private static void fastPFORPage(int[] in, FastPFORPage page,
+                int thissize, BlockConsumer consumer, int[] block,
+                int[] exceptindex) {
+                Arrays.fill(exceptindex, 0);
+                final int metapos = page.metadataStart();
+                int bytepos = 0;
+                int tmpinpos = page.packedStart();
+                for (int run = 0; run < thissize / FastPFOR.BLOCK_SIZE; ++run) {
+                        final int b = FastPFORPage.metadataByte(in, metapos, bytepos++);
+                        final int cexcept = FastPFORPage.metadataByte(in, metapos, bytepos++);
+                        for (int k = 0; k < FastPFOR.BLOCK_SIZE; k += 32) {
+                                BitPacking.fastunpack(in, tmpinpos, block, k, b);
+                                tmpinpos += b;
+                        }
+                        if (cexcept > 0) {
+                                final int index = FastPFORPage.metadataByte(in, metapos, bytepos++) - b;
+                                for (int k = 0; k < cexcept; ++k) {
+                                        final int pos = FastPFORPage.metadataByte(in, metapos, bytepos++);
+                                        final int exceptvalue = index == 1 ? 1
+                                                : Util.extract(in, page.exceptionStart(index),
+                                                        exceptindex[index]++, index);
+                                        block[pos] |= exceptvalue << b;
+                                }
+                        }
+                        consumer.accept(block, 0, FastPFOR.BLOCK_SIZE);
+                }
+        }
+}
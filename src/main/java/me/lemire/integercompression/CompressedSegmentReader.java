@@ -0,0 +1,186 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Gives access to the arrays stored in a segment file written by
+ * CompressedSegmentWriter. The file is memory-mapped and each array is
+ * uncompressed directly from the mapped region: opening a segment does
+ * not read the compressed arrays.
+ *
+ * Codecs implementing SkippableIntBufferCODEC uncompress directly from the
+ * mapping; with other codecs (e.g., Simple16), the compressed array is first
+ * copied to an int array, which is kept between calls.
+ *
+ * Because the codec may hold a working area (e.g., FastPFOR), this class is
+ * not thread-safe: each thread should open its own reader. The mapping
+ * itself is shared by the operating system.
+ *
+ * @author Daniel Lemire
+ */
+public class CompressedSegmentReader {
+    private final SkippableIntegerCODEC codec;
+    private final SkippableIntBufferCODEC bufferCodec;
+    private int[] compressed = new int[0];
+    private final IntBuffer data;
+    private final int count;
+    private final int indexpos;
+
+    /**
+     * Open a segment file written with the default codec of IntCompressor.
+     *
+     * @param file
+     *            the segment file
+     * @throws IOException
+     *             if the file cannot be read or is not a valid segment
+     */
+    public CompressedSegmentReader(Path file) throws IOException {
+        this(file, new SkippableIntBufferComposition(new BinaryPacking(),
+                new VariableByte()));
+    }
+
+    /**
+     * Open a segment file.
+     *
+     * @param file
+     *            the segment file
+     * @param c
+     *            the codec that was used to write the segment
+     * @throws IOException
+     *             if the file cannot be read or is not a valid segment
+     */
+    public CompressedSegmentReader(Path file, SkippableIntegerCODEC c)
+            throws IOException {
+        codec = c;
+        bufferCodec = c instanceof SkippableIntBufferCODEC
+                ? (SkippableIntBufferCODEC) c : null;
+        // the mapping remains valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE || size % Integer.BYTES != 0
+                    || size < CompressedSegmentWriter.FOOTER_SIZE_IN_INTS * Integer.BYTES)
+                throw new IOException("Not a valid segment file: " + file);
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            data = map.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+        final int length = data.limit();
+        if (data.get(length - 1) != CompressedSegmentWriter.MAGIC)
+            throw new IOException("Not a valid segment file: " + file);
+        count = data.get(length - 2);
+        indexpos = length - CompressedSegmentWriter.FOOTER_SIZE_IN_INTS - count;
+        if (count < 0 || indexpos < 0)
+            throw new IOException("Corrupted segment file: " + file);
+    }
+
+    /**
+     * @return the number of arrays in the segment
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Number of integers in an array, without uncompressing it.
+     *
+     * @param index
+     *            index of the array within the segment
+     * @return the number of integers
+     */
+    public int length(int index) {
+        return data.get(offset(index));
+    }
+
+    /**
+     * Uncompress an array and returns the result as a new array.
+     *
+     * @param index
+     *            index of the array within the segment
+     * @return uncompressed array
+     */
+    public int[] get(int index) {
+        int[] out = new int[length(index)];
+        get(index, out, 0);
+        return out;
+    }
+
+    /**
+     * Uncompress an array to a caller-supplied array.
+     *
+     * @param index
+     *            index of the array within the segment
+     * @param out
+     *            where to write the uncompressed integers
+     * @param outpos
+     *            where to start writing in out
+     * @return the number of integers written
+     */
+    public int get(int index, int[] out, int outpos) {
+        if (bufferCodec != null)
+            return get(index, IntBuffer.wrap(out), outpos);
+        final int offset = offset(index);
+        final int compressedLength = end(index) - offset - 1;
+        final int length = data.get(offset);
+        if (compressed.length < compressedLength)
+            compressed = new int[compressedLength];
+        data.get(offset + 1, compressed, 0, compressedLength);
+        codec.headlessUncompress(compressed, new IntWrapper(0),
+                compressedLength, out, new IntWrapper(outpos), length);
+        return length;
+    }
+
+    /**
+     * Uncompress an array to a caller-supplied buffer.
+     *
+     * @param index
+     *            index of the array within the segment
+     * @param out
+     *            where to write the uncompressed integers
+     * @param outpos
+     *            where to start writing in out
+     * @return the number of integers written
+     */
+    public int get(int index, IntBuffer out, int outpos) {
+        if (bufferCodec == null) {
+            final int length = length(index);
+            if (out.hasArray())
+                return get(index, out.array(), out.arrayOffset() + outpos);
+            int[] answer = new int[length];
+            get(index, answer, 0);
+            out.put(outpos, answer);
+            return length;
+        }
+        final int offset = offset(index);
+        final int length = data.get(offset);
+        bufferCodec.headlessUncompress(data, new IntWrapper(offset + 1),
+                end(index) - offset - 1, out, new IntWrapper(outpos), length);
+        return length;
+    }
+
+    private int end(int index) {
+        return index + 1 < count ? data.get(indexpos + index + 1) : indexpos;
+    }
+
+    private int offset(int index) {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("Index " + index
+                    + " out of bounds for segment of size " + count);
+        return data.get(indexpos + index);
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "(" + codec + ")";
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes many compressed arrays of integers to a single segment file which
+ * can later be opened with CompressedSegmentReader.
+ *
+ * Each array is stored in the same format as the output of
+ * {@link IntCompressor#compress(int[])}: the number of integers followed by
+ * the headless compressed data. An index of the offsets of all arrays is
+ * written when the writer is closed. All integers are stored in little-endian
+ * byte order.
+ *
+ * A segment file cannot exceed 2GB since it is memory-mapped in one go
+ * when reading: use several segments for larger collections.
+ *
+ * This class is not thread-safe.
+ *
+ * @author Daniel Lemire
+ */
+public class CompressedSegmentWriter implements Closeable {
+    static final int MAGIC = 0x50464f52; // "PFOR"
+    static final int FOOTER_SIZE_IN_INTS = 2; // number of arrays and magic
+    static final long MAX_SIZE_IN_INTS = Integer.MAX_VALUE / Integer.BYTES;
+
+    private final FileChannel channel;
+    private final SkippableIntegerCODEC codec;
+    private int[] compressed = new int[0];
+    private int[] offsets = new int[16];
+    private int count = 0;
+    private boolean closed = false;
+    private long position = 0; // in ints
+    private ByteBuffer buffer = makeBuffer(4096);
+
+    /**
+     * Create (or truncate) a segment file using the default codec of
+     * IntCompressor.
+     *
+     * @param file
+     *            the segment file
+     * @throws IOException
+     *             if the file cannot be created
+     */
+    public CompressedSegmentWriter(Path file) throws IOException {
+        this(file, new SkippableIntBufferComposition(new BinaryPacking(),
+                new VariableByte()));
+    }
+
+    /**
+     * Create (or truncate) a segment file.
+     *
+     * @param file
+     *            the segment file
+     * @param c
+     *            the codec used to compress the arrays, the same codec must be
+     *            used to read the segment back
+     * @throws IOException
+     *             if the file cannot be created
+     */
+    public CompressedSegmentWriter(Path file, SkippableIntegerCODEC c)
+            throws IOException {
+        codec = c;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Compress and append an array.
+     *
+     * @param data
+     *            array to be compressed
+     * @return the index of the array within the segment
+     * @throws IOException
+     *             if the data cannot be written
+     */
+    public int append(int[] data) throws IOException {
+        return append(data, 0, data.length);
+    }
+
+    /**
+     * Compress and append a range of an array.
+     *
+     * @param data
+     *            array to be compressed
+     * @param offset
+     *            position of the first integer to compress
+     * @param length
+     *            number of integers to compress
+     * @return the index of the array within the segment
+     * @throws IOException
+     *             if the data cannot be written
+     */
+    public int append(int[] data, int offset, int length) throws IOException {
+        int maxCompressedLength = codec.maxHeadlessCompressedLength(
+                new IntWrapper(0), length) + 1;
+        if (compressed.length < maxCompressedLength)
+            compressed = new int[maxCompressedLength];
+        compressed[0] = length;
+        IntWrapper outpos = new IntWrapper(1);
+        codec.headlessCompress(data, new IntWrapper(offset), length,
+                compressed, outpos);
+        return appendCompressed(compressed, outpos.get());
+    }
+
+    /**
+     * Append an array that was already compressed with
+     * {@link IntCompressor#compress(int[])}, using the same codec as
+     * this writer.
+     *
+     * @param compressedData
+     *            compressed array
+     * @return the index of the array within the segment
+     * @throws IOException
+     *             if the data cannot be written
+     */
+    public int appendCompressed(int[] compressedData) throws IOException {
+        return appendCompressed(compressedData, compressedData.length);
+    }
+
+    private int appendCompressed(int[] data, int length) throws IOException {
+        if (position + length + count + 1 + FOOTER_SIZE_IN_INTS > MAX_SIZE_IN_INTS)
+            throw new IOException("The segment file cannot exceed 2GB.");
+        if (count == offsets.length)
+            offsets = Arrays.copyOf(offsets, 2 * count);
+        offsets[count] = (int) position;
+        write(data, length);
+        position += length;
+        return count++;
+    }
+
+    /**
+     * @return the number of arrays appended so far
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Write the index and close the file. Closing a closed writer has no
+     * effect.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        try {
+            write(offsets, count);
+            write(new int[] { count, MAGIC }, FOOTER_SIZE_IN_INTS);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void write(int[] data, int length) throws IOException {
+        if (buffer.capacity() < length * Integer.BYTES)
+            buffer = makeBuffer(length * Integer.BYTES);
+        buffer.clear();
+        buffer.asIntBuffer().put(data, 0, length);
+        buffer.limit(length * Integer.BYTES);
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    private static ByteBuffer makeBuffer(int sizeInBytes) {
+        return ByteBuffer.allocateDirect(sizeInBytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "(" + codec + ")";
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Compresses an unbounded stream of integers. Integers are buffered
+ * until a frame is full; the frame is then compressed and written out.
+ * The memory usage is therefore bounded by the frame size, whatever the
+ * length of the stream.
+ *
+ * Each frame is made of the number of integers it contains, the number of
+ * compressed integers that follow, and the headless compressed data, all
+ * stored as little-endian 32-bit integers. Use DecompressingIntInputStream
+ * (with the same codec) to read the stream back.
+ *
+ * This class is not thread-safe.
+ *
+ * @author Daniel Lemire
+ */
+public class CompressingIntOutputStream implements Closeable, Flushable {
+    /**
+     * Default number of integers per frame.
+     */
+    public static final int DEFAULT_FRAME_SIZE = 4096;
+
+    static final int FRAME_HEADER_SIZE_IN_INTS = 2;
+
+    private final WritableByteChannel channel;
+    private final SkippableIntegerCODEC codec;
+    private final int[] frame;
+    private int framelength = 0;
+    private final int[] compressed;
+    private final ByteBuffer buffer;
+    private final IntWrapper inpos = new IntWrapper();
+    private final IntWrapper outpos = new IntWrapper();
+
+    /**
+     * Compress to an output stream with the default codec of IntCompressor.
+     *
+     * @param out
+     *            where the compressed data is written
+     */
+    public CompressingIntOutputStream(OutputStream out) {
+        this(Channels.newChannel(out));
+    }
+
+    /**
+     * Compress to a channel with the default codec of IntCompressor.
+     *
+     * @param out
+     *            where the compressed data is written
+     */
+    public CompressingIntOutputStream(WritableByteChannel out) {
+        this(out, new SkippableComposition(new BinaryPacking(),
+                new VariableByte()), DEFAULT_FRAME_SIZE);
+    }
+
+    /**
+     * Compress to a channel.
+     *
+     * @param out
+     *            where the compressed data is written
+     * @param c
+     *            codec used to compress each frame
+     * @param frameSize
+     *            number of integers buffered before a frame is written
+     *            (should be a multiple of the block size of the codec)
+     */
+    public CompressingIntOutputStream(WritableByteChannel out,
+            SkippableIntegerCODEC c, int frameSize) {
+        if (frameSize <= 0)
+            throw new IllegalArgumentException("Frame size must be positive: " + frameSize);
+        channel = out;
+        codec = c;
+        frame = new int[frameSize];
+        compressed = new int[FRAME_HEADER_SIZE_IN_INTS
+                + codec.maxHeadlessCompressedLength(new IntWrapper(0), frameSize)];
+        buffer = ByteBuffer.allocateDirect(compressed.length * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Append an integer to the stream.
+     *
+     * @param value
+     *            integer to write
+     * @throws IOException
+     *             if a frame cannot be written
+     */
+    public void write(int value) throws IOException {
+        frame[framelength++] = value;
+        if (framelength == frame.length)
+            writeFrame();
+    }
+
+    /**
+     * Append integers to the stream.
+     *
+     * @param values
+     *            source array
+     * @param offset
+     *            position of the first integer to write
+     * @param length
+     *            number of integers to write
+     * @throws IOException
+     *             if a frame cannot be written
+     */
+    public void write(int[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            final int howmany = Math.min(length, frame.length - framelength);
+            System.arraycopy(values, offset, frame, framelength, howmany);
+            framelength += howmany;
+            offset += howmany;
+            length -= howmany;
+            if (framelength == frame.length)
+                writeFrame();
+        }
+    }
+
+    /**
+     * Compress and write the buffered integers as a (possibly short) frame.
+     * Frequent flushing degrades compression.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (framelength > 0)
+            writeFrame();
+    }
+
+    /**
+     * Flush and close the underlying channel.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeFrame() throws IOException {
+        inpos.set(0);
+        outpos.set(FRAME_HEADER_SIZE_IN_INTS);
+        codec.headlessCompress(frame, inpos, framelength, compressed, outpos);
+        compressed[0] = framelength;
+        compressed[1] = outpos.get() - FRAME_HEADER_SIZE_IN_INTS;
+        buffer.clear();
+        buffer.asIntBuffer().put(compressed, 0, outpos.get());
+        buffer.limit(outpos.get() * Integer.BYTES);
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        framelength = 0;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "(" + codec + ")";
+    }
+}
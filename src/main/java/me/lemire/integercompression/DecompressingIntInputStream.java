@@ -0,0 +1,184 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads back a stream of integers written by CompressingIntOutputStream,
+ * uncompressing one frame at a time. The memory usage is bounded by the
+ * frame size, whatever the length of the stream.
+ *
+ * This class is not thread-safe.
+ *
+ * @author Daniel Lemire
+ */
+public class DecompressingIntInputStream implements Closeable {
+    private final ReadableByteChannel channel;
+    private final SkippableIntegerCODEC codec;
+    private final int[] frame;
+    private int framelength = 0;
+    private int position = 0;
+    private final int[] compressed;
+    private final ByteBuffer buffer;
+    private final IntWrapper inpos = new IntWrapper();
+    private final IntWrapper outpos = new IntWrapper();
+    private boolean eof = false;
+
+    /**
+     * Uncompress from an input stream with the default codec of IntCompressor.
+     *
+     * @param in
+     *            where the compressed data is read
+     */
+    public DecompressingIntInputStream(InputStream in) {
+        this(Channels.newChannel(in));
+    }
+
+    /**
+     * Uncompress from a channel with the default codec of IntCompressor.
+     *
+     * @param in
+     *            where the compressed data is read
+     */
+    public DecompressingIntInputStream(ReadableByteChannel in) {
+        this(in, new SkippableComposition(new BinaryPacking(),
+                new VariableByte()), CompressingIntOutputStream.DEFAULT_FRAME_SIZE);
+    }
+
+    /**
+     * Uncompress from a channel.
+     *
+     * @param in
+     *            where the compressed data is read
+     * @param c
+     *            codec that was used to compress the stream
+     * @param frameSize
+     *            frame size that was used to compress the stream
+     */
+    public DecompressingIntInputStream(ReadableByteChannel in,
+            SkippableIntegerCODEC c, int frameSize) {
+        if (frameSize <= 0)
+            throw new IllegalArgumentException("Frame size must be positive: " + frameSize);
+        channel = in;
+        codec = c;
+        frame = new int[frameSize];
+        compressed = new int[codec.maxHeadlessCompressedLength(new IntWrapper(0), frameSize)];
+        buffer = ByteBuffer.allocateDirect(compressed.length * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * @return whether there are more integers in the stream
+     * @throws IOException
+     *             if the stream cannot be read or is corrupted
+     */
+    public boolean hasNext() throws IOException {
+        while (position == framelength) {
+            if (!readFrame())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the next integer
+     * @throws IOException
+     *             if the stream cannot be read or is corrupted
+     */
+    public int next() throws IOException {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        return frame[position++];
+    }
+
+    /**
+     * Read integers to an array.
+     *
+     * @param values
+     *            destination array
+     * @param offset
+     *            where to write the first integer
+     * @param length
+     *            maximal number of integers to read
+     * @return the number of integers read, or -1 at the end of the stream
+     * @throws IOException
+     *             if the stream cannot be read or is corrupted
+     */
+    public int read(int[] values, int offset, int length) throws IOException {
+        if (length == 0)
+            return 0;
+        if (!hasNext())
+            return -1;
+        int howmany = 0;
+        while (howmany < length && hasNext()) {
+            final int n = Math.min(length - howmany, framelength - position);
+            System.arraycopy(frame, position, values, offset + howmany, n);
+            position += n;
+            howmany += n;
+        }
+        return howmany;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean readFrame() throws IOException {
+        if (eof)
+            return false;
+        buffer.clear();
+        buffer.limit(CompressingIntOutputStream.FRAME_HEADER_SIZE_IN_INTS * Integer.BYTES);
+        if (!fill(true)) {
+            eof = true;
+            return false;
+        }
+        final int length = buffer.getInt(0);
+        final int compressedlength = buffer.getInt(Integer.BYTES);
+        if (length < 0 || length > frame.length || compressedlength < 0
+                || compressedlength > compressed.length)
+            throw new IOException("Corrupted frame header: " + length + " integers in "
+                    + compressedlength + " words");
+        buffer.clear();
+        buffer.limit(compressedlength * Integer.BYTES);
+        fill(false);
+        buffer.flip();
+        buffer.asIntBuffer().get(compressed, 0, compressedlength);
+        inpos.set(0);
+        outpos.set(0);
+        codec.headlessUncompress(compressed, inpos, compressedlength, frame, outpos, length);
+        framelength = length;
+        position = 0;
+        return true;
+    }
+
+    // returns false if the end of the stream was reached before any byte was read
+    private boolean fill(boolean eofAllowed) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (eofAllowed && buffer.position() == 0)
+                    return false;
+                throw new EOFException("Truncated compressed stream");
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "(" + codec + ")";
+    }
+}
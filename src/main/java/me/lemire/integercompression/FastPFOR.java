@@ -8,6 +8,7 @@ package me.lemire.integercompression;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.util.Arrays;
 
 /**
@@ -38,7 +39,7 @@ import java.util.Arrays;
  *
  * @author Daniel Lemire
  */
-public class FastPFOR implements IntegerCODEC,SkippableIntegerCODEC {
+public class FastPFOR implements IntegerCODEC,SkippableIntBufferCODEC {
         final static int OVERHEAD_OF_EACH_EXCEPT = 8;
         private static final int OVERHEAD_OF_EACH_PAGE_IN_INTS = 36; // 1 int for the header
                                                                      // 1 int for the byte array size
@@ -65,6 +66,13 @@ public class FastPFOR implements IntegerCODEC,SkippableIntegerCODEC {
         final int[] freqs = new int[33];
         final int[] bestbbestcexceptmaxb = new int[3];
 
+        // Staging area for an IntBuffer, allocated on first use.
+        int[] pageInBuffer;
+        int[] pageOutBuffer;
+        IntWrapper pageInpos;
+        IntWrapper pageOutpos;
+        FastPFORPage page;
+
 
         /**
          * Construct the FastPFOR CODEC.
@@ -205,6 +213,9 @@ public class FastPFOR implements IntegerCODEC,SkippableIntegerCODEC {
                 for (int k = 2; k <= 32; ++k) {
                         if (dataPointers[k] != 0) {
                                 out[tmpoutpos++] = dataPointers[k];// size
+                                // clear the padding so that the output does not depend on previous pages
+                                Arrays.fill(dataTobePacked[k], dataPointers[k],
+                                        Util.greatestMultiple(dataPointers[k] + 31, 32), 0);
                                 int j = 0;
                                 for (; j < dataPointers[k]; j += 32) {
                                         BitPacking.fastpack(dataTobePacked[k],
@@ -324,6 +335,102 @@ public class FastPFOR implements IntegerCODEC,SkippableIntegerCODEC {
                 outpos.set(tmpoutpos);
                 inpos.set(inexcept);
         }
+        /**
+         * Compress data in blocks of BLOCK_SIZE integers (if fewer than BLOCK_SIZE integers
+         * are provided, nothing is done). Each page is copied to a working
+         * area on the heap, compressed there and copied to out: this overload
+         * exists for convenience and does not avoid the copies.
+         *
+         * @see SkippableIntBufferCODEC#headlessCompress(IntBuffer, IntWrapper, int, IntBuffer, IntWrapper)
+         */
+        @Override
+        public void headlessCompress(IntBuffer in, IntWrapper inpos, int inlength,
+                IntBuffer out, IntWrapper outpos) {
+                inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+                if (inlength == 0)
+                        return;
+                allocatePageBuffers();
+                final int finalinpos = inpos.get() + inlength;
+                while (inpos.get() != finalinpos) {
+                        int thissize = Math.min(pageSize,
+                                finalinpos - inpos.get());
+                        in.get(inpos.get(), pageInBuffer, 0, thissize);
+                        pageInpos.set(0);
+                        pageOutpos.set(0);
+                        encodePage(pageInBuffer, pageInpos, thissize, pageOutBuffer, pageOutpos);
+                        out.put(outpos.get(), pageOutBuffer, 0, pageOutpos.get());
+                        inpos.add(thissize);
+                        outpos.add(pageOutpos.get());
+                }
+        }
+
+        private void allocatePageBuffers() {
+                if (pageInBuffer == null) {
+                        pageInBuffer = new int[pageSize];
+                        pageOutBuffer = new int[maxHeadlessCompressedLength(new IntWrapper(0), pageSize)];
+                        pageInpos = new IntWrapper();
+                        pageOutpos = new IntWrapper();
+                        page = new FastPFORPage();
+                }
+        }
+
+        /**
+         * Uncompress data in blocks of integers. Each page is copied to the
+         * working area used by compression, uncompressed there and copied to
+         * out: this overload exists for convenience and does not avoid the
+         * copies (BinaryPacking and VariableByte decode straight from the
+         * buffer). In this particular case, the inlength parameter is
+         * ignored: it is deduced from the compressed data.
+         *
+         * @see SkippableIntBufferCODEC#headlessUncompress(IntBuffer, IntWrapper, int, IntBuffer, IntWrapper, int)
+         */
+        @Override
+        public void headlessUncompress(IntBuffer in, IntWrapper inpos, int inlength,
+                IntBuffer out, IntWrapper outpos, int mynvalue) {
+                mynvalue = Util.greatestMultiple(mynvalue, BLOCK_SIZE);
+                if (mynvalue == 0)
+                        return;
+                allocatePageBuffers();
+                int finalout = outpos.get() + mynvalue;
+                while (outpos.get() != finalout) {
+                        int thissize = Math.min(pageSize,
+                                finalout - outpos.get());
+                        decodePage(in, inpos, out, outpos, thissize);
+                }
+        }
+
+        // the page is copied (in bulk) to pageOutBuffer, uncompressed to
+        // pageInBuffer and copied to out
+        private void decodePage(IntBuffer in, IntWrapper inpos, IntBuffer out,
+                IntWrapper outpos, int thissize) {
+                final int pagelength = page.parse(in, inpos.get()) - inpos.get();
+                in.get(inpos.get(), pageOutBuffer, 0, pagelength);
+                pageInpos.set(0);
+                pageOutpos.set(0);
+                decodePage(pageOutBuffer, pageInpos, pageInBuffer, pageOutpos, thissize);
+                out.put(outpos.get(), pageInBuffer, 0, thissize);
+                inpos.add(pagelength);
+                outpos.add(thissize);
+        }
+
+        /**
+         * Build a block-level skip index over headless compressed data, so
+         * that individual integers or ranges can be retrieved without
+         * uncompressing whole pages. Only the first integers in multiples
+         * of BLOCK_SIZE are covered (as with headlessUncompress).
+         *
+         * @param in
+         *                array containing data in compressed form
+         * @param inpos
+         *                where the compressed data starts in the array
+         * @param num
+         *                number of integers that were compressed
+         * @return the skip index
+         */
+        public FastPFORSkipIndex buildSkipIndex(int[] in, int inpos, int num) {
+                return new FastPFORSkipIndex(pageSize, in, inpos, num);
+        }
+
         @Override
         public void compress(int[] in, IntWrapper inpos, int inlength, int[] out,
                 IntWrapper outpos) {
@@ -0,0 +1,159 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.nio.IntBuffer;
+
+/**
+ * Reads the headers of a page compressed by FastPFOR, without uncompressing
+ * it. VerticalFastPFOR and VectorFastPFOR use the same page layout (only the
+ * order of the bits within the packed blocks differs):
+ *
+ * <ul>
+ * <li>the offset of the metadata, relative to the start of the page;</li>
+ * <li>the bit-packed blocks;</li>
+ * <li>the number of metadata bytes, followed by the bytes (4 per integer,
+ * in little-endian order): for each block, its bit width and its number of
+ * exceptions and, if there are exceptions, the maximal bit width and the
+ * position of each exception;</li>
+ * <li>a bitmap of the bit widths (2 to 32) of the exceptions and, for each of
+ * them, the number of exceptions followed by their bit-packed values.</li>
+ * </ul>
+ *
+ * An instance can be reused to parse many pages. It is not thread-safe.
+ *
+ * @author Daniel Lemire
+ */
+public final class FastPFORPage {
+    private int metapos;
+    private int packedpos;
+    private int endpos;
+    private int bitmap;
+    private final int[] exceptpos = new int[33];
+    private final int[] exceptcount = new int[33];
+
+    /**
+     * Parse the headers of a page.
+     *
+     * @param in
+     *            compressed data
+     * @param pagestart
+     *            position of the page
+     * @return the position following the page
+     */
+    public int parse(int[] in, int pagestart) {
+        packedpos = pagestart + 1;
+        int inexcept = pagestart + in[pagestart];
+        final int bytesize = in[inexcept++];
+        metapos = inexcept;
+        inexcept += (bytesize + 3) / 4;
+        bitmap = in[inexcept++];
+        for (int k = 2; k <= 32; ++k) {
+            if ((bitmap & (1 << (k - 1))) != 0) {
+                final int size = in[inexcept++];
+                exceptpos[k] = inexcept;
+                exceptcount[k] = size;
+                inexcept += (int) (((long) size * k + 31) / 32);
+            }
+        }
+        endpos = inexcept;
+        return endpos;
+    }
+
+    /**
+     * Parse the headers of a page in a buffer (with absolute gets: the
+     * position of the buffer is not modified).
+     *
+     * @param in
+     *            compressed data
+     * @param pagestart
+     *            position of the page
+     * @return the position following the page
+     */
+    public int parse(IntBuffer in, int pagestart) {
+        packedpos = pagestart + 1;
+        int inexcept = pagestart + in.get(pagestart);
+        final int bytesize = in.get(inexcept++);
+        metapos = inexcept;
+        inexcept += (bytesize + 3) / 4;
+        bitmap = in.get(inexcept++);
+        for (int k = 2; k <= 32; ++k) {
+            if ((bitmap & (1 << (k - 1))) != 0) {
+                final int size = in.get(inexcept++);
+                exceptpos[k] = inexcept;
+                exceptcount[k] = size;
+                inexcept += (int) (((long) size * k + 31) / 32);
+            }
+        }
+        endpos = inexcept;
+        return endpos;
+    }
+
+    /**
+     * @return the position of the first bit-packed block
+     */
+    public int packedStart() {
+        return packedpos;
+    }
+
+    /**
+     * @return the position of the first metadata byte, see
+     *         {@link #metadataByte(int[], int, int)}
+     */
+    public int metadataStart() {
+        return metapos;
+    }
+
+    /**
+     * @return the position following the page
+     */
+    public int end() {
+        return endpos;
+    }
+
+    /**
+     * @param bit
+     *            bit width (between 2 and 32)
+     * @return whether the page holds exceptions of this bit width
+     */
+    public boolean hasExceptions(int bit) {
+        return (bitmap & (1 << (bit - 1))) != 0;
+    }
+
+    /**
+     * @param bit
+     *            bit width (between 2 and 32)
+     * @return the position of the bit-packed exceptions of this bit width
+     */
+    public int exceptionStart(int bit) {
+        return exceptpos[bit];
+    }
+
+    /**
+     * @param bit
+     *            bit width (between 2 and 32)
+     * @return the number of exceptions of this bit width
+     */
+    public int exceptionCount(int bit) {
+        return hasExceptions(bit) ? exceptcount[bit] : 0;
+    }
+
+    /**
+     * Read a metadata byte.
+     *
+     * @param in
+     *            compressed data
+     * @param metapos
+     *            position of the first metadata byte
+     * @param k
+     *            index of the byte
+     * @return the byte (between 0 and 255)
+     */
+    public static int metadataByte(int[] in, int metapos, int k) {
+        return (in[metapos + (k >>> 2)] >>> ((k & 3) << 3)) & 0xFF;
+    }
+}
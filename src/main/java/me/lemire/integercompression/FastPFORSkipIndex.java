@@ -0,0 +1,252 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+
+/**
+ * Block-level skip index over data compressed by FastPFOR, allowing random
+ * access without decoding whole pages. For each block of
+ * FastPFOR.BLOCK_SIZE integers, the index records where its bit-packed
+ * values and its metadata (bit width, number of exceptions, exception
+ * positions) start, as well as the rank of its first exception. Exception
+ * values are extracted directly from the bit-packed exception arrays of the
+ * page.
+ *
+ * The index is built by scanning the page and block headers only: no
+ * integer is uncompressed. Accessing one integer then costs O(1) plus a scan
+ * of the exceptions of its block, and uncompressing a range only touches
+ * the blocks overlapping it.
+ *
+ * The index keeps a reference to the compressed array, which must not be
+ * modified. It holds a small working area, so each thread should use its own
+ * instance (see {@link #duplicate()}).
+ *
+ * @see FastPFOR#buildSkipIndex(int[], int, int)
+ * @author Daniel Lemire
+ */
+public final class FastPFORSkipIndex {
+    private static final int BLOCK_SIZE = FastPFOR.BLOCK_SIZE;
+
+    private final int[] in;
+    private final int num;
+    private final int blocksPerPage;
+    private final int endpos;
+
+    // per page
+    private final int[] pageBytes;
+    private final int[][] pageExceptions;
+
+    // per block
+    private final int[] blockPacked;
+    private final int[] blockMeta;
+    private final int[] blockExceptStart;
+    private final byte[] blockBits;
+    private final byte[] blockExceptCount;
+
+    private final int[] blockBuffer = new int[BLOCK_SIZE];
+
+    FastPFORSkipIndex(int pageSize, int[] in, int inpos, int num) {
+        this.in = in;
+        this.num = Util.greatestMultiple(num, BLOCK_SIZE);
+        this.blocksPerPage = pageSize / BLOCK_SIZE;
+        final int blockCount = this.num / BLOCK_SIZE;
+        final int pageCount = (blockCount + blocksPerPage - 1) / blocksPerPage;
+        pageBytes = new int[pageCount];
+        pageExceptions = new int[pageCount][];
+        blockPacked = new int[blockCount];
+        blockMeta = new int[blockCount];
+        blockExceptStart = new int[blockCount];
+        blockBits = new byte[blockCount];
+        blockExceptCount = new byte[blockCount];
+        final int[] exceptCounters = new int[33];
+        final FastPFORPage header = new FastPFORPage();
+        int pos = inpos;
+        int block = 0;
+        for (int page = 0; page < pageCount; ++page) {
+            final int pageend = header.parse(in, pos);
+            int packedpos = header.packedStart();
+            pageBytes[page] = header.metadataStart();
+            final int[] exceptpos = new int[33];
+            for (int k = 2; k <= 32; ++k)
+                exceptpos[k] = header.exceptionStart(k);
+            pageExceptions[page] = exceptpos;
+            Arrays.fill(exceptCounters, 0);
+            int bytepos = 0;
+            for (final int lastblock = Math.min(blockCount, block + blocksPerPage); block < lastblock; ++block) {
+                final int b = FastPFORPage.metadataByte(in, pageBytes[page], bytepos);
+                final int cexcept = FastPFORPage.metadataByte(in, pageBytes[page], bytepos + 1);
+                blockPacked[block] = packedpos;
+                blockMeta[block] = bytepos;
+                blockBits[block] = (byte) b;
+                blockExceptCount[block] = (byte) cexcept;
+                packedpos += b * (BLOCK_SIZE / 32);
+                if (cexcept > 0) {
+                    final int index = FastPFORPage.metadataByte(in, pageBytes[page], bytepos + 2) - b;
+                    blockExceptStart[block] = exceptCounters[index];
+                    exceptCounters[index] += cexcept;
+                    bytepos += 3 + cexcept;
+                } else {
+                    bytepos += 2;
+                }
+            }
+            pos = pageend;
+        }
+        endpos = pos;
+    }
+
+    private FastPFORSkipIndex(FastPFORSkipIndex other) {
+        in = other.in;
+        num = other.num;
+        blocksPerPage = other.blocksPerPage;
+        endpos = other.endpos;
+        pageBytes = other.pageBytes;
+        pageExceptions = other.pageExceptions;
+        blockPacked = other.blockPacked;
+        blockMeta = other.blockMeta;
+        blockExceptStart = other.blockExceptStart;
+        blockBits = other.blockBits;
+        blockExceptCount = other.blockExceptCount;
+    }
+
+    /**
+     * Create an index sharing the same (immutable) data but with its own
+     * working area, for use by another thread.
+     *
+     * @return a new index
+     */
+    public FastPFORSkipIndex duplicate() {
+        return new FastPFORSkipIndex(this);
+    }
+
+    /**
+     * @return the number of integers covered by the index
+     */
+    public int size() {
+        return num;
+    }
+
+    /**
+     * @return the position in the compressed array following the FastPFOR
+     *         data (where a second codec would start, within a composition)
+     */
+    public int endPosition() {
+        return endpos;
+    }
+
+    /**
+     * Number of bits used by the packed values of a block.
+     *
+     * @param block
+     *            block index (integer index / FastPFOR.BLOCK_SIZE)
+     * @return bit width
+     */
+    public int bitWidth(int block) {
+        return blockBits[block];
+    }
+
+    /**
+     * Number of exceptions in a block.
+     *
+     * @param block
+     *            block index (integer index / FastPFOR.BLOCK_SIZE)
+     * @return number of exceptions
+     */
+    public int exceptionCount(int block) {
+        return blockExceptCount[block] & 0xFF;
+    }
+
+    /**
+     * Retrieve one integer.
+     *
+     * @param index
+     *            position of the integer in the uncompressed data
+     * @return the integer
+     */
+    public int get(int index) {
+        if (index < 0 || index >= num)
+            throw new IndexOutOfBoundsException("Index " + index
+                    + " out of bounds for length " + num);
+        final int block = index / BLOCK_SIZE;
+        final int pos = index % BLOCK_SIZE;
+        final int b = blockBits[block];
+        int value = Util.extract(in, blockPacked[block], pos, b);
+        final int cexcept = blockExceptCount[block] & 0xFF;
+        if (cexcept > 0) {
+            final int page = block / blocksPerPage;
+            final int bytes = pageBytes[page];
+            final int meta = blockMeta[block];
+            for (int r = 0; r < cexcept; ++r) {
+                final int exceptpos = FastPFORPage.metadataByte(in, bytes, meta + 3 + r);
+                if (exceptpos == pos)
+                    return value | (exceptionValue(block, r) << b);
+                if (exceptpos > pos)
+                    break;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Uncompress the integers in [from, to) to an array.
+     *
+     * @param from
+     *            position of the first integer (inclusive)
+     * @param to
+     *            position of the last integer (exclusive)
+     * @param out
+     *            output array
+     * @param outpos
+     *            where to write in the output array
+     */
+    public void uncompressRange(int from, int to, int[] out, int outpos) {
+        if (from < 0 || to > num || from > to)
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to
+                    + ") out of bounds for length " + num);
+        while (from < to) {
+            final int block = from / BLOCK_SIZE;
+            final int blockstart = block * BLOCK_SIZE;
+            final int howmany = Math.min(to, blockstart + BLOCK_SIZE) - from;
+            if (from == blockstart && howmany == BLOCK_SIZE) {
+                decodeBlock(block, out, outpos);
+            } else {
+                decodeBlock(block, blockBuffer, 0);
+                System.arraycopy(blockBuffer, from - blockstart, out, outpos, howmany);
+            }
+            from += howmany;
+            outpos += howmany;
+        }
+    }
+
+    private void decodeBlock(int block, int[] out, int outpos) {
+        final int b = blockBits[block];
+        int packedpos = blockPacked[block];
+        for (int k = 0; k < BLOCK_SIZE; k += 32) {
+            BitPacking.fastunpack(in, packedpos, out, outpos + k, b);
+            packedpos += b;
+        }
+        final int cexcept = blockExceptCount[block] & 0xFF;
+        if (cexcept > 0) {
+            final int bytes = pageBytes[block / blocksPerPage];
+            final int meta = blockMeta[block];
+            for (int r = 0; r < cexcept; ++r) {
+                final int exceptpos = FastPFORPage.metadataByte(in, bytes, meta + 3 + r);
+                out[outpos + exceptpos] |= exceptionValue(block, r) << b;
+            }
+        }
+    }
+
+    private int exceptionValue(int block, int rank) {
+        final int page = block / blocksPerPage;
+        final int index = FastPFORPage.metadataByte(in, pageBytes[page], blockMeta[block] + 2)
+                - blockBits[block];
+        if (index == 1)
+            return 1;
+        return Util.extract(in, pageExceptions[page][index],
+                blockExceptStart[block] + rank, index);
+    }
+}
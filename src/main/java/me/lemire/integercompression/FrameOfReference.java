@@ -0,0 +1,192 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+/**
+ * Frame-of-reference scheme: the integers are encoded in blocks of 128
+ * integers, and each block stores its minimum followed by the differences
+ * to the minimum, bit packed. Unlike BinaryPacking, large values that are close
+ * to each other (e.g., timestamps) use few bits. For arrays containing an
+ * arbitrary number of integers, you should use it in conjunction with another
+ * CODEC:
+ *
+ * <pre>
+ * SkippableIntegerCODEC ic =
+ * new SkippableComposition(new FrameOfReference(), new VariableByte()).
+ * </pre>
+ *
+ * The blocks are stored by groups of GROUP_SIZE blocks (the last group may
+ * have fewer blocks). As with BinaryPacking, the bit widths of the blocks of a
+ * group are packed in a header word (8 bits per block, the first block in the
+ * most significant byte). Each block follows, made of its minimum and 4 groups
+ * of 32 integers packed with b bits (4 * b words): the integers of a group can
+ * be accessed in constant time (see select).
+ *
+ * This codec is not thread-safe.
+ *
+ * @author Daniel Lemire
+ */
+public final class FrameOfReference implements IntegerCODEC, SkippableIntegerCODEC {
+        /**
+         * Number of integers per block.
+         */
+        public final static int BLOCK_SIZE = 128;
+        /**
+         * Number of blocks sharing a header word.
+         */
+        public final static int GROUP_SIZE = 4;
+        private final static int PACKING_SIZE = 32;
+
+        private final int[] buffer = new int[BLOCK_SIZE];
+
+        @Override
+        public void compress(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos) {
+                inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+                if (inlength == 0)
+                        return;
+                out[outpos.get()] = inlength;
+                outpos.increment();
+                headlessCompress(in, inpos, inlength, out, outpos);
+        }
+
+        @Override
+        public void headlessCompress(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos) {
+                inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+                int tmpoutpos = outpos.get();
+                final int finalinpos = inpos.get() + inlength;
+                for (int s = inpos.get(); s < finalinpos; s += GROUP_SIZE * BLOCK_SIZE) {
+                        final int blocks = Math.min(GROUP_SIZE, (finalinpos - s) / BLOCK_SIZE);
+                        final int headerpos = tmpoutpos++;
+                        int header = 0;
+                        for (int j = 0; j < blocks; ++j) {
+                                final int mbits = compressBlock(in, s + j * BLOCK_SIZE,
+                                        out, tmpoutpos);
+                                header |= mbits << (24 - 8 * j);
+                                tmpoutpos += 1 + mbits * (BLOCK_SIZE / PACKING_SIZE);
+                        }
+                        out[headerpos] = header;
+                }
+                inpos.add(inlength);
+                outpos.set(tmpoutpos);
+        }
+
+        // writes the minimum and the packed differences, returns the bit width
+        private int compressBlock(int[] in, int inpos, int[] out, int outpos) {
+                int min = in[inpos];
+                for (int k = inpos + 1; k < inpos + BLOCK_SIZE; ++k)
+                        min = Math.min(min, in[k]);
+                int mask = 0;
+                for (int k = 0; k < BLOCK_SIZE; ++k) {
+                        buffer[k] = in[inpos + k] - min;
+                        mask |= buffer[k];
+                }
+                final int mbits = Util.bits(mask);
+                out[outpos++] = min;
+                for (int k = 0; k < BLOCK_SIZE; k += PACKING_SIZE) {
+                        BitPacking.fastpackwithoutmask(buffer, k, out, outpos, mbits);
+                        outpos += mbits;
+                }
+                return mbits;
+        }
+
+        @Override
+        public void uncompress(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                final int outlength = in[inpos.get()];
+                inpos.increment();
+                headlessUncompress(in, inpos, inlength, out, outpos, outlength);
+        }
+
+        @Override
+        public void headlessUncompress(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos, int num) {
+                final int outlength = Util.greatestMultiple(num, BLOCK_SIZE);
+                int tmpinpos = inpos.get();
+                final int finaloutpos = outpos.get() + outlength;
+                for (int s = outpos.get(); s < finaloutpos; s += GROUP_SIZE * BLOCK_SIZE) {
+                        final int blocks = Math.min(GROUP_SIZE, (finaloutpos - s) / BLOCK_SIZE);
+                        final int header = in[tmpinpos++];
+                        for (int j = 0; j < blocks; ++j) {
+                                final int mbits = (header >>> (24 - 8 * j)) & 0xFF;
+                                final int min = in[tmpinpos++];
+                                final int blockstart = s + j * BLOCK_SIZE;
+                                for (int k = 0; k < BLOCK_SIZE; k += PACKING_SIZE) {
+                                        BitPacking.fastunpack(in, tmpinpos, out,
+                                                blockstart + k, mbits);
+                                        tmpinpos += mbits;
+                                }
+                                if (min != 0)
+                                        for (int k = blockstart; k < blockstart + BLOCK_SIZE; ++k)
+                                                out[k] += min;
+                        }
+                }
+                outpos.add(outlength);
+                inpos.set(tmpinpos);
+        }
+
+        @Override
+        public int maxHeadlessCompressedLength(IntWrapper compressedPositions, int inlength) {
+                final int blockCount = inlength / BLOCK_SIZE;
+                compressedPositions.add(blockCount * BLOCK_SIZE);
+                return (blockCount + GROUP_SIZE - 1) / GROUP_SIZE
+                        + blockCount * (1 + BLOCK_SIZE);
+        }
+
+        /**
+         * Number of words used by a compressed group of blocks.
+         *
+         * @param in
+         *                compressed data
+         * @param grouppos
+         *                position of the group
+         * @param blocks
+         *                number of blocks in the group (GROUP_SIZE, except
+         *                for the last group)
+         * @return the position of the next group minus grouppos
+         */
+        public static int groupLength(int[] in, int grouppos, int blocks) {
+                final int header = in[grouppos];
+                // the bit widths of the missing blocks are 0
+                final int widths = (header >>> 24) + ((header >>> 16) & 0xFF)
+                        + ((header >>> 8) & 0xFF) + (header & 0xFF);
+                return 1 + blocks + widths * (BLOCK_SIZE / PACKING_SIZE);
+        }
+
+        /**
+         * Return one integer of a compressed group of blocks, without
+         * uncompressing it.
+         *
+         * @param in
+         *                compressed data
+         * @param grouppos
+         *                position of the group
+         * @param index
+         *                index of the integer in the group (between 0 and
+         *                GROUP_SIZE * BLOCK_SIZE - 1)
+         * @return the integer
+         */
+        public static int select(int[] in, int grouppos, int index) {
+                final int header = in[grouppos];
+                final int block = index / BLOCK_SIZE;
+                int blockpos = grouppos + 1;
+                for (int j = 0; j < block; ++j)
+                        blockpos += 1 + ((header >>> (24 - 8 * j)) & 0xFF)
+                                * (BLOCK_SIZE / PACKING_SIZE);
+                final int mbits = (header >>> (24 - 8 * block)) & 0xFF;
+                return in[blockpos] + Util.extract(in, blockpos + 1,
+                        index % BLOCK_SIZE, mbits);
+        }
+
+        @Override
+        public String toString() {
+                return this.getClass().getSimpleName();
+        }
+}
@@ -0,0 +1,108 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.nio.IntBuffer;
+
+/**
+ * Bitpacking routines working on IntBuffer instances. The layout of the
+ * packed data is the same as with BitPacking: values are stored from the
+ * least significant bits to the most significant bits of consecutive words.
+ *
+ * Only absolute get/put methods are used so that the state of the buffers
+ * is not modified.
+ *
+ * @author Daniel Lemire
+ *
+ */
+final class IntBufferBitPacking {
+
+    private IntBufferBitPacking() {
+    }
+
+    /**
+     * Compute the maximum of the integer logarithms (ceil(log(x+1)) of a range
+     * of value
+     *
+     * @param in
+     *            source buffer
+     * @param pos
+     *            starting position
+     * @param length
+     *            number of integers to consider
+     * @return integer logarithm
+     */
+    static int maxbits(IntBuffer in, int pos, int length) {
+        int mask = 0;
+        for (int k = pos; k < pos + length; ++k)
+            mask |= in.get(k);
+        return Util.bits(mask);
+    }
+
+    /**
+     * Pack integers, the values must fit in bit bits.
+     *
+     * @param in
+     *            source buffer
+     * @param inpos
+     *            position in source buffer
+     * @param out
+     *            output buffer
+     * @param outpos
+     *            position in output buffer
+     * @param num
+     *            number of integers to pack
+     * @param bit
+     *            number of bits to use per integer
+     * @return the number of words written
+     */
+    static int packwithoutmask(IntBuffer in, int inpos, IntBuffer out,
+            int outpos, int num, int bit) {
+        final int initoutpos = outpos;
+        long buffer = 0;
+        int used = 0;
+        for (int k = inpos; k < inpos + num; ++k) {
+            buffer |= (in.get(k) & 0xFFFFFFFFL) << used;
+            used += bit;
+            if (used >= 32) {
+                out.put(outpos++, (int) buffer);
+                buffer >>>= 32;
+                used -= 32;
+            }
+        }
+        if (used > 0)
+            out.put(outpos++, (int) buffer);
+        return outpos - initoutpos;
+    }
+
+    /**
+     * Unpack 32 integers: the packed words are read with a bulk get,
+     * unpacked with BitPacking#fastunpack and written with a bulk put.
+     *
+     * @param in
+     *            source buffer
+     * @param inpos
+     *            position in source buffer
+     * @param out
+     *            output buffer
+     * @param outpos
+     *            position in output buffer
+     * @param bit
+     *            number of bits used per integer
+     * @param buffer
+     *            working area of at least 64 integers
+     * @return the number of words read
+     */
+    static int fastunpack(IntBuffer in, int inpos, IntBuffer out, int outpos,
+            int bit, int[] buffer) {
+        in.get(inpos, buffer, 0, bit);
+        BitPacking.fastunpack(buffer, 0, buffer, 32, bit);
+        out.put(outpos, buffer, 32, 32);
+        return bit;
+    }
+}
@@ -10,6 +10,10 @@ import java.util.Arrays;
 public class IntCompressor {
 
 
+    // positions reused by each thread, so that no IntWrapper is allocated per call
+    private static final ThreadLocal<IntWrapper[]> POSITIONS = ThreadLocal
+            .withInitial(() -> new IntWrapper[] { new IntWrapper(), new IntWrapper() });
+
     SkippableIntegerCODEC codec;
     /**
      * Constructor wrapping a codec.
@@ -35,14 +39,9 @@ public class IntCompressor {
      * @return compressed array
      */
     public  int[] compress(int[] input) {
-        int maxCompressedLength = codec.maxHeadlessCompressedLength(new IntWrapper(0), input.length);
-        int[] compressed = new int[maxCompressedLength + 1]; // +1 to store the length of the input
-        // Store at index=0 the length of the input, hence enabling .headlessCompress
-        compressed[0] = input.length;
-        IntWrapper outpos = new IntWrapper(1);
-        codec.headlessCompress(input, new IntWrapper(0), input.length, compressed, outpos);
-        compressed = Arrays.copyOf(compressed,outpos.intValue());
-        return compressed;
+        int[] compressed = new int[maxCompressedLength(input.length)];
+        return Arrays.copyOf(compressed,
+                compress(input, 0, input.length, compressed, 0));
     }
 
     /**
@@ -52,14 +51,91 @@ public class IntCompressor {
      * @return uncompressed array
      */
     public int[] uncompress(int[] compressed) {
-        // Read at index=0 the length of the input, hence enabling .headlessUncompress
-        int[] decompressed = new int[compressed[0]];
-        IntWrapper inpos = new IntWrapper(1);
-        codec.headlessUncompress(compressed, inpos, 
-                compressed.length - inpos.intValue(), 
-                decompressed, new IntWrapper(0), 
-                decompressed.length);
+        int[] decompressed = new int[decompressedLength(compressed)];
+        uncompress(compressed, 0, compressed.length, decompressed, 0);
         return decompressed;
     }
 
+    /**
+     * Compress integers to a buffer provided by the caller. Unlike
+     * {@link #compress(int[])}, this method does not allocate memory.
+     * 
+     * @param input array containing the integers to be compressed
+     * @param inoffset position of the first integer to compress
+     * @param inlength number of integers to compress
+     * @param output where the compressed data is written, it should have
+     *            room for {@link #maxCompressedLength(int)} integers
+     * @param outoffset where to start writing
+     * @return the number of integers written to output
+     */
+    public int compress(int[] input, int inoffset, int inlength,
+            int[] output, int outoffset) {
+        IntWrapper[] positions = POSITIONS.get();
+        // Store the length of the input first, hence enabling .headlessCompress
+        output[outoffset] = inlength;
+        positions[0].set(inoffset);
+        positions[1].set(outoffset + 1);
+        codec.headlessCompress(input, positions[0], inlength, output, positions[1]);
+        return positions[1].get() - outoffset;
+    }
+
+    /**
+     * Uncompress integers to a buffer provided by the caller. Unlike
+     * {@link #uncompress(int[])}, this method does not allocate memory.
+     * 
+     * @param compressed array containing the compressed data
+     * @param inoffset position of the compressed data
+     * @param inlength length of the compressed data
+     * @param output where the integers are written, it should have room
+     *            for {@link #decompressedLength(int[], int)} integers
+     * @param outoffset where to start writing
+     * @return the number of integers written to output
+     */
+    public int uncompress(int[] compressed, int inoffset, int inlength,
+            int[] output, int outoffset) {
+        IntWrapper[] positions = POSITIONS.get();
+        final int length = compressed[inoffset];
+        positions[0].set(inoffset + 1);
+        positions[1].set(outoffset);
+        codec.headlessUncompress(compressed, positions[0], inlength - 1,
+                output, positions[1], length);
+        return length;
+    }
+
+    /**
+     * Maximal size of the compressed data.
+     * 
+     * @param inlength number of integers to compress
+     * @return an upper bound on the value returned by
+     *         {@link #compress(int[], int, int, int[], int)}
+     */
+    public int maxCompressedLength(int inlength) {
+        IntWrapper[] positions = POSITIONS.get();
+        positions[0].set(0);
+        // +1 to store the length of the input
+        return codec.maxHeadlessCompressedLength(positions[0], inlength) + 1;
+    }
+
+    /**
+     * Number of integers stored in compressed data, without uncompressing it.
+     * 
+     * @param compressed output of {@link #compress(int[])}
+     * @return the number of integers
+     */
+    public int decompressedLength(int[] compressed) {
+        return decompressedLength(compressed, 0);
+    }
+
+    /**
+     * Number of integers stored in compressed data, without uncompressing it.
+     * 
+     * @param compressed array containing the output of
+     *            {@link #compress(int[], int, int, int[], int)}
+     * @param offset position of the compressed data
+     * @return the number of integers
+     */
+    public int decompressedLength(int[] compressed, int offset) {
+        return compressed[offset];
+    }
+
 }
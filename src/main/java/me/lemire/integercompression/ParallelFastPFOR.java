@@ -0,0 +1,229 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Multi-threaded version of FastPFOR for very large arrays. FastPFOR
+ * compresses the input in independent pages (of 65536 integers by
+ * default): this class compresses and uncompresses the pages in parallel
+ * on a ForkJoinPool. The FastPFOR instances used as working areas are
+ * borrowed from a PooledCODEC holding at most one idle instance per thread
+ * of the ForkJoinPool (plus one), so that the memory they use is bounded
+ * and released with the ParallelFastPFOR instance.
+ *
+ * The compressed format is exactly the one of the underlying codec, so data
+ * compressed with ParallelFastPFOR can be uncompressed with FastPFOR and
+ * conversely. To use the format of VectorFastPFOR (which shares the page
+ * layout), provide a factory:
+ *
+ * <pre>
+ * new ParallelFastPFOR(ForkJoinPool.commonPool(), VectorSupport::newFastPFOR,
+ *         VerticalFastPFOR.DEFAULT_PAGE_SIZE)
+ * </pre>
+ *
+ * As with FastPFOR, only multiples of BLOCK_SIZE integers are compressed: use
+ * it with another codec (e.g., SkippableComposition with VariableByte) for
+ * arbitrary lengths.
+ *
+ * This class is thread-safe.
+ *
+ * @author Daniel Lemire
+ */
+public class ParallelFastPFOR implements IntegerCODEC, SkippableIntegerCODEC {
+    /**
+     * Block size of the underlying FastPFOR codec.
+     */
+    public final static int BLOCK_SIZE = FastPFOR.BLOCK_SIZE;
+
+    private final ForkJoinPool pool;
+    private final int pageSize;
+    private final PooledCODEC codecs;
+    private final int maxPageLength;
+    private final String name;
+
+    /**
+     * Use FastPFOR with default parameters on the common pool.
+     */
+    public ParallelFastPFOR() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Use FastPFOR with default parameters.
+     *
+     * @param pool
+     *            the pool running the tasks
+     */
+    public ParallelFastPFOR(ForkJoinPool pool) {
+        this(pool, FastPFOR::new, FastPFOR.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Use a custom FastPFOR-like codec.
+     *
+     * @param pool
+     *            the pool running the tasks
+     * @param factory
+     *            creates the pooled codecs, which must produce the
+     *            FastPFOR page layout (FastPFOR, VectorFastPFOR or
+     *            VerticalFastPFOR)
+     * @param pagesize
+     *            the page size of the codecs created by the factory
+     */
+    public ParallelFastPFOR(ForkJoinPool pool,
+            Supplier<? extends SkippableIntegerCODEC> factory, int pagesize) {
+        if (pagesize <= 0 || pagesize % BLOCK_SIZE != 0)
+            throw new IllegalArgumentException("The page size must be a positive multiple of "
+                    + BLOCK_SIZE);
+        this.pool = pool;
+        this.pageSize = pagesize;
+        this.codecs = new PooledCODEC(factory, pool.getParallelism() + 1);
+        final SkippableIntegerCODEC codec = codecs.acquire();
+        try {
+            this.maxPageLength = codec.maxHeadlessCompressedLength(
+                    new IntWrapper(0), pagesize);
+            this.name = this.getClass().getSimpleName() + "(" + codec + ")";
+        } finally {
+            codecs.release(codec);
+        }
+    }
+
+    @Override
+    public void headlessCompress(int[] in, IntWrapper inpos, int inlength,
+            int[] out, IntWrapper outpos) {
+        inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+        if (inlength == 0)
+            return;
+        final int pageCount = (inlength + pageSize - 1) / pageSize;
+        if (pageCount == 1) {
+            codecs.headlessCompress(in, inpos, inlength, out, outpos);
+            return;
+        }
+        final int initinpos = inpos.get();
+        // Each page is compressed to its own slot, the slots are then
+        // compacted. If the output array is too small, we go through a
+        // temporary array.
+        final boolean inplace = out.length - outpos.get() >= pageCount * maxPageLength;
+        final int[] slots = inplace ? out : new int[pageCount * maxPageLength];
+        final int slotsStart = inplace ? outpos.get() : 0;
+        final int finalinlength = inlength;
+        final int[] pageLengths = new int[pageCount];
+        run(pageCount, page -> {
+            final int start = page * pageSize;
+            final int thissize = Math.min(pageSize, finalinlength - start);
+            IntWrapper pageoutpos = new IntWrapper(slotsStart + page * maxPageLength);
+            codecs.headlessCompress(in, new IntWrapper(initinpos + start),
+                    thissize, slots, pageoutpos);
+            pageLengths[page] = pageoutpos.get() - slotsStart - page * maxPageLength;
+        });
+        int tmpoutpos = outpos.get();
+        for (int page = 0; page < pageCount; ++page) {
+            System.arraycopy(slots, slotsStart + page * maxPageLength, out,
+                    tmpoutpos, pageLengths[page]);
+            tmpoutpos += pageLengths[page];
+        }
+        inpos.add(inlength);
+        outpos.set(tmpoutpos);
+    }
+
+    @Override
+    public void headlessUncompress(int[] in, IntWrapper inpos, int inlength,
+            int[] out, IntWrapper outpos, int num) {
+        num = Util.greatestMultiple(num, BLOCK_SIZE);
+        if (num == 0)
+            return;
+        final int pageCount = (num + pageSize - 1) / pageSize;
+        if (pageCount == 1) {
+            codecs.headlessUncompress(in, inpos, inlength, out, outpos, num);
+            return;
+        }
+        // Locate the pages using their headers.
+        final int[] pageStarts = new int[pageCount + 1];
+        pageStarts[0] = inpos.get();
+        final FastPFORPage header = new FastPFORPage();
+        for (int page = 0; page < pageCount; ++page)
+            pageStarts[page + 1] = header.parse(in, pageStarts[page]);
+        final int initoutpos = outpos.get();
+        final int finalnum = num;
+        run(pageCount, page -> {
+            final int start = page * pageSize;
+            final int thissize = Math.min(pageSize, finalnum - start);
+            codecs.headlessUncompress(in, new IntWrapper(pageStarts[page]),
+                    pageStarts[page + 1] - pageStarts[page], out,
+                    new IntWrapper(initoutpos + start), thissize);
+        });
+        inpos.set(pageStarts[pageCount]);
+        outpos.add(num);
+    }
+
+    private void run(int pageCount, IntConsumer action) {
+        pool.invoke(new PageRange(0, pageCount, action));
+    }
+
+    private static final class PageRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from, to;
+        // the tasks are never serialized: they only live during invoke
+        private final transient IntConsumer action;
+
+        PageRange(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                action.accept(from);
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new PageRange(from, middle, action),
+                    new PageRange(middle, to, action));
+        }
+    }
+
+    @Override
+    public int maxHeadlessCompressedLength(IntWrapper compressedPositions, int inlength) {
+        inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+        final int pageCount = (inlength + pageSize - 1) / pageSize;
+        compressedPositions.add(inlength);
+        return pageCount * maxPageLength;
+    }
+
+    @Override
+    public void compress(int[] in, IntWrapper inpos, int inlength, int[] out,
+            IntWrapper outpos) {
+        inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+        if (inlength == 0)
+            return;
+        out[outpos.get()] = inlength;
+        outpos.increment();
+        headlessCompress(in, inpos, inlength, out, outpos);
+    }
+
+    @Override
+    public void uncompress(int[] in, IntWrapper inpos, int inlength, int[] out,
+            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        final int outlength = in[inpos.get()];
+        inpos.increment();
+        headlessUncompress(in, inpos, inlength, out, outpos, outlength);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe facade over codecs that are not thread-safe because they hold
+ * a working area (e.g., FastPFOR, FastPFOR128, NewPFD, OptPFD).
+ *
+ * Each call borrows a codec instance from a small lock-free pool and returns
+ * it afterwards, so that a single PooledCODEC can be shared by many threads.
+ * Once the pool is warm, no allocation takes place. A new instance is only
+ * created when all pooled instances are in use, and it is dropped if the pool
+ * is full when it is returned. Since instances are not tied to threads (as
+ * they would be with a ThreadLocal), this works well with a large number
+ * of short-lived or virtual threads.
+ *
+ * <pre>
+ * SkippableIntegerCODEC codec = new PooledCODEC(
+ *         () -&gt; new SkippableComposition(new FastPFOR(), new VariableByte()));
+ * </pre>
+ *
+ * Use PooledIntegerCODEC for codecs that also implement IntegerCODEC.
+ *
+ * @author Daniel Lemire
+ */
+public class PooledCODEC implements SkippableIntegerCODEC {
+    private final Supplier<? extends SkippableIntegerCODEC> factory;
+    private final AtomicReferenceArray<SkippableIntegerCODEC> pool;
+    private final String name;
+
+    /**
+     * Create a pool holding up to twice as many codecs as there are
+     * processors.
+     *
+     * @param factory
+     *            creates new codec instances
+     */
+    public PooledCODEC(Supplier<? extends SkippableIntegerCODEC> factory) {
+        this(factory, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a pool.
+     *
+     * @param factory
+     *            creates new codec instances
+     * @param capacity
+     *            maximal number of idle codecs kept in the pool
+     */
+    public PooledCODEC(Supplier<? extends SkippableIntegerCODEC> factory,
+            int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        this.factory = factory;
+        this.pool = new AtomicReferenceArray<>(capacity);
+        // the first instance names the pool and warms it up
+        SkippableIntegerCODEC codec = factory.get();
+        this.name = this.getClass().getSimpleName() + "(" + codec + ")";
+        pool.set(0, codec);
+    }
+
+    private int start() {
+        // spread the threads over the pool to limit contention
+        return (int) (Thread.currentThread().threadId() % pool.length());
+    }
+
+    SkippableIntegerCODEC acquire() {
+        final int start = start();
+        for (int k = 0; k < pool.length(); ++k) {
+            int i = start + k;
+            if (i >= pool.length())
+                i -= pool.length();
+            if (pool.get(i) != null) {
+                SkippableIntegerCODEC codec = pool.getAndSet(i, null);
+                if (codec != null)
+                    return codec;
+            }
+        }
+        return factory.get();
+    }
+
+    void release(SkippableIntegerCODEC codec) {
+        final int start = start();
+        for (int k = 0; k < pool.length(); ++k) {
+            int i = start + k;
+            if (i >= pool.length())
+                i -= pool.length();
+            if (pool.get(i) == null && pool.compareAndSet(i, null, codec))
+                return;
+        }
+    }
+
+    @Override
+    public void headlessCompress(int[] in, IntWrapper inpos, int inlength,
+            int[] out, IntWrapper outpos) {
+        SkippableIntegerCODEC codec = acquire();
+        try {
+            codec.headlessCompress(in, inpos, inlength, out, outpos);
+        } finally {
+            release(codec);
+        }
+    }
+
+    @Override
+    public void headlessUncompress(int[] in, IntWrapper inpos, int inlength,
+            int[] out, IntWrapper outpos, int num) {
+        SkippableIntegerCODEC codec = acquire();
+        try {
+            codec.headlessUncompress(in, inpos, inlength, out, outpos, num);
+        } finally {
+            release(codec);
+        }
+    }
+
+    @Override
+    public int maxHeadlessCompressedLength(IntWrapper compressedPositions, int inlength) {
+        SkippableIntegerCODEC codec = acquire();
+        try {
+            return codec.maxHeadlessCompressedLength(compressedPositions, inlength);
+        } finally {
+            release(codec);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
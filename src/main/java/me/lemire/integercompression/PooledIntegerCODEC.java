@@ -0,0 +1,74 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe facade, like PooledCODEC, over codecs implementing both
+ * IntegerCODEC and SkippableIntegerCODEC.
+ *
+ * <pre>
+ * PooledIntegerCODEC codec = new PooledIntegerCODEC(FastPFOR::new);
+ * </pre>
+ *
+ * @author Daniel Lemire
+ */
+public class PooledIntegerCODEC extends PooledCODEC implements IntegerCODEC {
+
+    /**
+     * Create a pool holding up to twice as many codecs as there are
+     * processors.
+     *
+     * @param <C>
+     *            type of the pooled codecs
+     * @param factory
+     *            creates new codec instances
+     */
+    public <C extends IntegerCODEC & SkippableIntegerCODEC> PooledIntegerCODEC(
+            Supplier<C> factory) {
+        super(factory);
+    }
+
+    /**
+     * Create a pool.
+     *
+     * @param <C>
+     *            type of the pooled codecs
+     * @param factory
+     *            creates new codec instances
+     * @param capacity
+     *            maximal number of idle codecs kept in the pool
+     */
+    public <C extends IntegerCODEC & SkippableIntegerCODEC> PooledIntegerCODEC(
+            Supplier<C> factory, int capacity) {
+        super(factory, capacity);
+    }
+
+    @Override
+    public void compress(int[] in, IntWrapper inpos, int inlength, int[] out,
+            IntWrapper outpos) {
+        SkippableIntegerCODEC codec = acquire();
+        try {
+            // the constructors only accept factories of IntegerCODEC
+            ((IntegerCODEC) codec).compress(in, inpos, inlength, out, outpos);
+        } finally {
+            release(codec);
+        }
+    }
+
+    @Override
+    public void uncompress(int[] in, IntWrapper inpos, int inlength, int[] out,
+            IntWrapper outpos) {
+        SkippableIntegerCODEC codec = acquire();
+        try {
+            ((IntegerCODEC) codec).uncompress(in, inpos, inlength, out, outpos);
+        } finally {
+            release(codec);
+        }
+    }
+}
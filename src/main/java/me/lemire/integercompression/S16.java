@@ -138,13 +138,12 @@ public final class S16 {
      * @return the number of processed integers
      */
     public static final int decompressblock(int[] out, int outOffset, int[] in, int inOffset, int n) {
-        int numIdx, j = 0, bits = 0;
-        numIdx = in[inOffset] >>> S16_BITSSIZE;
-        int num = S16_NUM[numIdx] < n ? S16_NUM[numIdx] : n;
-        for (j = 0, bits = 0; j < num; j++) {
-            out[outOffset + j] = (in[inOffset] >>> bits) & (0xffffffff >>> (32 - S16_BITS[numIdx][j]));
-            bits += S16_BITS[numIdx][j];
-        }
+        final int val = in[inOffset];
+        final int numIdx = val >>> S16_BITSSIZE;
+        final int num = S16_NUM[numIdx] < n ? S16_NUM[numIdx] : n;
+        final int base = numIdx * S16_MAXNUM;
+        for (int j = 0; j < num; j++)
+            out[outOffset + j] = (val >>> S16_SHIFTS[base + j]) & S16_MASKS[base + j];
         return num;
     }
 
@@ -176,6 +175,28 @@ public final class S16 {
 
     }
 
+    /**
+     * Uncompress n integers.
+     *
+     * @param in
+     *            input array (in compressed form)
+     * @param tmpinpos
+     *            starting location in the compressed input array
+     * @param out
+     *            output array (in decompressed form)
+     * @param currentPos
+     *            current position in the output array
+     * @param n
+     *            number of integers to uncompress
+     * @return the position after the last word read in the input array
+     */
+    public static int uncompressNumbers(final int[] in, int tmpinpos, final int[] out, int currentPos, int n) {
+        final int finalout = currentPos + n;
+        while (currentPos < finalout)
+            currentPos += decompressblock(out, currentPos, in, tmpinpos++, finalout - currentPos);
+        return tmpinpos;
+    }
+
     private static int[][] shiftme(int[][] x) {
         int[][] answer = new int[x.length][];
         for (int k = 0; k < x.length; ++k) {
@@ -201,5 +222,46 @@ public final class S16 {
             { 4, 4, 4, 4, 4, 4, 4 }, { 5, 5, 5, 5, 4, 4 }, { 4, 4, 5, 5, 5, 5 }, { 6, 6, 6, 5, 5 }, { 5, 5, 6, 6, 6 },
             { 7, 7, 7, 7 }, { 10, 9, 9, }, { 14, 14 }, { 28 } };
     private static final int[][] SHIFTED_S16_BITS = shiftme(S16_BITS);
+    /**
+     * The largest number of integers in a word.
+     */
+    public static final int S16_MAXNUM = 28;
+    // the shift and the mask of the integer j in a word with the selector
+    // numIdx, at index numIdx * S16_MAXNUM + j: the integers of a word are
+    // extracted independently, without a 2-dimensional table
+    private static final int[] S16_SHIFTS = new int[S16_NUMSIZE * S16_MAXNUM];
+    private static final int[] S16_MASKS = new int[S16_NUMSIZE * S16_MAXNUM];
+    static {
+        for (int numIdx = 0; numIdx < S16_NUMSIZE; ++numIdx) {
+            for (int j = 0, bits = 0; j < S16_BITS[numIdx].length; bits += S16_BITS[numIdx][j++]) {
+                S16_SHIFTS[numIdx * S16_MAXNUM + j] = bits;
+                S16_MASKS[numIdx * S16_MAXNUM + j] = 0xffffffff >>> (32 - S16_BITS[numIdx][j]);
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the number of integers in a word, indexed by the
+     *         selector (the 4 upper bits)
+     */
+    public static int[] numbers() {
+        return S16_NUM.clone();
+    }
+
+    /**
+     * @return a copy of the shift of the integer j in a word with the selector
+     *         numIdx, at index numIdx * S16_MAXNUM + j (see VectorSimple16)
+     */
+    public static int[] shifts() {
+        return S16_SHIFTS.clone();
+    }
+
+    /**
+     * @return a copy of the mask of the integer j in a word with the selector
+     *         numIdx, at the same index as in {@link #shifts()}
+     */
+    public static int[] masks() {
+        return S16_MASKS.clone();
+    }
 
 }
@@ -0,0 +1,132 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+
+/**
+ * Predicate evaluated by BinaryPackingScan. Besides testing single values, a
+ * predicate tells whether it may match some, or all, of the values in a range,
+ * so that whole blocks can be skipped (or accepted) from their bit width.
+ * Values are compared as signed integers.
+ *
+ * @author Daniel Lemire
+ */
+public interface ScanPredicate {
+        /**
+         * @param value
+         *                value to test
+         * @return whether the value matches
+         */
+        boolean test(int value);
+
+        /**
+         * @param min
+         *                smallest value of the range
+         * @param max
+         *                largest value of the range
+         * @return false if no value between min and max (inclusively) matches
+         */
+        boolean mayMatch(int min, int max);
+
+        /**
+         * @param min
+         *                smallest value of the range
+         * @param max
+         *                largest value of the range
+         * @return true if all values between min and max (inclusively) match
+         */
+        boolean matchesAll(int min, int max);
+
+        /**
+         * @param value
+         *                value to look for
+         * @return a predicate matching value
+         */
+        static ScanPredicate equalTo(int value) {
+                return between(value, value);
+        }
+
+        /**
+         * @param bound
+         *                exclusive upper bound
+         * @return a predicate matching the values smaller than bound
+         */
+        static ScanPredicate lessThan(int bound) {
+                if (bound == Integer.MIN_VALUE)
+                        return in();
+                return between(Integer.MIN_VALUE, bound - 1);
+        }
+
+        /**
+         * @param bound
+         *                exclusive lower bound
+         * @return a predicate matching the values larger than bound
+         */
+        static ScanPredicate greaterThan(int bound) {
+                if (bound == Integer.MAX_VALUE)
+                        return in();
+                return between(bound + 1, Integer.MAX_VALUE);
+        }
+
+        /**
+         * @param low
+         *                inclusive lower bound
+         * @param high
+         *                inclusive upper bound
+         * @return a predicate matching the values between low and high
+         */
+        static ScanPredicate between(final int low, final int high) {
+                return new ScanPredicate() {
+                        @Override
+                        public boolean test(int value) {
+                                return value >= low && value <= high;
+                        }
+
+                        @Override
+                        public boolean mayMatch(int min, int max) {
+                                return low <= high && max >= low && min <= high;
+                        }
+
+                        @Override
+                        public boolean matchesAll(int min, int max) {
+                                return min >= low && max <= high;
+                        }
+                };
+        }
+
+        /**
+         * @param values
+         *                values to look for
+         * @return a predicate matching the given values
+         */
+        static ScanPredicate in(int... values) {
+                final int[] set = values.clone();
+                Arrays.sort(set);
+                return new ScanPredicate() {
+                        @Override
+                        public boolean test(int value) {
+                                return Arrays.binarySearch(set, value) >= 0;
+                        }
+
+                        @Override
+                        public boolean mayMatch(int min, int max) {
+                                int i = Arrays.binarySearch(set, min);
+                                if (i >= 0)
+                                        return true;
+                                // first value larger than min
+                                i = -i - 1;
+                                return i < set.length && set[i] <= max;
+                        }
+
+                        @Override
+                        public boolean matchesAll(int min, int max) {
+                                return min == max && test(min);
+                        }
+                };
+        }
+}
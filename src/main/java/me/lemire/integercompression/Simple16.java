@@ -7,6 +7,10 @@ package me.lemire.integercompression;
  * Note that this does not use differential coding: if you are working on sorted
  * lists, you must compute the deltas separately.
  * 
+ * The integers are decoded with tables of shifts and masks indexed by the
+ * selector (see S16). A vectorized decoder is available, see
+ * VectorSupport#newSimple16.
+ * 
  * <p>
  * Adapted by D. Lemire from the Apache Lucene project.
  * </p>
@@ -79,28 +83,13 @@ public final class Simple16 implements IntegerCODEC, SkippableIntegerCODEC {
      * @return the number of processed integers
      */
     public static final int decompressblock(int[] out, int outOffset, int[] in, int inOffset, int n) {
-        int numIdx, j = 0, bits = 0;
-        numIdx = in[inOffset] >>> S16_BITSSIZE;
-        int num = S16_NUM[numIdx] < n ? S16_NUM[numIdx] : n;
-        for (j = 0, bits = 0; j < num; j++) {
-            out[outOffset + j] = (in[inOffset] >>> bits) & (0xffffffff >>> (32 - S16_BITS[numIdx][j]));
-            bits += S16_BITS[numIdx][j];
-        }
-        return num;
+        return S16.decompressblock(out, outOffset, in, inOffset, n);
     }
 
     @Override
     public void headlessUncompress(int[] in, IntWrapper inpos, int inlength, int[] out, IntWrapper outpos, int num) {
-        int i_inpos = inpos.get();
-        int i_outpos = outpos.get();
-        while (num > 0) {
-            final int howmany = decompressblock(out, i_outpos, in, i_inpos, num);
-            num -= howmany;
-            i_outpos += howmany;
-            i_inpos++;
-        }
-        inpos.set(i_inpos);
-        outpos.set(i_outpos);
+        inpos.set(S16.uncompressNumbers(in, inpos.get(), out, outpos.get(), num));
+        outpos.add(num);
     }
 
     @Override
@@ -129,14 +118,7 @@ public final class Simple16 implements IntegerCODEC, SkippableIntegerCODEC {
      *            number of integers we want to decode
      */
     public static void uncompress(int[] in, int tmpinpos, int inlength, int[] out, int currentPos, int outlength) {
-        final int finalpos = tmpinpos + inlength;
-        while (tmpinpos < finalpos) {
-            final int howmany = decompressblock(out, currentPos, in, tmpinpos, outlength);
-            outlength -= howmany;
-            currentPos += howmany;
-            tmpinpos += 1;
-        }
-
+        S16.uncompress(in, tmpinpos, inlength, out, currentPos, outlength);
     }
 
     private static int[][] shiftme(int[][] x) {
@@ -0,0 +1,131 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+
+/**
+ * This is an implementation of the Simple-8b scheme for 32-bit integers. Each
+ * 64-bit word holds a 4-bit selector (in the most significant bits) and 60
+ * bits of data: 60 integers of 1 bit, 30 integers of 2 bits, ..., or 1
+ * integer of 60 bits. The selectors 0 and 1 are runs of 240 and 120 zeros.
+ * Each word is written as two integers (the least significant bits first).
+ * Unlike Simple9, all integers can be compressed (they are treated as
+ * unsigned), and sparse data (mostly zeros) uses much less space.
+ *
+ * See me.lemire.longcompression.LongSimple8b for 64-bit integers.
+ *
+ * Note that this does not use differential coding: if you are working on sorted
+ * lists, you must compute the deltas separately.
+ *
+ * <p>
+ * For details, please see: Vo Ngoc Anh, Alistair Moffat, Index compression
+ * using 64-bit words, Software: Practice and Experience 40 (2), 2010.
+ * </p>
+ *
+ * @author Daniel Lemire
+ */
+public final class Simple8b implements IntegerCODEC, SkippableIntegerCODEC {
+    private static final int SELECTOR_SHIFT = 60;
+    // number of integers and bit width for each selector
+    private static final int[] NUM = { 240, 120, 60, 30, 20, 15, 12, 10, 8, 7, 6, 5, 4, 3, 2, 1 };
+    private static final int[] BITS = { 0, 0, 1, 2, 3, 4, 5, 6, 7, 8, 10, 12, 15, 20, 30, 60 };
+
+    @Override
+    public void compress(int[] in, IntWrapper inpos, int inlength, int[] out,
+            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        out[outpos.get()] = inlength;
+        outpos.increment();
+        headlessCompress(in, inpos, inlength, out, outpos);
+    }
+
+    @Override
+    public void uncompress(int[] in, IntWrapper inpos, int inlength, int[] out,
+            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        final int outlength = in[inpos.get()];
+        inpos.increment();
+        headlessUncompress(in, inpos, inlength, out, outpos, outlength);
+    }
+
+    @Override
+    public void headlessCompress(int[] in, IntWrapper inpos, int inlength,
+            int[] out, IntWrapper outpos) {
+        int tmpoutpos = outpos.get();
+        int currentPos = inpos.get();
+        final int finalin = currentPos + inlength;
+        while (currentPos < finalin) {
+            final int selector = selector(in, currentPos, finalin);
+            final int howmany = Math.min(NUM[selector], finalin - currentPos);
+            final int b = BITS[selector];
+            long word = (long) selector << SELECTOR_SHIFT;
+            if (b > 0)
+                for (int i = 0; i < howmany; ++i)
+                    word |= (in[currentPos + i] & 0xFFFFFFFFL) << (b * i);
+            out[tmpoutpos++] = (int) word;
+            out[tmpoutpos++] = (int) (word >>> 32);
+            currentPos += howmany;
+        }
+        inpos.set(currentPos);
+        outpos.set(tmpoutpos);
+    }
+
+    // the first selector whose integers can hold the next integers (the
+    // last word may hold fewer integers)
+    private static int selector(int[] in, int currentPos, int finalin) {
+        mainloop: for (int selector = 0; selector < 15; ++selector) {
+            final int howmany = Math.min(NUM[selector], finalin - currentPos);
+            final long max = (1L << BITS[selector]) - 1;
+            for (int i = 0; i < howmany; ++i)
+                if ((in[currentPos + i] & 0xFFFFFFFFL) > max)
+                    continue mainloop;
+            return selector;
+        }
+        // a single integer always fits in 60 bits
+        return 15;
+    }
+
+    @Override
+    public void headlessUncompress(int[] in, IntWrapper inpos, int inlength,
+            int[] out, IntWrapper outpos, int num) {
+        int tmpinpos = inpos.get();
+        int currentPos = outpos.get();
+        final int finalout = currentPos + num;
+        while (currentPos < finalout) {
+            final long word = (in[tmpinpos] & 0xFFFFFFFFL) | ((long) in[tmpinpos + 1] << 32);
+            tmpinpos += 2;
+            final int selector = (int) (word >>> SELECTOR_SHIFT);
+            final int howmany = Math.min(NUM[selector], finalout - currentPos);
+            final int b = BITS[selector];
+            if (b == 0) {
+                Arrays.fill(out, currentPos, currentPos + howmany, 0);
+            } else {
+                final long mask = (1L << b) - 1;
+                for (int i = 0, shift = 0; i < howmany; ++i, shift += b)
+                    out[currentPos + i] = (int) ((word >>> shift) & mask);
+            }
+            currentPos += howmany;
+        }
+        inpos.set(tmpinpos);
+        outpos.set(currentPos);
+    }
+
+    @Override
+    public int maxHeadlessCompressedLength(IntWrapper compressedPositions, int inlength) {
+        compressedPositions.add(inlength);
+        return 2 * inlength;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName();
+    }
+}
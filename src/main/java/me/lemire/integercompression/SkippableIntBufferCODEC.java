@@ -0,0 +1,78 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.nio.IntBuffer;
+
+/**
+ * Variation on the SkippableIntegerCODEC interface where the input and the
+ * output are IntBuffer instances instead of arrays. This makes it possible to
+ * decode directly from (and to) off-heap memory such as a memory-mapped file
+ * without first copying the data to an int array. BinaryPacking and
+ * VariableByte work directly on the buffers; FastPFOR copies each page to the
+ * heap and back, so that its overloads only exist for convenience.
+ *
+ * The compressed format is the same as the one produced by the array-based
+ * methods, so that data compressed with one API can be uncompressed with the
+ * other.
+ *
+ * Positions are absolute indexes within the buffers: the position, limit and
+ * mark of the buffers are neither used nor modified. To work with a
+ * ByteBuffer, use a view such as
+ * {@code bytebuffer.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer()}: any byte
+ * order can be used as long as the same order is used for writing and for
+ * reading.
+ *
+ * @author Daniel Lemire
+ *
+ */
+public interface SkippableIntBufferCODEC extends SkippableIntegerCODEC {
+    /**
+     * Compress data from a buffer to another buffer.
+     *
+     * Both inpos and outpos are modified to represent how much data was read
+     * and written to. If 12 ints (inlength = 12) are compressed to 3 ints, then
+     * inpos will be incremented by 12 while outpos will be incremented by 3. We
+     * use IntWrapper to pass the values by reference.
+     *
+     * @param in
+     *            input buffer
+     * @param inpos
+     *            where to start reading in the buffer
+     * @param inlength
+     *            how many integers to compress
+     * @param out
+     *            output buffer
+     * @param outpos
+     *            where to write in the output buffer
+     */
+    public void headlessCompress(IntBuffer in, IntWrapper inpos, int inlength, IntBuffer out,
+            IntWrapper outpos);
+
+    /**
+     * Uncompress data from a buffer to another buffer.
+     *
+     * Both inpos and outpos parameters are modified to indicate new positions
+     * after read/write.
+     *
+     * @param in
+     *            buffer containing data in compressed form
+     * @param inpos
+     *            where to start reading in the buffer
+     * @param inlength
+     *            length of the compressed data (ignored by some schemes)
+     * @param out
+     *            buffer where to write the uncompressed output
+     * @param outpos
+     *            where to start writing the uncompressed output in out
+     * @param num
+     *            number of integers we want to decode. May be less than the actual number of compressed integers
+     */
+    public void headlessUncompress(IntBuffer in, IntWrapper inpos, int inlength, IntBuffer out,
+            IntWrapper outpos, int num);
+}
@@ -0,0 +1,70 @@
+/**
+ * This is code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.nio.IntBuffer;
+
+/**
+ * Helper class to compose schemes supporting IntBuffer input and output.
+ * The compressed format is the same as with SkippableComposition.
+ * 
+ * @author Daniel Lemire
+ */
+public class SkippableIntBufferComposition extends SkippableComposition
+        implements SkippableIntBufferCODEC {
+    SkippableIntBufferCODEC B1, B2;
+
+    /**
+     * Compose a scheme from a first one (f1) and a second one (f2). The first
+     * one is called first and then the second one tries to compress whatever
+     * remains from the first run.
+     * 
+     * By convention, the first scheme should be such that if, during decoding,
+     * a 32-bit zero is first encountered, then there is no output.
+     * 
+     * @param f1
+     *            first codec
+     * @param f2
+     *            second codec
+     */
+    public SkippableIntBufferComposition(SkippableIntBufferCODEC f1,
+            SkippableIntBufferCODEC f2) {
+        super(f1, f2);
+        B1 = f1;
+        B2 = f2;
+    }
+
+    @Override
+    public void headlessCompress(IntBuffer in, IntWrapper inpos, int inlength, IntBuffer out,
+            IntWrapper outpos) {
+        int init = inpos.get();
+        int outposInit = outpos.get();
+        B1.headlessCompress(in, inpos, inlength, out, outpos);
+        if (outpos.get() == outposInit) {
+            out.put(outposInit, 0);
+            outpos.increment();
+        }
+        inlength -= inpos.get() - init;
+        B2.headlessCompress(in, inpos, inlength, out, outpos);
+    }
+
+    @Override
+    public void headlessUncompress(IntBuffer in, IntWrapper inpos, int inlength, IntBuffer out,
+            IntWrapper outpos, int num) {
+        int init = inpos.get();
+        int outposInit = outpos.get();
+
+        B1.headlessUncompress(in, inpos, inlength, out, outpos, num);
+        if (inpos.get() == init) {
+              inpos.increment();
+        }
+        inlength -= inpos.get() - init;
+        num -= outpos.get() - outposInit;
+        B2.headlessUncompress(in, inpos, inlength, out, outpos, num);
+    }
+
+}
@@ -0,0 +1,397 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Implementation of Stream VByte. Each integer is stored with 1, 2, 3 or 4
+ * bytes (little endian), and its length is given by 2 bits of a control byte.
+ * The control bytes (one per group of 4 integers) are stored first, followed
+ * by the data bytes: unlike VariableByte, the decoder knows the length of 4
+ * integers at once and has no branch per byte. It can therefore be vectorized,
+ * see VectorSupport#newStreamVByte.
+ *
+ * The headless format is made of (num + 3) / 4 control bytes followed by the
+ * data bytes, packed 4 per integer in little-endian order. With
+ * IntegerCODEC#compress, it is preceded by the number of integers; with
+ * ByteIntegerCODEC#compress, it is preceded by the number of integers on 4
+ * bytes (little endian).
+ *
+ * Like VariableByte, it can be used for the integers that remain after a
+ * block codec:
+ *
+ * <pre>
+ * SkippableIntegerCODEC codec = new SkippableComposition(new BinaryPacking(),
+ *         new StreamVByte());
+ * </pre>
+ *
+ * Note that this does not use differential coding: if you are working on sorted
+ * lists, you must compute the deltas separately.
+ *
+ * <p>
+ * For details, please see: Daniel Lemire, Nathan Kurz, Christoph Rupp, Stream
+ * VByte: Faster Byte-Oriented Integer Compression, Information Processing
+ * Letters 130, 2018.
+ * </p>
+ *
+ * @author Daniel Lemire
+ */
+public class StreamVByte implements IntegerCODEC, SkippableIntegerCODEC, ByteIntegerCODEC {
+    private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class,
+            ByteOrder.LITTLE_ENDIAN);
+    // indexed by the 2-bit code (length - 1)
+    private static final int[] MASKS = { 0xFF, 0xFFFF, 0xFFFFFF, 0xFFFFFFFF };
+
+    /**
+     * Number of data bytes of the 4 integers described by a control byte.
+     */
+    protected static final int[] LENGTHS = new int[256];
+    static {
+        for (int c = 0; c < 256; ++c)
+            LENGTHS[c] = (c & 3) + ((c >>> 2) & 3) + ((c >>> 4) & 3) + (c >>> 6) + 4;
+    }
+
+    @Override
+    public void compress(int[] in, IntWrapper inpos, int inlength, int[] out,
+            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        out[outpos.get()] = inlength;
+        outpos.increment();
+        headlessCompress(in, inpos, inlength, out, outpos);
+    }
+
+    @Override
+    public void uncompress(int[] in, IntWrapper inpos, int inlength, int[] out,
+            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        final int outlength = in[inpos.get()];
+        inpos.increment();
+        headlessUncompress(in, inpos, inlength, out, outpos, outlength);
+    }
+
+    @Override
+    public void headlessCompress(int[] in, IntWrapper inpos, int inlength, int[] out,
+            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        outpos.set(encode(in, inpos.get(), inlength, out, outpos.get(), 0, false));
+        inpos.add(inlength);
+    }
+
+    @Override
+    public void headlessUncompress(int[] in, IntWrapper inpos, int inlength, int[] out,
+            IntWrapper outpos, int num) {
+        if (num == 0)
+            return;
+        inpos.set(decode(in, inpos.get(), out, outpos.get(), num, 0, false));
+        outpos.add(num);
+    }
+
+    @Override
+    public void compress(int[] in, IntWrapper inpos, int inlength, byte[] out,
+            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        outpos.set(encode(in, inpos.get(), inlength, out, outpos.get(), 0, false));
+        inpos.add(inlength);
+    }
+
+    @Override
+    public void uncompress(byte[] in, IntWrapper inpos, int inlength, int[] out,
+            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        final int num = byteLength(in, inpos.get());
+        final int controlpos = inpos.get() + 4;
+        final int end = decode(in, controlpos, controlpos + ((num + 3) >>> 2), out,
+                outpos.get(), num);
+        outpos.add(num);
+        inpos.set(end);
+    }
+
+    /**
+     * Decode integers from control and data bytes.
+     *
+     * @param in
+     *            compressed data
+     * @param controlpos
+     *            position of the first control byte
+     * @param datapos
+     *            position of the first data byte
+     * @param out
+     *            where to write the integers
+     * @param outpos
+     *            position of the first integer in out
+     * @param num
+     *            number of integers to decode
+     * @return the position after the last data byte
+     */
+    protected int decode(byte[] in, int controlpos, int datapos, int[] out,
+            int outpos, int num) {
+        return decode(in, controlpos, datapos, out, outpos, num, 0, false);
+    }
+
+    /**
+     * Write the headless format (to integers) of the given integers or, with
+     * differential coding, of their successive differences. This is shared
+     * with IntegratedStreamVByte.
+     *
+     * @param in
+     *            integers to compress
+     * @param inpos
+     *            position of the first integer
+     * @param inlength
+     *            number of integers (at least 1)
+     * @param out
+     *            where to write the compressed data
+     * @param outpos
+     *            where to start writing
+     * @param init
+     *            value preceding the first integer (with differential coding)
+     * @param differential
+     *            whether the differences are stored
+     * @return the position following the compressed data
+     */
+    public static int encode(int[] in, int inpos, int inlength, int[] out,
+            int outpos, int init, boolean differential) {
+        final int controlLength = (inlength + 3) >>> 2;
+        // the control bytes first, as whole integers: the data bytes are
+        // then combined with the last one
+        int control = 0;
+        int previous = init;
+        for (int k = 0; k < inlength; ++k) {
+            final int val = in[inpos + k];
+            control |= code(differential ? val - previous : val) << ((k & 15) << 1);
+            previous = val;
+            if ((k & 15) == 15) {
+                out[outpos + (k >>> 4)] = control;
+                control = 0;
+            }
+        }
+        if ((inlength & 15) != 0)
+            out[outpos + (inlength >>> 4)] = control;
+        int p = controlLength;
+        previous = init;
+        for (int k = inpos; k < inpos + inlength; ++k) {
+            final int val = differential ? in[k] - previous : in[k];
+            previous = in[k];
+            final int length = code(val) + 1;
+            final int w = outpos + (p >>> 2);
+            final int shift = (p & 3) << 3;
+            if (shift == 0) {
+                out[w] = val;
+            } else {
+                out[w] |= val << shift;
+                if (shift + (length << 3) > 32)
+                    out[w + 1] = val >>> (32 - shift);
+            }
+            p += length;
+        }
+        return outpos + ((p + 3) >>> 2);
+    }
+
+    /**
+     * Read the headless format (from integers), see
+     * {@link #encode(int[], int, int, int[], int, int, boolean)}.
+     *
+     * @param in
+     *            compressed data
+     * @param inpos
+     *            position of the compressed data
+     * @param out
+     *            where to write the integers
+     * @param outpos
+     *            where to start writing
+     * @param num
+     *            number of integers to decode (at least 1)
+     * @param init
+     *            value preceding the first integer (with differential coding)
+     * @param differential
+     *            whether the prefix sum is computed
+     * @return the position following the compressed data
+     */
+    public static int decode(int[] in, int inpos, int[] out, int outpos, int num,
+            int init, boolean differential) {
+        int value = init;
+        int p = (num + 3) >>> 2;
+        for (int k = 0; k < num; k += 4) {
+            final int control = (in[inpos + (k >>> 4)] >>> ((k & 12) << 1)) & 0xFF;
+            final int count = Math.min(4, num - k);
+            for (int i = 0; i < count; ++i) {
+                final int code = (control >>> (i << 1)) & 3;
+                final int w = inpos + (p >>> 2);
+                long window = in[w] & 0xFFFFFFFFL;
+                if (w + 1 < in.length)
+                    window |= (long) in[w + 1] << 32;
+                final int val = (int) (window >>> ((p & 3) << 3)) & MASKS[code];
+                value = differential ? value + val : val;
+                out[outpos++] = value;
+                p += code + 1;
+            }
+        }
+        return inpos + ((p + 3) >>> 2);
+    }
+
+    /**
+     * Write the byte format (the number of integers on 4 bytes, the control
+     * bytes and the data bytes) of the given integers or, with differential
+     * coding, of their successive differences.
+     *
+     * @param in
+     *            integers to compress
+     * @param inpos
+     *            position of the first integer
+     * @param inlength
+     *            number of integers (at least 1)
+     * @param out
+     *            where to write the compressed data
+     * @param outpos
+     *            where to start writing
+     * @param init
+     *            value preceding the first integer (with differential coding)
+     * @param differential
+     *            whether the differences are stored
+     * @return the position following the compressed data
+     */
+    public static int encode(int[] in, int inpos, int inlength, byte[] out,
+            int outpos, int init, boolean differential) {
+        INT_LE.set(out, outpos, inlength);
+        int controlpos = outpos + 4;
+        int p = controlpos + ((inlength + 3) >>> 2);
+        int previous = init;
+        for (int k = 0; k < inlength; k += 4) {
+            final int count = Math.min(4, inlength - k);
+            int control = 0;
+            for (int i = 0; i < count; ++i) {
+                final int val = differential ? in[inpos + k + i] - previous
+                        : in[inpos + k + i];
+                previous = in[inpos + k + i];
+                final int code = code(val);
+                control |= code << (i << 1);
+                out[p++] = (byte) val;
+                if (code > 0)
+                    out[p++] = (byte) (val >>> 8);
+                if (code > 1)
+                    out[p++] = (byte) (val >>> 16);
+                if (code > 2)
+                    out[p++] = (byte) (val >>> 24);
+            }
+            out[controlpos++] = (byte) control;
+        }
+        return p;
+    }
+
+    /**
+     * Read the number of integers at the start of the byte format, see
+     * {@link #encode(int[], int, int, byte[], int, int, boolean)}.
+     *
+     * @param in
+     *            compressed data
+     * @param inpos
+     *            position of the compressed data
+     * @return the number of integers
+     */
+    public static int byteLength(byte[] in, int inpos) {
+        return (int) INT_LE.get(in, inpos);
+    }
+
+    /**
+     * Decode integers from control and data bytes, without a vectorized
+     * decoder.
+     *
+     * @param in
+     *            compressed data
+     * @param controlpos
+     *            position of the first control byte
+     * @param datapos
+     *            position of the first data byte
+     * @param out
+     *            where to write the integers
+     * @param outpos
+     *            position of the first integer in out
+     * @param num
+     *            number of integers to decode
+     * @param init
+     *            value preceding the first integer (with differential coding)
+     * @param differential
+     *            whether the prefix sum is computed
+     * @return the position after the last data byte
+     */
+    public static int decode(byte[] in, int controlpos, int datapos, int[] out,
+            int outpos, int num, int init, boolean differential) {
+        int p = datapos;
+        int value = init;
+        int k = 0;
+        // the integers are read with 4-byte loads while they fit in the array
+        for (; k + 4 <= num && p + 16 <= in.length; k += 4) {
+            final int control = in[controlpos + (k >>> 2)] & 0xFF;
+            final int code0 = control & 3;
+            final int code1 = (control >>> 2) & 3;
+            final int code2 = (control >>> 4) & 3;
+            final int code3 = control >>> 6;
+            final int val0 = (int) INT_LE.get(in, p) & MASKS[code0];
+            p += code0 + 1;
+            final int val1 = (int) INT_LE.get(in, p) & MASKS[code1];
+            p += code1 + 1;
+            final int val2 = (int) INT_LE.get(in, p) & MASKS[code2];
+            p += code2 + 1;
+            final int val3 = (int) INT_LE.get(in, p) & MASKS[code3];
+            p += code3 + 1;
+            if (differential) {
+                out[outpos + k] = value += val0;
+                out[outpos + k + 1] = value += val1;
+                out[outpos + k + 2] = value += val2;
+                out[outpos + k + 3] = value += val3;
+            } else {
+                out[outpos + k] = val0;
+                out[outpos + k + 1] = val1;
+                out[outpos + k + 2] = val2;
+                out[outpos + k + 3] = val3;
+            }
+        }
+        for (; k < num; ++k) {
+            final int code = (in[controlpos + (k >>> 2)] >>> ((k & 3) << 1)) & 3;
+            int val = 0;
+            for (int i = code; i >= 0; --i)
+                val = (val << 8) | (in[p + i] & 0xFF);
+            value = differential ? value + val : val;
+            out[outpos + k] = value;
+            p += code + 1;
+        }
+        return p;
+    }
+
+    /**
+     * @param control
+     *            a control byte (between 0 and 255)
+     * @return the number of data bytes of the 4 integers it describes
+     */
+    public static int dataLength(int control) {
+        return LENGTHS[control];
+    }
+
+    @Override
+    public int maxHeadlessCompressedLength(IntWrapper compressedPositions, int inlength) {
+        compressedPositions.add(inlength);
+        return ((inlength + 3) / 4 + 4 * inlength + 3) / 4;
+    }
+
+    // number of bytes minus one
+    private static int code(int val) {
+        return (31 - Integer.numberOfLeadingZeros(val | 1)) >>> 3;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName();
+    }
+}
@@ -110,6 +110,32 @@ public final class Util {
         return 32 - Integer.numberOfLeadingZeros(i);
     }
 
+    /**
+     * Read one integer from integers bit packed by groups of 32 (as with
+     * BitPacking#fastpack) without unpacking them.
+     *
+     * @param in
+     *            packed data
+     * @param pos
+     *            position of the first group
+     * @param index
+     *            index of the integer
+     * @param b
+     *            number of bits per integer (between 0 and 32)
+     * @return the integer
+     */
+    static int extract(int[] in, int pos, int index, int b) {
+        if (b == 0)
+            return 0;
+        final int firstbit = (index & 31) * b;
+        final int wordpos = pos + (index >>> 5) * b + (firstbit >>> 5);
+        final int shift = firstbit & 31;
+        int value = in[wordpos] >>> shift;
+        if (shift + b > 32)
+            value |= in[wordpos + 1] << (32 - shift);
+        return b < 32 ? value & ((1 << b) - 1) : value;
+    }
+
     protected static int packsize(int num, int b) {
         if (b > 16)
             return num;
@@ -7,7 +7,6 @@
 package me.lemire.integercompression;
 
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.IntBuffer;
 
 /**
@@ -19,7 +18,7 @@ import java.nio.IntBuffer;
  * 
  * @author Daniel Lemire
  */
-public class VariableByte implements IntegerCODEC, ByteIntegerCODEC, SkippableIntegerCODEC {
+public class VariableByte implements IntegerCODEC, ByteIntegerCODEC, SkippableIntBufferCODEC {
 
     private static final int MAX_BYTES_PER_INT = 5;
 
@@ -41,40 +40,31 @@ public class VariableByte implements IntegerCODEC, ByteIntegerCODEC, SkippableIn
             IntWrapper outpos) {
         if (inlength == 0)
             return;
-        ByteBuffer buf = makeBuffer(inlength * 8);
-        buf.order(ByteOrder.LITTLE_ENDIAN);
+        // the bytes are packed in little-endian order, without going through
+        // a ByteBuffer so that no memory is allocated
+        int outpostmp = outpos.get();
+        int word = 0;
+        int shift = 0;
         for (int k = inpos.get(); k < inpos.get() + inlength; ++k) {
             final long val = in[k] & 0xFFFFFFFFL; // To be consistent with
                                                   // unsigned integers in C/C++
-            if (val < (1 << 7)) {
-                buf.put((byte) (val | (1 << 7)));
-            } else if (val < (1 << 14)) {
-                buf.put((byte) extract7bits(0, val));
-                buf.put((byte) (extract7bitsmaskless(1, (val)) | (1 << 7)));
-            } else if (val < (1 << 21)) {
-                buf.put((byte) extract7bits(0, val));
-                buf.put((byte) extract7bits(1, val));
-                buf.put((byte) (extract7bitsmaskless(2, (val)) | (1 << 7)));
-            } else if (val < (1 << 28)) {
-                buf.put((byte) extract7bits(0, val));
-                buf.put((byte) extract7bits(1, val));
-                buf.put((byte) extract7bits(2, val));
-                buf.put((byte) (extract7bitsmaskless(3, (val)) | (1 << 7)));
-            } else {
-                buf.put((byte) extract7bits(0, val));
-                buf.put((byte) extract7bits(1, val));
-                buf.put((byte) extract7bits(2, val));
-                buf.put((byte) extract7bits(3, val));
-                buf.put((byte) (extract7bitsmaskless(4, (val)) | (1 << 7)));
+            final int bytes = val < (1 << 7) ? 1 : val < (1 << 14) ? 2
+                    : val < (1 << 21) ? 3 : val < (1 << 28) ? 4 : 5;
+            for (int i = 0; i < bytes; ++i) {
+                int b = i == bytes - 1 ? extract7bitsmaskless(i, val) | (1 << 7)
+                        : extract7bits(i, val);
+                word |= (b & 0xFF) << shift;
+                shift += 8;
+                if (shift == 32) {
+                    out[outpostmp++] = word;
+                    word = 0;
+                    shift = 0;
+                }
             }
         }
-        while (buf.position() % 4 != 0)
-            buf.put((byte) 0);
-        final int length = buf.position();
-        buf.flip();
-        IntBuffer ibuf = buf.asIntBuffer();
-        ibuf.get(out, outpos.get(), length / 4);
-        outpos.add(length / 4);
+        if (shift > 0)
+            out[outpostmp++] = word;
+        outpos.set(outpostmp);
         inpos.add(inlength);
     }
 
@@ -210,6 +200,66 @@ public class VariableByte implements IntegerCODEC, ByteIntegerCODEC, SkippableIn
         inpos.set(p + (s!=0 ? 1 : 0));
     }
 
+    @Override
+    public void headlessCompress(IntBuffer in, IntWrapper inpos, int inlength, IntBuffer out,
+            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        int tmpoutpos = outpos.get();
+        int word = 0;
+        int shift = 0;
+        for (int k = inpos.get(); k < inpos.get() + inlength; ++k) {
+            long val = in.get(k) & 0xFFFFFFFFL; // To be consistent with
+                                                // unsigned integers in C/C++
+            do {
+                int c = (int) (val & 127);
+                val >>>= 7;
+                if (val == 0)
+                    c |= 128;
+                word |= c << shift;
+                shift += 8;
+                if (shift == 32) {
+                    out.put(tmpoutpos++, word);
+                    word = 0;
+                    shift = 0;
+                }
+            } while (val != 0);
+        }
+        if (shift != 0)
+            out.put(tmpoutpos++, word);
+        outpos.set(tmpoutpos);
+        inpos.add(inlength);
+    }
+
+    @Override
+    public void headlessUncompress(IntBuffer in, IntWrapper inpos, int inlength, IntBuffer out,
+            IntWrapper outpos, int num) {
+        int s = 0;
+        int val = 0;
+        int p = inpos.get();
+        int tmpoutpos = outpos.get();
+        int finaloutpos = num + tmpoutpos;
+        for (int v = 0, shift = 0; tmpoutpos < finaloutpos;) {
+            val = in.get(p);
+            int c = val >>> s;
+            // Shift to next byte
+            s += 8;
+            // Shift to next integer if s==32
+            p += s>>5;
+            // cycle from 31 to 0
+            s = s & 31;
+            v += ((c & 127) << shift);
+            if ((c & 128) == 128) {
+                out.put(tmpoutpos++, v);
+                v = 0;
+                shift = 0;
+            } else
+                shift += 7;
+        }
+        outpos.set(tmpoutpos);
+        inpos.set(p + (s!=0 ? 1 : 0));
+    }
+
     @Override
     public int maxHeadlessCompressedLength(IntWrapper compressedPositions, int inlength) {
         int maxLengthInBytes = inlength * MAX_BYTES_PER_INT;
@@ -227,7 +277,11 @@ public class VariableByte implements IntegerCODEC, ByteIntegerCODEC, SkippableIn
      * 
      * @param sizeInBytes
      * @return
+     * @deprecated no longer called: headlessCompress writes directly to the
+     *             output array without an intermediate buffer, so overriding
+     *             this method has no effect.
      */
+    @Deprecated
     protected ByteBuffer makeBuffer(int sizeInBytes) {
         return ByteBuffer.allocateDirect(sizeInBytes);
     }
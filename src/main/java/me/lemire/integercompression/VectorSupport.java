@@ -0,0 +1,208 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.function.Supplier;
+
+import me.lemire.integercompression.differential.Delta;
+import me.lemire.integercompression.differential.IntegratedStreamVByte;
+
+/**
+ * Runtime selection of the codecs of the package
+ * me.lemire.integercompression.vector. These codecs rely on the incubating
+ * Vector API, which is only available when the JVM is started with
+ * <code>--add-modules jdk.incubator.vector</code>. The factories of this class
+ * return the vectorized codec when possible, and an equivalent scalar codec
+ * (producing the same compressed format) otherwise, so that the same code
+ * runs everywhere.
+ *
+ * <pre>
+ * SkippableIntegerCODEC codec = new SkippableComposition(
+ *         VectorSupport.newFastPFOR(), new VariableByte());
+ * </pre>
+ *
+ * @author Daniel Lemire
+ */
+public final class VectorSupport {
+        private static final String VECTOR_PACKAGE = "me.lemire.integercompression.vector.";
+        private static final boolean AVAILABLE = checkAvailability();
+        // whether the hardware has vectors of at least 256 bits: the codecs
+        // written for 256-bit vectors are slower than the scalar ones on
+        // narrower hardware (e.g., NEON or SSE), where they are not
+        // intrinsified
+        private static final boolean WIDE = AVAILABLE && preferredBitSize() >= 256;
+        private static final MethodHandle INVERSE_DELTA = inverseDelta();
+
+        private VectorSupport() {
+        }
+
+        private static boolean checkAvailability() {
+                if (Boolean.getBoolean("me.lemire.integercompression.disableVector"))
+                        return false;
+                if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent())
+                        return false;
+                try {
+                        Class.forName(VECTOR_PACKAGE + "VectorFastPFOR");
+                        return true;
+                } catch (ClassNotFoundException | LinkageError e) {
+                        return false;
+                }
+        }
+
+        // IntVector.SPECIES_PREFERRED.vectorBitSize(), without linking to the
+        // Vector API
+        private static int preferredBitSize() {
+                try {
+                        final Object species = Class.forName("jdk.incubator.vector.IntVector")
+                                .getField("SPECIES_PREFERRED").get(null);
+                        return (Integer) Class.forName("jdk.incubator.vector.VectorSpecies")
+                                .getMethod("vectorBitSize").invoke(species);
+                } catch (ReflectiveOperationException | LinkageError e) {
+                        return 0;
+                }
+        }
+
+        private static MethodHandle inverseDelta() {
+                final MethodType type = MethodType.methodType(int.class,
+                        int[].class, int.class, int.class, int.class);
+                final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                if (WIDE) {
+                        try {
+                                return lookup.findStatic(Class.forName(VECTOR_PACKAGE
+                                        + "VectorDelta"), "fastinverseDelta", type);
+                        } catch (ReflectiveOperationException | LinkageError e) {
+                                // fall through to the scalar version
+                        }
+                }
+                try {
+                        return lookup.findStatic(Delta.class, "fastinverseDelta", type);
+                } catch (ReflectiveOperationException e) {
+                        throw new IllegalStateException(e);
+                }
+        }
+
+        /**
+         * The Vector API is used when the module jdk.incubator.vector is
+         * present and the system property
+         * me.lemire.integercompression.disableVector is not set to true.
+         *
+         * @return whether the vectorized codecs are used
+         */
+        public static boolean isAvailable() {
+                return AVAILABLE;
+        }
+
+        /**
+         * Create a codec with the compressed format of VectorFastPFOR: it is
+         * VectorFastPFOR if the Vector API is available, VerticalFastPFOR
+         * otherwise. The returned codec implements both IntegerCODEC and
+         * SkippableIntegerCODEC. It is not thread-safe.
+         *
+         * @return a new codec
+         */
+        public static SkippableIntegerCODEC newFastPFOR() {
+                return newInstance("VectorFastPFOR", VerticalFastPFOR::new);
+        }
+
+        /**
+         * Create a codec with the compressed format of Simple16: it is
+         * VectorSimple16 if the Vector API is available and the hardware has
+         * vectors of at least 256 bits, Simple16 otherwise. The returned
+         * codec implements both IntegerCODEC and SkippableIntegerCODEC.
+         * Neither keeps state between calls: it is thread-safe.
+         *
+         * @return a new codec
+         */
+        public static SkippableIntegerCODEC newSimple16() {
+                if (!WIDE)
+                        return new Simple16();
+                return newInstance("VectorSimple16", Simple16::new);
+        }
+
+        /**
+         * Create a Stream VByte codec: it is VectorStreamVByte if the Vector
+         * API is available, StreamVByte otherwise (both use the same
+         * compressed format). Neither keeps state between calls: it is
+         * thread-safe.
+         *
+         * @return a new codec
+         */
+        public static StreamVByte newStreamVByte() {
+                return newInstance("VectorStreamVByte", StreamVByte::new);
+        }
+
+        /**
+         * Create a differential Stream VByte codec: it is
+         * VectorIntegratedStreamVByte if the Vector API is available,
+         * IntegratedStreamVByte otherwise (both use the same compressed
+         * format). Neither keeps state between calls: it is thread-safe.
+         *
+         * @return a new codec
+         */
+        public static IntegratedStreamVByte newIntegratedStreamVByte() {
+                return newInstance("VectorIntegratedStreamVByte", IntegratedStreamVByte::new);
+        }
+
+        /**
+         * Create an aggregator for the compressed format of VectorFastPFOR: it
+         * is VectorAggregation if the Vector API is available,
+         * VerticalAggregation otherwise. It is not thread-safe.
+         *
+         * @return a new aggregator
+         */
+        public static VerticalAggregation newVerticalAggregation() {
+                return newInstance("VectorAggregation", VerticalAggregation::new);
+        }
+
+        /**
+         * Undo differential coding (in-place), like
+         * Delta#fastinverseDelta(int[], int, int, int). The prefix sum is
+         * computed with VectorDelta if the Vector API is available and the
+         * hardware has vectors of at least 256 bits, with Delta otherwise.
+         *
+         * There is no such method for long integers: the vectorized version
+         * (VectorDelta#fastinverseDelta(long[], int, int, long)) was slower
+         * than LongDelta in our tests.
+         *
+         * @param data
+         *                to be modified
+         * @param start
+         *                starting index
+         * @param length
+         *                number of integers to process
+         * @param init
+         *                initial value
+         * @return next initial value
+         */
+        public static int fastinverseDelta(int[] data, int start, int length,
+                int init) {
+                try {
+                        return (int) INVERSE_DELTA.invokeExact(data, start, length, init);
+                } catch (RuntimeException | Error e) {
+                        throw e;
+                } catch (Throwable t) {
+                        throw new IllegalStateException(t);
+                }
+        }
+
+        static <T> T newInstance(String vectorClass, Supplier<? extends T> fallback) {
+                if (AVAILABLE) {
+                        try {
+                                @SuppressWarnings("unchecked")
+                                T codec = (T) Class.forName(VECTOR_PACKAGE + vectorClass)
+                                        .getConstructor().newInstance();
+                                return codec;
+                        } catch (ReflectiveOperationException | LinkageError e) {
+                                // fall through to the scalar version
+                        }
+                }
+                return fallback.get();
+        }
+}
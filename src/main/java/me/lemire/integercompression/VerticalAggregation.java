@@ -0,0 +1,153 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+/**
+ * Aggregation of data compressed with VerticalFastPFOR (or VectorFastPFOR)
+ * without uncompressing it to an array: each block of 256 integers is
+ * unpacked to a 1 KB buffer and passed to a BlockConsumer, see
+ * CompressedAggregation. The exceptions are unpacked 256 at a time, to one
+ * buffer per bit width in use.
+ *
+ * <pre>
+ * BlockStatistics stats = new BlockStatistics();
+ * VectorSupport.newVerticalAggregation().fastPFOR(compressed,
+ *         new IntWrapper(0), num, stats);
+ * </pre>
+ *
+ * The buffers are kept between calls: this class is not thread-safe.
+ *
+ * @author Daniel Lemire
+ */
+public class VerticalAggregation {
+    private static final int BLOCK_SIZE = VerticalFastPFOR.BLOCK_SIZE;
+    private static final int INTS_PER_BLOCK = BLOCK_SIZE >>> 5;
+
+    private final FastPFORPage page = new FastPFORPage();
+    private final int[] block = new int[BLOCK_SIZE];
+    private final int[][] exceptions = new int[33][];
+    // position of the next packed exceptions
+    private final int[] exceptpos = new int[33];
+    // number of exceptions left to unpack
+    private final int[] remaining = new int[33];
+    // next exception in the buffer
+    private final int[] exceptindex = new int[33];
+
+    /**
+     * Aggregate data compressed with VerticalFastPFOR#headlessCompress, using
+     * the default page size.
+     *
+     * @param in
+     *            compressed data
+     * @param inpos
+     *            where to start reading: it is moved after the data
+     * @param num
+     *            number of compressed integers
+     * @param consumer
+     *            receives the blocks of integers
+     */
+    public void fastPFOR(int[] in, IntWrapper inpos, int num,
+            BlockConsumer consumer) {
+        fastPFOR(in, inpos, num, VerticalFastPFOR.DEFAULT_PAGE_SIZE, consumer);
+    }
+
+    /**
+     * Aggregate data compressed with VerticalFastPFOR#headlessCompress.
+     *
+     * @param in
+     *            compressed data
+     * @param inpos
+     *            where to start reading: it is moved after the data
+     * @param num
+     *            number of compressed integers
+     * @param pageSize
+     *            page size of the VerticalFastPFOR instance used to compress
+     * @param consumer
+     *            receives the blocks of integers
+     */
+    public void fastPFOR(int[] in, IntWrapper inpos, int num, int pageSize,
+            BlockConsumer consumer) {
+        final int outlength = Util.greatestMultiple(num, BLOCK_SIZE);
+        int tmpinpos = inpos.get();
+        for (int s = 0; s < outlength; s += pageSize) {
+            tmpinpos = page.parse(in, tmpinpos);
+            page(in, Math.min(pageSize, outlength - s), consumer);
+        }
+        inpos.set(tmpinpos);
+    }
+
+    private void page(int[] in, int thissize, BlockConsumer consumer) {
+        for (int k = 2; k <= 32; ++k) {
+            if (page.hasExceptions(k)) {
+                if (exceptions[k] == null)
+                    exceptions[k] = new int[BLOCK_SIZE];
+                exceptpos[k] = page.exceptionStart(k);
+                remaining[k] = page.exceptionCount(k);
+                exceptindex[k] = BLOCK_SIZE;
+            }
+        }
+        final int metapos = page.metadataStart();
+        int bytepos = 0;
+        int tmpinpos = page.packedStart();
+        for (int run = 0; run < thissize / BLOCK_SIZE; ++run) {
+            final int b = FastPFORPage.metadataByte(in, metapos, bytepos++);
+            final int cexcept = FastPFORPage.metadataByte(in, metapos, bytepos++);
+            unpack(in, tmpinpos, block, 0, b);
+            tmpinpos += INTS_PER_BLOCK * b;
+            if (cexcept > 0) {
+                final int index = FastPFORPage.metadataByte(in, metapos, bytepos++) - b;
+                for (int k = 0; k < cexcept; ++k) {
+                    final int pos = FastPFORPage.metadataByte(in, metapos, bytepos++);
+                    final int exceptvalue = index == 1 ? 1 : nextException(in, index);
+                    block[pos] |= exceptvalue << b;
+                }
+            }
+            consumer.accept(block, 0, BLOCK_SIZE);
+        }
+    }
+
+    private int nextException(int[] in, int k) {
+        final int[] buffer = exceptions[k];
+        if (exceptindex[k] == BLOCK_SIZE) {
+            if (remaining[k] >= BLOCK_SIZE) {
+                unpack(in, exceptpos[k], buffer, 0, k);
+                exceptpos[k] += INTS_PER_BLOCK * k;
+                remaining[k] -= BLOCK_SIZE;
+            } else {
+                exceptpos[k] = VerticalBitPacking.slowunpack(in, exceptpos[k],
+                        buffer, 0, remaining[k], k);
+                remaining[k] = 0;
+            }
+            exceptindex[k] = 0;
+        }
+        return buffer[exceptindex[k]++];
+    }
+
+    /**
+     * Unpack a block of 256 integers packed vertically, as with
+     * VerticalBitPacking.
+     *
+     * @param in
+     *            packed data
+     * @param inpos
+     *            position of the block
+     * @param out
+     *            where to write the 256 integers
+     * @param outpos
+     *            where to start writing in out
+     * @param bit
+     *            number of bits per integer
+     */
+    protected void unpack(int[] in, int inpos, int[] out, int outpos, int bit) {
+        VerticalBitPacking.unpack(in, inpos, out, outpos, bit);
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+
+/**
+ * Scalar bit packing with the layout of
+ * me.lemire.integercompression.vector.VectorBitPacker.
+ *
+ * Blocks of 256 integers are packed vertically: the integers are spread
+ * over 8 lanes (odd bit widths) or 16 lanes (even bit widths), integer i
+ * going to lane i % lanes. Each lane is a little-endian bit stream, and
+ * the words of the lanes are interleaved. A block uses 8 * bit words.
+ *
+ * Shorter sequences are packed horizontally in ceil(num * bit / 32) words.
+ *
+ * @author Daniel Lemire
+ */
+final class VerticalBitPacking {
+        static final int BLOCK_SIZE = 256;
+
+        private VerticalBitPacking() {
+        }
+
+        private static int lanes(int bit) {
+                return (bit & 1) == 1 ? 8 : 16;
+        }
+
+        /**
+         * Pack a block of 256 integers, using 8 * bit words.
+         *
+         * @param in
+         *                source array
+         * @param inpos
+         *                position of the first integer
+         * @param out
+         *                output array
+         * @param outpos
+         *                where to write
+         * @param bit
+         *                number of bits per integer
+         */
+        static void pack(final int[] in, final int inpos, final int[] out,
+                final int outpos, final int bit) {
+                if (bit == 0)
+                        return;
+                if (bit == 32) {
+                        System.arraycopy(in, inpos, out, outpos, BLOCK_SIZE);
+                        return;
+                }
+                final int lanes = lanes(bit);
+                final long mask = (1L << bit) - 1;
+                for (int lane = 0; lane < lanes; ++lane) {
+                        long buffer = 0;
+                        int used = 0;
+                        int w = outpos + lane;
+                        for (int i = inpos + lane; i < inpos + BLOCK_SIZE; i += lanes) {
+                                buffer |= (in[i] & mask) << used;
+                                used += bit;
+                                if (used >= 32) {
+                                        out[w] = (int) buffer;
+                                        w += lanes;
+                                        buffer >>>= 32;
+                                        used -= 32;
+                                }
+                        }
+                }
+        }
+
+        /**
+         * Unpack a block of 256 integers written by
+         * {@link #pack(int[], int, int[], int, int)}.
+         *
+         * @param in
+         *                source array
+         * @param inpos
+         *                position of the first word
+         * @param out
+         *                output array
+         * @param outpos
+         *                where to write the 256 integers
+         * @param bit
+         *                number of bits per integer
+         */
+        static void unpack(final int[] in, final int inpos, final int[] out,
+                final int outpos, final int bit) {
+                if (bit == 0) {
+                        Arrays.fill(out, outpos, outpos + BLOCK_SIZE, 0);
+                        return;
+                }
+                if (bit == 32) {
+                        System.arraycopy(in, inpos, out, outpos, BLOCK_SIZE);
+                        return;
+                }
+                final int lanes = lanes(bit);
+                final long mask = (1L << bit) - 1;
+                for (int lane = 0; lane < lanes; ++lane) {
+                        long buffer = 0;
+                        int available = 0;
+                        int w = inpos + lane;
+                        for (int i = outpos + lane; i < outpos + BLOCK_SIZE; i += lanes) {
+                                if (available < bit) {
+                                        buffer |= (in[w] & 0xFFFFFFFFL) << available;
+                                        w += lanes;
+                                        available += 32;
+                                }
+                                out[i] = (int) (buffer & mask);
+                                buffer >>>= bit;
+                                available -= bit;
+                        }
+                }
+        }
+
+        /**
+         * Pack fewer than 256 integers horizontally.
+         *
+         * @param in
+         *                source array
+         * @param inpos
+         *                position of the first integer
+         * @param num
+         *                number of integers
+         * @param out
+         *                output array
+         * @param outpos
+         *                where to write
+         * @param bit
+         *                number of bits per integer
+         * @return the position following the last word written
+         */
+        static int slowpack(final int[] in, final int inpos, final int num,
+                final int[] out, int outpos, final int bit) {
+                final long mask = bit == 32 ? 0xFFFFFFFFL : (1L << bit) - 1;
+                long buffer = 0;
+                int used = 0;
+                for (int i = inpos; i < inpos + num; ++i) {
+                        buffer |= (in[i] & mask) << used;
+                        used += bit;
+                        if (used >= 32) {
+                                out[outpos++] = (int) buffer;
+                                buffer >>>= 32;
+                                used -= 32;
+                        }
+                }
+                if (used > 0)
+                        out[outpos++] = (int) buffer;
+                return outpos;
+        }
+
+        /**
+         * Unpack integers written by
+         * {@link #slowpack(int[], int, int, int[], int, int)}.
+         *
+         * @param in
+         *                source array
+         * @param inpos
+         *                position of the first word
+         * @param out
+         *                output array
+         * @param outpos
+         *                where to write
+         * @param num
+         *                number of integers
+         * @param bit
+         *                number of bits per integer
+         * @return the position following the last word read
+         */
+        static int slowunpack(final int[] in, int inpos, final int[] out,
+                final int outpos, final int num, final int bit) {
+                final long mask = bit == 32 ? 0xFFFFFFFFL : (1L << bit) - 1;
+                long buffer = 0;
+                int available = 0;
+                for (int i = outpos; i < outpos + num; ++i) {
+                        if (available < bit) {
+                                buffer |= (in[inpos++] & 0xFFFFFFFFL) << available;
+                                available += 32;
+                        }
+                        out[i] = (int) (buffer & mask);
+                        buffer >>>= bit;
+                        available -= bit;
+                }
+                return inpos;
+        }
+}
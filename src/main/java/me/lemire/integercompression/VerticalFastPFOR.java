@@ -0,0 +1,317 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+
+/**
+ * Scalar implementation of the compressed format of
+ * me.lemire.integercompression.vector.VectorFastPFOR. It does not need the
+ * Vector API: data compressed by VectorFastPFOR can be uncompressed with
+ * VerticalFastPFOR and conversely. It is the fallback used by
+ * {@link VectorSupport#newFastPFOR()} when the Vector API is not available.
+ *
+ * The format is that of FastPFOR, except for the layout of the bit-packed
+ * blocks (see VectorBitPacker): the two are not compatible.
+ *
+ * As with FastPFOR, only multiples of BLOCK_SIZE integers are compressed, you
+ * should use it in conjunction with another CODEC:
+ *
+ *  IntegerCODEC ic = new Composition(new VerticalFastPFOR(), new VariableByte()).
+ *
+ * For multi-threaded applications, each thread should use its own
+ * VerticalFastPFOR object.
+ *
+ * @author Daniel Lemire
+ */
+public class VerticalFastPFOR implements IntegerCODEC, SkippableIntegerCODEC {
+        private final static int OVERHEAD_OF_EACH_EXCEPT = 8;
+        private final static int OVERHEAD_OF_EACH_PAGE_IN_INTS = 36;
+        private final static int OVERHEAD_OF_EACH_BLOCK_IN_INTS = 1;
+        /**
+         * The page size of VectorFastPFOR.
+         */
+        public final static int DEFAULT_PAGE_SIZE = 64 << 10;
+        /**
+         * The block size of VectorFastPFOR.
+         */
+        public final static int BLOCK_SIZE = VerticalBitPacking.BLOCK_SIZE;
+        private final static int INTS_PER_BLOCK = BLOCK_SIZE >>> 5;
+
+        private final int pageSize;
+        private final int[][] dataTobePacked = new int[33][];
+
+        // Working area for compress and uncompress.
+        private final int[] dataPointers = new int[33];
+        private final int[] freqs = new int[33];
+        private final byte[] bem;
+
+        /**
+         * Construct the CODEC.
+         *
+         * @param pagesize
+         *                the desired page size, it must match the page size
+         *                used by VectorFastPFOR (DEFAULT_PAGE_SIZE)
+         */
+        public VerticalFastPFOR(int pagesize) {
+                pageSize = pagesize;
+                bem = new byte[3 * pageSize / BLOCK_SIZE + pagesize];
+                for (int k = 1; k < dataTobePacked.length; ++k)
+                        dataTobePacked[k] = new int[pageSize / 32 * 4]; // heuristic
+        }
+
+        /**
+         * Construct the CODEC with default parameters.
+         */
+        public VerticalFastPFOR() {
+                this(DEFAULT_PAGE_SIZE);
+        }
+
+        /**
+         * Compress data in blocks of BLOCK_SIZE integers (if fewer than
+         * BLOCK_SIZE integers are provided, nothing is done).
+         *
+         * @see IntegerCODEC#compress(int[], IntWrapper, int, int[], IntWrapper)
+         */
+        @Override
+        public void headlessCompress(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos) {
+                inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+                final int finalinpos = inpos.get() + inlength;
+                while (inpos.get() != finalinpos) {
+                        int thissize = Math.min(pageSize, finalinpos - inpos.get());
+                        encodePage(in, inpos, thissize, out, outpos);
+                }
+        }
+
+        private void getBestBitSize(int[] in, int pos, int index) {
+                Arrays.fill(freqs, 0);
+                for (int i = pos, limit = pos + BLOCK_SIZE; i < limit; i++)
+                        freqs[32 - Integer.numberOfLeadingZeros(in[i])]++;
+                bem[index] = 32;
+                while (freqs[bem[index]] == 0)
+                        bem[index]--;
+                bem[index + 2] = bem[index];
+                int maxb = bem[index + 2];
+                int bestcost = bem[index] * BLOCK_SIZE;
+                int cexcept = 0;
+                bem[index + 1] = 0;
+                for (int b = bem[index] - 1; b >= 0; --b) {
+                        cexcept += freqs[b + 1];
+                        if (cexcept == BLOCK_SIZE)
+                                break;
+                        // the extra 8 is the cost of storing maxbits
+                        int thiscost = cexcept * OVERHEAD_OF_EACH_EXCEPT
+                                + cexcept * (maxb - b) + b * BLOCK_SIZE + 8;
+                        if (maxb - b == 1)
+                                thiscost -= cexcept;
+                        if (thiscost < bestcost) {
+                                bestcost = thiscost;
+                                bem[index] = (byte) b;
+                                bem[index + 1] = (byte) cexcept;
+                        }
+                }
+        }
+
+        private void encodePage(int[] in, IntWrapper inpos, int thissize,
+                int[] out, IntWrapper outpos) {
+                final int headerpos = outpos.get();
+                outpos.increment();
+                int tmpoutpos = outpos.get();
+
+                // Clear working area.
+                Arrays.fill(dataPointers, 0);
+                Arrays.fill(bem, (byte) 0);
+
+                int tmpinpos = inpos.get();
+                final int finalinpos = tmpinpos + thissize - BLOCK_SIZE;
+                int bindex = 0;
+                for (; tmpinpos <= finalinpos; tmpinpos += BLOCK_SIZE) {
+                        getBestBitSize(in, tmpinpos, bindex);
+                        final int tmpexcept = bem[bindex + 1] & 0xFF;
+                        final int tmpbestb = bem[bindex];
+                        if (tmpexcept > 0) {
+                                final int index = bem[bindex + 2] - tmpbestb;
+                                if (dataPointers[index] + tmpexcept >= dataTobePacked[index].length) {
+                                        int newsize = Util.greatestMultiple(2
+                                                * (dataPointers[index] + tmpexcept)
+                                                + BLOCK_SIZE - 1, BLOCK_SIZE);
+                                        dataTobePacked[index] = Arrays.copyOf(
+                                                dataTobePacked[index], newsize);
+                                }
+                                bindex += 3;
+                                for (int k = 0; k < BLOCK_SIZE; ++k) {
+                                        if ((in[k + tmpinpos] >>> tmpbestb) != 0) {
+                                                // we have an exception
+                                                bem[bindex++] = (byte) k;
+                                                dataTobePacked[index][dataPointers[index]++] = in[k
+                                                        + tmpinpos] >>> tmpbestb;
+                                        }
+                                }
+                        } else {
+                                bindex += 2;
+                        }
+                        VerticalBitPacking.pack(in, tmpinpos, out, tmpoutpos, tmpbestb);
+                        tmpoutpos += INTS_PER_BLOCK * tmpbestb;
+                }
+                inpos.set(tmpinpos);
+                out[headerpos] = tmpoutpos - headerpos;
+
+                final int bytesize = bindex;
+                out[tmpoutpos++] = bytesize;
+                for (int i = 0; i < bytesize; i += 4) {
+                        out[tmpoutpos++] = (bem[i] & 0xFF)
+                                | ((bem[i + 1] & 0xFF) << 8)
+                                | ((bem[i + 2] & 0xFF) << 16)
+                                | ((bem[i + 3] & 0xFF) << 24);
+                }
+
+                int bitmap = 0;
+                for (int k = 2; k <= 32; ++k) {
+                        if (dataPointers[k] != 0)
+                                bitmap |= (1 << (k - 1));
+                }
+                out[tmpoutpos++] = bitmap;
+
+                for (int k = 2; k <= 32; ++k) {
+                        if (dataPointers[k] != 0) {
+                                out[tmpoutpos++] = dataPointers[k]; // size
+                                int j = 0;
+                                final int n = Util.greatestMultiple(dataPointers[k], BLOCK_SIZE);
+                                for (; j < n; j += BLOCK_SIZE) {
+                                        VerticalBitPacking.pack(dataTobePacked[k], j,
+                                                out, tmpoutpos, k);
+                                        tmpoutpos += INTS_PER_BLOCK * k;
+                                }
+                                tmpoutpos = VerticalBitPacking.slowpack(dataTobePacked[k],
+                                        j, dataPointers[k] - j, out, tmpoutpos, k);
+                        }
+                }
+                outpos.set(tmpoutpos);
+        }
+
+        /**
+         * Uncompress data in blocks of integers. In this particular case,
+         * the inlength parameter is ignored: it is deduced from the
+         * compressed data.
+         *
+         * @see IntegerCODEC#compress(int[], IntWrapper, int, int[], IntWrapper)
+         */
+        @Override
+        public void headlessUncompress(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos, int mynvalue) {
+                mynvalue = Util.greatestMultiple(mynvalue, BLOCK_SIZE);
+                final int finalout = outpos.get() + mynvalue;
+                while (outpos.get() != finalout) {
+                        int thissize = Math.min(pageSize, finalout - outpos.get());
+                        decodePage(in, inpos, out, outpos, thissize);
+                }
+        }
+
+        @Override
+        public int maxHeadlessCompressedLength(IntWrapper compressedPositions, int inlength) {
+                inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+                int pageCount = (inlength + pageSize - 1) / pageSize;
+                int blockCount = inlength / BLOCK_SIZE;
+                compressedPositions.add(inlength);
+                // getBestBitSize never lets a block (with its exceptions) exceed BLOCK_SIZE integers.
+                int blockSizeInInts = OVERHEAD_OF_EACH_BLOCK_IN_INTS + BLOCK_SIZE;
+                return OVERHEAD_OF_EACH_PAGE_IN_INTS * pageCount + blockSizeInInts * blockCount + 24;
+        }
+
+        private void decodePage(int[] in, IntWrapper inpos, int[] out,
+                IntWrapper outpos, int thissize) {
+                final int initpos = inpos.get();
+                final int wheremeta = in[inpos.get()];
+                inpos.increment();
+                int inexcept = initpos + wheremeta;
+
+                final int bytesize = in[inexcept++];
+                for (int i = 0; i < bytesize; i += 4) {
+                        final int word = in[inexcept++];
+                        bem[i] = (byte) word;
+                        bem[i + 1] = (byte) (word >>> 8);
+                        bem[i + 2] = (byte) (word >>> 16);
+                        bem[i + 3] = (byte) (word >>> 24);
+                }
+                final int bitmap = in[inexcept++];
+                for (int k = 2; k <= 32; ++k) {
+                        if ((bitmap & (1 << (k - 1))) != 0) {
+                                final int size = in[inexcept++];
+                                if (dataTobePacked[k].length < size)
+                                        dataTobePacked[k] = new int[Util.greatestMultiple(
+                                                size + BLOCK_SIZE - 1, BLOCK_SIZE)];
+                                int j = 0;
+                                final int n = Util.greatestMultiple(size, BLOCK_SIZE);
+                                for (; j < n; j += BLOCK_SIZE) {
+                                        VerticalBitPacking.unpack(in, inexcept,
+                                                dataTobePacked[k], j, k);
+                                        inexcept += INTS_PER_BLOCK * k;
+                                }
+                                inexcept = VerticalBitPacking.slowunpack(in, inexcept,
+                                        dataTobePacked[k], j, size - j, k);
+                        }
+                }
+                Arrays.fill(dataPointers, 0);
+                int tmpoutpos = outpos.get();
+                int tmpinpos = inpos.get();
+                int idx = 0;
+                for (int run = 0, run_end = thissize / BLOCK_SIZE; run < run_end; ++run, tmpoutpos += BLOCK_SIZE) {
+                        final int b = bem[idx];
+                        final int cexcept = bem[idx + 1] & 0xFF;
+                        VerticalBitPacking.unpack(in, tmpinpos, out, tmpoutpos, b);
+                        tmpinpos += INTS_PER_BLOCK * b;
+                        if (cexcept > 0) {
+                                final int maxbits = bem[idx + 2];
+                                idx += 3;
+                                final int index = maxbits - b;
+                                if (index == 1) {
+                                        for (int k = 0; k < cexcept; ++k) {
+                                                final int pos = bem[idx++] & 0xFF;
+                                                out[pos + tmpoutpos] |= 1 << b;
+                                        }
+                                } else {
+                                        for (int k = 0; k < cexcept; ++k) {
+                                                final int pos = bem[idx++] & 0xFF;
+                                                final int exceptvalue = dataTobePacked[index][dataPointers[index]++];
+                                                out[pos + tmpoutpos] |= exceptvalue << b;
+                                        }
+                                }
+                        } else {
+                                idx += 2;
+                        }
+                }
+                outpos.set(tmpoutpos);
+                inpos.set(inexcept);
+        }
+
+        @Override
+        public void compress(int[] in, IntWrapper inpos, int inlength, int[] out,
+                IntWrapper outpos) {
+                inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+                if (inlength == 0)
+                        return;
+                out[outpos.get()] = inlength;
+                outpos.increment();
+                headlessCompress(in, inpos, inlength, out, outpos);
+        }
+
+        @Override
+        public void uncompress(int[] in, IntWrapper inpos, int inlength, int[] out,
+                IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                final int outlength = in[inpos.get()];
+                inpos.increment();
+                headlessUncompress(in, inpos, inlength, out, outpos, outlength);
+        }
+
+        @Override
+        public String toString() {
+                return this.getClass().getSimpleName();
+        }
+}
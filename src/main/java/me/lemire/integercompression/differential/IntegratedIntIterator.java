@@ -0,0 +1,235 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.differential;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import me.lemire.integercompression.IntWrapper;
+
+/**
+ * Iterator over a sorted array compressed by {@link #compress(int[])}. It
+ * supports skipping forward to the first value no smaller than a target
+ * (nextGEQ) without unpacking the blocks of 32 integers that are skipped.
+ *
+ * The compressed array holds the number of integers, the largest (last) value
+ * of each block of 32 integers, then the headless output of the default codec
+ * of IntegratedIntCompressor (IntegratedBinaryPacking followed by
+ * IntegratedVariableByte). The maxima are recorded when compressing: the
+ * iterator reads them to skip blocks, and as the starting values of the deltas
+ * of the next blocks. The positions of the blocks are recovered from the block
+ * headers when the iterator is created; a block is only unpacked when the
+ * iterator reaches it.
+ *
+ * The values are expected to be sorted in non-decreasing order.
+ *
+ * A typical use is the intersection of posting lists:
+ *
+ * <pre>
+ * while (a.hasNext()) {
+ *     int x = a.next();
+ *     if (b.advance(x) &amp;&amp; b.peek() == x)
+ *         answer.add(x);
+ * }
+ * </pre>
+ *
+ * @author Daniel Lemire
+ */
+public class IntegratedIntIterator {
+    private static final int BLOCK_SIZE = IntegratedBinaryPacking.BLOCK_SIZE;
+
+    private static final int MAXIMA = 1; // position of the block maxima
+
+    private final int[] compressed;
+    private final int length;
+    private final int blockCount;
+    private final int[] blockPositions;
+    private final int[] blockBits;
+    private final int tailPosition;
+
+    private final int[] buffer = new int[BLOCK_SIZE];
+    private int bufferBlock = -1; // block stored in buffer, blockCount for the tail
+    private int bufferLength = 0;
+    private int position = 0; // index of the next value in buffer
+
+    // to uncompress the tail
+    private final IntegratedVariableByte tailCodec = new IntegratedVariableByte();
+    private final IntWrapper tailInpos = new IntWrapper();
+    private final IntWrapper tailOutpos = new IntWrapper();
+    private final IntWrapper tailInitvalue = new IntWrapper();
+
+    /**
+     * Compress a sorted array for the iterator: the largest value of each
+     * block of 32 integers is stored before the compressed integers.
+     *
+     * @param sorted
+     *            integers sorted in non-decreasing order
+     * @return compressed array
+     */
+    public static int[] compress(int[] sorted) {
+        final SkippableIntegratedComposition codec =
+                new SkippableIntegratedComposition(
+                        new IntegratedBinaryPacking(),
+                        new IntegratedVariableByte());
+        final int blockCount = sorted.length / BLOCK_SIZE;
+        final int maxLength = codec.maxHeadlessCompressedLength(
+                new IntWrapper(0), sorted.length);
+        int[] compressed = new int[MAXIMA + blockCount + maxLength];
+        compressed[0] = sorted.length;
+        for (int b = 0; b < blockCount; ++b)
+            compressed[MAXIMA + b] = sorted[(b + 1) * BLOCK_SIZE - 1];
+        IntWrapper outpos = new IntWrapper(MAXIMA + blockCount);
+        codec.headlessCompress(sorted, new IntWrapper(0), sorted.length,
+                compressed, outpos, new IntWrapper(0));
+        return Arrays.copyOf(compressed, outpos.get());
+    }
+
+    /**
+     * Create an iterator.
+     *
+     * @param compressed
+     *            output of {@link #compress(int[])}
+     */
+    public IntegratedIntIterator(int[] compressed) {
+        this.compressed = compressed;
+        this.length = compressed[0];
+        this.blockCount = length / BLOCK_SIZE;
+        blockPositions = new int[blockCount];
+        blockBits = new int[blockCount];
+        int pos = MAXIMA + blockCount;
+        int b = 0;
+        for (; b + 3 < blockCount; b += 4) {
+            final int header = compressed[pos++];
+            for (int k = 0; k < 4; ++k) {
+                blockBits[b + k] = (header >>> (24 - 8 * k)) & 0xFF;
+                blockPositions[b + k] = pos;
+                pos += blockBits[b + k];
+            }
+        }
+        for (; b < blockCount; ++b) {
+            blockBits[b] = compressed[pos++];
+            blockPositions[b] = pos;
+            pos += blockBits[b];
+        }
+        if (blockCount == 0)
+            pos++; // empty IntegratedBinaryPacking output is marked by a zero
+        tailPosition = pos;
+    }
+
+    /**
+     * @return the number of integers in the array
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * @return whether there are more values
+     */
+    public boolean hasNext() {
+        if (position < bufferLength)
+            return true;
+        return bufferBlock + 1 < blockCount
+                || (bufferBlock < blockCount && length % BLOCK_SIZE != 0);
+    }
+
+    /**
+     * @return the next value, without moving forward
+     */
+    public int peek() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        if (position == bufferLength)
+            load(bufferBlock + 1);
+        return buffer[position];
+    }
+
+    /**
+     * @return the next value
+     */
+    public int next() {
+        final int answer = peek();
+        ++position;
+        return answer;
+    }
+
+    /**
+     * Move forward to the first value that is no smaller than target, skipping
+     * whole blocks when possible. If the next value is already no smaller than
+     * target, nothing happens. The value can then be retrieved with
+     * {@link #peek()} or {@link #next()}.
+     *
+     * @param target
+     *            the value to look for
+     * @return true if there is such a value, false if the iterator is
+     *         exhausted
+     */
+    public boolean advance(int target) {
+        while (true) {
+            if (position < bufferLength && buffer[bufferLength - 1] >= target) {
+                while (buffer[position] < target)
+                    ++position;
+                return true;
+            }
+            // the current block has no value >= target, look for a block
+            int block = bufferBlock + 1;
+            if (block < blockCount && maximum(block) < target) {
+                // galloping followed by a binary search
+                int lo = block;
+                int step = 1;
+                int hi = block + step;
+                while (hi < blockCount && maximum(hi) < target) {
+                    lo = hi;
+                    step <<= 1;
+                    hi = block + step;
+                }
+                if (hi > blockCount)
+                    hi = blockCount;
+                // maximum(lo) < target and (hi == blockCount or maximum(hi) >= target)
+                while (lo + 1 < hi) {
+                    final int mid = (lo + hi) >>> 1;
+                    if (maximum(mid) < target)
+                        lo = mid;
+                    else
+                        hi = mid;
+                }
+                block = hi;
+            }
+            if (block > blockCount || (block == blockCount && length % BLOCK_SIZE == 0)) {
+                bufferBlock = blockCount;
+                bufferLength = 0;
+                position = 0;
+                return false;
+            }
+            load(block);
+        }
+    }
+
+    // the largest value of a block, which is also its last value
+    private int maximum(int block) {
+        return compressed[MAXIMA + block];
+    }
+
+    private void load(int block) {
+        final int initoffset = block == 0 ? 0 : maximum(block - 1);
+        if (block < blockCount) {
+            IntegratedBitPacking.integratedunpack(initoffset, compressed,
+                    blockPositions[block], buffer, 0, blockBits[block]);
+            bufferLength = BLOCK_SIZE;
+        } else {
+            bufferLength = length % BLOCK_SIZE;
+            tailInpos.set(tailPosition);
+            tailOutpos.set(0);
+            tailInitvalue.set(initoffset);
+            tailCodec.headlessUncompress(compressed, tailInpos,
+                    compressed.length - tailPosition, buffer, tailOutpos,
+                    bufferLength, tailInitvalue);
+        }
+        bufferBlock = block;
+        position = 0;
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.differential;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.StreamVByte;
+
+/**
+ * Implementation of Stream VByte with differential coding: the differences
+ * between successive integers are stored in the format of
+ * me.lemire.integercompression.StreamVByte, and the prefix sum is computed
+ * while decoding (the layout code is shared with StreamVByte). It can be
+ * vectorized (the shuffle and the prefix sum of 4 integers are done in one
+ * vector register), see
+ * me.lemire.integercompression.VectorSupport#newIntegratedStreamVByte.
+ *
+ * You should only use this scheme on sorted arrays. Use StreamVByte if you
+ * have unsorted arrays. Like IntegratedVariableByte, it can be used for the
+ * integers that remain after a block codec:
+ *
+ * <pre>
+ * IntegratedIntCompressor iic = new IntegratedIntCompressor(
+ *         new SkippableIntegratedComposition(new IntegratedBinaryPacking(),
+ *                 new IntegratedStreamVByte()));
+ * </pre>
+ *
+ * @author Daniel Lemire
+ */
+public class IntegratedStreamVByte implements IntegratedIntegerCODEC, IntegratedByteIntegerCODEC,
+        SkippableIntegratedIntegerCODEC {
+    @Override
+    public void compress(int[] in, IntWrapper inpos, int inlength, int[] out,
+            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        out[outpos.get()] = inlength;
+        outpos.increment();
+        headlessCompress(in, inpos, inlength, out, outpos, new IntWrapper(0));
+    }
+
+    @Override
+    public void uncompress(int[] in, IntWrapper inpos, int inlength, int[] out,
+            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        final int outlength = in[inpos.get()];
+        inpos.increment();
+        headlessUncompress(in, inpos, inlength, out, outpos, outlength, new IntWrapper(0));
+    }
+
+    @Override
+    public void headlessCompress(int[] in, IntWrapper inpos, int inlength, int[] out,
+            IntWrapper outpos, IntWrapper initvalue) {
+        if (inlength == 0)
+            return;
+        outpos.set(StreamVByte.encode(in, inpos.get(), inlength, out, outpos.get(),
+                initvalue.get(), true));
+        inpos.add(inlength);
+        initvalue.set(in[inpos.get() - 1]);
+    }
+
+    @Override
+    public void headlessUncompress(int[] in, IntWrapper inpos, int inlength, int[] out,
+            IntWrapper outpos, int num, IntWrapper initvalue) {
+        if (num == 0)
+            return;
+        inpos.set(StreamVByte.decode(in, inpos.get(), out, outpos.get(), num,
+                initvalue.get(), true));
+        outpos.add(num);
+        initvalue.set(out[outpos.get() - 1]);
+    }
+
+    @Override
+    public void compress(int[] in, IntWrapper inpos, int inlength, byte[] out,
+            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        outpos.set(StreamVByte.encode(in, inpos.get(), inlength, out, outpos.get(), 0, true));
+        inpos.add(inlength);
+    }
+
+    @Override
+    public void uncompress(byte[] in, IntWrapper inpos, int inlength, int[] out,
+            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        final int num = StreamVByte.byteLength(in, inpos.get());
+        final int controlpos = inpos.get() + 4;
+        final int end = decode(in, controlpos, controlpos + ((num + 3) >>> 2), out,
+                outpos.get(), num, 0);
+        outpos.add(num);
+        inpos.set(end);
+    }
+
+    /**
+     * Decode integers from control and data bytes, and compute their prefix
+     * sum.
+     *
+     * @param in
+     *            compressed data
+     * @param controlpos
+     *            position of the first control byte
+     * @param datapos
+     *            position of the first data byte
+     * @param out
+     *            where to write the integers
+     * @param outpos
+     *            position of the first integer in out
+     * @param num
+     *            number of integers to decode
+     * @param init
+     *            value preceding the first integer
+     * @return the position after the last data byte
+     */
+    protected int decode(byte[] in, int controlpos, int datapos, int[] out,
+            int outpos, int num, int init) {
+        return StreamVByte.decode(in, controlpos, datapos, out, outpos, num, init, true);
+    }
+
+    @Override
+    public int maxHeadlessCompressedLength(IntWrapper compressedPositions, int inlength) {
+        compressedPositions.add(inlength);
+        return ((inlength + 3) / 4 + 4 * inlength + 3) / 4;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName();
+    }
+}
@@ -17,12 +17,23 @@ package me.lemire.integercompression.synth;
  */
 public class ClusteredDataGenerator {
 
-        UniformDataGenerator unidg = new UniformDataGenerator();
+        final UniformDataGenerator unidg;
 
         /**
          * Creating random array generator.
          */
         public ClusteredDataGenerator() {
+                unidg = new UniformDataGenerator();
+        }
+
+        /**
+         * Creating random array generator.
+         *
+         * @param seed
+         *                random seed
+         */
+        public ClusteredDataGenerator(final int seed) {
+                unidg = new UniformDataGenerator(seed);
         }
 
         void fillUniform(int[] array, int offset, int length, int Min, int Max) {
@@ -0,0 +1,29 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.vector;
+
+import me.lemire.integercompression.VerticalAggregation;
+
+/**
+ * VerticalAggregation unpacking the blocks (and the exceptions, 256 at a
+ * time) with VectorBitPacker. See
+ * me.lemire.integercompression.VectorSupport#newVerticalAggregation for the
+ * runtime selection.
+ *
+ * <pre>
+ * VectorBlockStatistics stats = new VectorBlockStatistics();
+ * new VectorAggregation().fastPFOR(compressed, new IntWrapper(0), num, stats);
+ * </pre>
+ *
+ * @author Daniel Lemire
+ */
+public class VectorAggregation extends VerticalAggregation {
+  @Override
+  protected void unpack(int[] in, int inpos, int[] out, int outpos, int bit) {
+    VectorBitPacker.fastunpack(in, inpos, out, outpos, bit);
+  }
+}
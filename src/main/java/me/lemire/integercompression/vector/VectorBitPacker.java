@@ -432,15 +432,17 @@ public class VectorBitPacker {
                              final int[] out, int outpos, int b) {
     if (inlen == 0)
       return outpos;
+    // like the other widths, return the position of the last word written
     if (b == 32) {
       System.arraycopy(in, inpos, out, outpos, inlen);
-      return outpos + inlen;
+      return outpos + inlen - 1;
     }
     int mask = (1 << b) - 1;
     int c = 0;
     int l = 0;
     int r = 0;
     int val = 0;
+    out[outpos] = 0;
     for (int i = 0; i < inlen; i++) {
       val = in[inpos + i] & mask;
       out[outpos] |= val << (c + r);
@@ -452,6 +454,8 @@ public class VectorBitPacker {
         r = l == 0 ? 0 : b - l;
         if (l != 0)
           out[outpos] = val >> (b - r);
+        else if (i < inlen - 1)
+          out[outpos] = 0;
         c = 0;
       }
     }
@@ -0,0 +1,53 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.vector;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import me.lemire.integercompression.BlockStatistics;
+
+/**
+ * BlockStatistics folding each block with the Vector API: the minimum and the
+ * maximum are computed lane-wise, and the sum with 64-bit lanes. The vectors
+ * have the preferred width of the hardware: each vector of integers is
+ * widened to two vectors of longs of the same width.
+ *
+ * @author Daniel Lemire
+ */
+public class VectorBlockStatistics extends BlockStatistics {
+  private static final VectorSpecies<Integer> SPECIES =
+      IntVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Long> LONG_SPECIES =
+      LongVector.SPECIES_PREFERRED;
+
+  @Override
+  public void accept(int[] block, int offset, int length) {
+    final int end = offset + SPECIES.loopBound(length);
+    IntVector min = IntVector.broadcast(SPECIES, Integer.MAX_VALUE);
+    IntVector max = IntVector.broadcast(SPECIES, Integer.MIN_VALUE);
+    LongVector sum = LongVector.zero(LONG_SPECIES);
+    int k = offset;
+    for (; k < end; k += SPECIES.length()) {
+      IntVector v = IntVector.fromArray(SPECIES, block, k);
+      min = min.min(v);
+      max = max.max(v);
+      sum = sum.add(v.convertShape(VectorOperators.I2L, LONG_SPECIES, 0))
+                .add(v.convertShape(VectorOperators.I2L, LONG_SPECIES, 1));
+    }
+    long s = sum.reduceLanes(VectorOperators.ADD);
+    int mi = min.reduceLanes(VectorOperators.MIN);
+    int ma = max.reduceLanes(VectorOperators.MAX);
+    for (; k < offset + length; ++k) {
+      s += block[k];
+      mi = Math.min(mi, block[k]);
+      ma = Math.max(ma, block[k]);
+    }
+    add(length, s, mi, ma);
+  }
+}
@@ -0,0 +1,167 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.vector;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vectorized versions of Delta#fastinverseDelta and
+ * LongDelta#fastinverseDelta (prefix sums).
+ *
+ * The prefix sum of each vector is computed with log2(lanes) shifted
+ * additions, then the running total (the last lane of the previous vector,
+ * broadcast to all lanes) is added. The remaining integers are processed
+ * with scalar code.
+ *
+ * With JDK 21 on an AVX-512 machine, the int version was about 30% faster
+ * than Delta#fastinverseDelta (512-bit vectors) while the long version was
+ * slower than LongDelta#fastinverseDelta. Vectors of 512 bits are used when
+ * the hardware supports them, vectors of 256 bits otherwise: on hardware
+ * with narrower vectors, they are not intrinsified and the scalar version
+ * should be used. See
+ * me.lemire.integercompression.VectorSupport#fastinverseDelta for the
+ * runtime selection.
+ *
+ * @author Daniel Lemire
+ */
+public final class VectorDelta {
+  private static final boolean WIDE =
+      IntVector.SPECIES_PREFERRED.vectorBitSize() >= 512;
+  private static final VectorSpecies<Integer> INT_512 = IntVector.SPECIES_512;
+  private static final VectorSpecies<Integer> INT_256 = IntVector.SPECIES_256;
+  private static final VectorSpecies<Long> LONG_512 = LongVector.SPECIES_512;
+  private static final VectorSpecies<Long> LONG_256 = LongVector.SPECIES_256;
+  private static final VectorShuffle<Integer> INT_512_LAST =
+      VectorShuffle.iota(INT_512, 15, 0, false);
+  private static final VectorShuffle<Integer> INT_256_LAST =
+      VectorShuffle.iota(INT_256, 7, 0, false);
+  private static final VectorShuffle<Long> LONG_512_LAST =
+      VectorShuffle.iota(LONG_512, 7, 0, false);
+  private static final VectorShuffle<Long> LONG_256_LAST =
+      VectorShuffle.iota(LONG_256, 3, 0, false);
+
+  private VectorDelta() {}
+
+  /**
+   * Undo differential coding (in-place). Effectively computes a prefix sum.
+   *
+   * @param data
+   *          to be modified
+   */
+  public static void fastinverseDelta(int[] data) {
+    if (data.length > 0)
+      fastinverseDelta(data, 1, data.length - 1, data[0]);
+  }
+
+  /**
+   * Undo differential coding (in-place). Effectively computes a prefix sum.
+   * Uses an initial value.
+   *
+   * @param data
+   *          to be modified
+   * @param start
+   *          starting index
+   * @param length
+   *          number of integers to process
+   * @param init
+   *          initial value
+   * @return next initial value
+   */
+  public static int fastinverseDelta(int[] data, int start, int length,
+                                     int init) {
+    int i = 0;
+    IntVector carry;
+    if (WIDE) {
+      carry = IntVector.broadcast(INT_512, init);
+      for (final int end = INT_512.loopBound(length); i < end; i += 16) {
+        IntVector v = IntVector.fromArray(INT_512, data, start + i);
+        v = v.add(v.unslice(1));
+        v = v.add(v.unslice(2));
+        v = v.add(v.unslice(4));
+        v = v.add(v.unslice(8));
+        v = v.add(carry);
+        v.intoArray(data, start + i);
+        carry = v.rearrange(INT_512_LAST);
+      }
+    } else {
+      carry = IntVector.broadcast(INT_256, init);
+      for (final int end = INT_256.loopBound(length); i < end; i += 8) {
+        IntVector v = IntVector.fromArray(INT_256, data, start + i);
+        v = v.add(v.unslice(1));
+        v = v.add(v.unslice(2));
+        v = v.add(v.unslice(4));
+        v = v.add(carry);
+        v.intoArray(data, start + i);
+        carry = v.rearrange(INT_256_LAST);
+      }
+    }
+    int a = carry.lane(0);
+    for (; i < length; ++i)
+      a = data[start + i] += a;
+    return a;
+  }
+
+  /**
+   * Undo differential coding (in-place). Effectively computes a prefix sum.
+   *
+   * @param data
+   *          to be modified
+   */
+  public static void fastinverseDelta(long[] data) {
+    if (data.length > 0)
+      fastinverseDelta(data, 1, data.length - 1, data[0]);
+  }
+
+  /**
+   * Undo differential coding (in-place). Effectively computes a prefix sum.
+   * Uses an initial value.
+   *
+   * @param data
+   *          to be modified
+   * @param start
+   *          starting index
+   * @param length
+   *          number of integers to process
+   * @param init
+   *          initial value
+   * @return next initial value
+   */
+  public static long fastinverseDelta(long[] data, int start, int length,
+                                      long init) {
+    int i = 0;
+    LongVector carry;
+    if (WIDE) {
+      carry = LongVector.broadcast(LONG_512, init);
+      for (final int end = LONG_512.loopBound(length); i < end; i += 8) {
+        LongVector v = LongVector.fromArray(LONG_512, data, start + i);
+        v = v.add(v.unslice(1));
+        v = v.add(v.unslice(2));
+        v = v.add(v.unslice(4));
+        v = v.add(carry);
+        v.intoArray(data, start + i);
+        carry = v.rearrange(LONG_512_LAST);
+      }
+    } else {
+      carry = LongVector.broadcast(LONG_256, init);
+      for (final int end = LONG_256.loopBound(length); i < end; i += 4) {
+        LongVector v = LongVector.fromArray(LONG_256, data, start + i);
+        v = v.add(v.unslice(1));
+        v = v.add(v.unslice(2));
+        v = v.add(carry);
+        v.intoArray(data, start + i);
+        carry = v.rearrange(LONG_256_LAST);
+      }
+    }
+    long a = carry.lane(0);
+    for (; i < length; ++i)
+      a = data[start + i] += a;
+    return a;
+  }
+}
@@ -38,6 +38,11 @@ import me.lemire.integercompression.IntWrapper;
  * lists, you should first compute deltas, @see
  * me.lemire.integercompression.differential.Delta#delta.
  *
+ * The compressed format differs from the one of FastPFOR. It can be read and
+ * written without the Vector API by
+ * me.lemire.integercompression.VerticalFastPFOR, see
+ * me.lemire.integercompression.VectorSupport#newFastPFOR.
+ *
  * For multi-threaded applications, each thread should use its own FastPFOR
  * object.
  *
@@ -45,6 +50,8 @@ import me.lemire.integercompression.IntWrapper;
  */
 public class VectorFastPFOR implements IntegerCODEC, SkippableIntegerCODEC {
   private final static int OVERHEAD_OF_EACH_EXCEPT = 8;
+  private final static int OVERHEAD_OF_EACH_PAGE_IN_INTS = 36;
+  private final static int OVERHEAD_OF_EACH_BLOCK_IN_INTS = 1;
   public final static int DEFAULT_PAGE_SIZE = 64 << 10;
 
   public final static int BLOCK_SIZE = 256;
@@ -231,7 +238,15 @@ public class VectorFastPFOR implements IntegerCODEC, SkippableIntegerCODEC {
 
   @Override
   public int maxHeadlessCompressedLength(IntWrapper compressedPositions, int inlength) {
-    throw new UnsupportedOperationException("Calculating the max compressed length is not supported yet.");
+    inlength = inlength - inlength % BLOCK_SIZE;
+    int pageCount = (inlength + pageSize - 1) / pageSize;
+    int blockCount = inlength / BLOCK_SIZE;
+    compressedPositions.add(inlength);
+    // same bound as FastPFOR: getBestBitSize never lets a block (with its
+    // exceptions) exceed BLOCK_SIZE integers.
+    int blockSizeInInts = OVERHEAD_OF_EACH_BLOCK_IN_INTS + BLOCK_SIZE;
+    return OVERHEAD_OF_EACH_PAGE_IN_INTS * pageCount +
+        blockSizeInInts * blockCount + 24;
   }
 
   private void loadMetaData(int[] in, int inexcept, int bytesize) {
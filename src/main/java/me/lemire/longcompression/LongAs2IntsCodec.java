@@ -7,29 +7,66 @@ import me.lemire.integercompression.Composition;
 import me.lemire.integercompression.IntCompressor;
 import me.lemire.integercompression.IntWrapper;
 import me.lemire.integercompression.IntegerCODEC;
+import me.lemire.integercompression.SkippableIntegerCODEC;
 import me.lemire.integercompression.VariableByte;
 
 /**
  * A {@link LongCODEC} which split each long in a highpart (32 first bits) and a low part (32 last bits).
- * 
+ *
+ * The high parts and then the low parts are compressed with {@link IntegerCODEC#compress}, each output being preceded
+ * by its length, and the resulting integers are stored two per long. The headless format is the same: the number of
+ * longs is given by the inner codecs.
+ *
+ * The working arrays are kept per thread (they only grow): an instance can be shared between threads.
+ *
  * @author Benoit Lacelle
  *
  */
-public class LongAs2IntsCodec implements LongCODEC {
+public class LongAs2IntsCodec implements LongCODEC, SkippableLongCODEC {
+    // An inner codec whose output bound is unknown (see maxCompressedLength) is given 2 * inlength + 1024 integers,
+    // which are doubled while it overflows them, up to MAX_INTS_PER_INT * inlength + 1024 integers.
+    private static final int MAX_INTS_PER_INT = 16;
+
+    private static final ThreadLocal<WorkingArea> WORKING_AREA = ThreadLocal.withInitial(WorkingArea::new);
+
     final IntegerCODEC highPartsCodec;
     final IntegerCODEC lowPartsCodec;
 
+    /**
+     * The output of each codec is preceded by its length. Its upper bound (see
+     * {@link #maxHeadlessCompressedLength(IntWrapper, int)}) is known if the codec is also a
+     * {@link SkippableIntegerCODEC}; otherwise, it is checked to be at most 16 integers per integer (plus 1024).
+     *
+     * @param highPartsCodec
+     *            codec for the high parts
+     * @param lowPartsCodec
+     *            codec for the low parts
+     */
     public LongAs2IntsCodec(IntegerCODEC highPartsCodec, IntegerCODEC lowPartsCodec) {
         this.highPartsCodec = highPartsCodec;
         this.lowPartsCodec = lowPartsCodec;
     }
 
+    /**
+     * Create a codec from codecs which may not implement IntegerCODEC (e.g., SkippableComposition). Their headless
+     * output is preceded by the number of integers.
+     *
+     * @param highPartsCodec
+     *            codec for the high parts
+     * @param lowPartsCodec
+     *            codec for the low parts
+     * @return a new codec
+     */
+    public static LongAs2IntsCodec of(SkippableIntegerCODEC highPartsCodec, SkippableIntegerCODEC lowPartsCodec) {
+        return new LongAs2IntsCodec(new CountPrefixedCODEC(highPartsCodec), new CountPrefixedCODEC(lowPartsCodec));
+    }
+
     /**
      * By default, we expect longs to be slightly above Integer.MAX_VALUE. Hence highParts to be small and positive
      * integers. For lowParts, we rely on {@link IntCompressor} default IntegerCODEC
      */
     public LongAs2IntsCodec() {
-        this(new VariableByte(), new Composition(new BinaryPacking(), new VariableByte()));
+        this(new VariableByte(), new BoundedComposition(new BinaryPacking(), new VariableByte()));
     }
 
     @Override
@@ -37,153 +74,240 @@ public class LongAs2IntsCodec implements LongCODEC {
         if (inlength == 0) {
             return;
         }
-        
-        int[] highParts = new int[inlength];
-        int[] lowParts = new int[inlength];
-
+        final WorkingArea area = WORKING_AREA.get();
+        area.parts(inlength);
         for (int i = 0; i < inlength; i++) {
             int inPosition = inpos.get() + i;
 
-            highParts[i] = RoaringIntPacking.high(in[inPosition]);
-            lowParts[i] = RoaringIntPacking.low(in[inPosition]);
+            area.highParts[i] = RoaringIntPacking.high(in[inPosition]);
+            area.lowParts[i] = RoaringIntPacking.low(in[inPosition]);
         }
 
-        // TODO What would be a relevant buffer size?
-        int[] buffer = new int[inlength * 16];
+        final int highEnd = compressPart(highPartsCodec, area.highParts, inlength, area, 0);
+        final int length = compressPart(lowPartsCodec, area.lowParts, inlength, area, highEnd);
 
+        // Write the buffer content, two integers per long. The trailing integer is packed with a 0
+        area.buffer[length] = 0;
         int outPosition = outpos.get();
+        for (int i = 0; i < length; i += 2) {
+            out[outPosition++] = RoaringIntPacking.pack(area.buffer[i], area.buffer[i + 1]);
+        }
 
-        boolean hasLeftover;
-        {
-            // The first integer is reserved to hold the number of compressed ints
-            IntWrapper highPartsOutPosition = new IntWrapper(1);
-
-            highPartsCodec.compress(highParts, new IntWrapper(), inlength, buffer, highPartsOutPosition);
+        inpos.add(inlength);
+        outpos.set(outPosition);
+    }
 
-            // Record the compressedHighparts length
-            buffer[0] = highPartsOutPosition.get() - 1;
+    @Override
+    public void headlessCompress(long[] in, IntWrapper inpos, int inlength, long[] out, IntWrapper outpos) {
+        compress(in, inpos, inlength, out, outpos);
+    }
 
-            for (int i = 0; i < highPartsOutPosition.get() / 2; i++) {
-                long pack = RoaringIntPacking.pack(buffer[i * 2], buffer[i * 2 + 1]);
-                out[outPosition++] = pack;
+    // Compress a part to the buffer after its length, written at lengthPosition. Returns the position following the
+    // part. The buffer keeps one more integer, for the next length or for padding.
+    private static int compressPart(IntegerCODEC codec, int[] parts, int inlength, WorkingArea area,
+            int lengthPosition) {
+        final int maxLength = maxCompressedLength(codec, inlength, area.partsPosition);
+        int capacity = maxLength >= 0 ? maxLength : 2 * inlength + 1024;
+        while (true) {
+            area.buffer(lengthPosition + 1 + capacity + 1);
+            area.partsPosition.set(0);
+            area.bufferPosition.set(lengthPosition + 1);
+            try {
+                codec.compress(parts, area.partsPosition, inlength, area.buffer, area.bufferPosition);
+                break;
+            } catch (ArrayIndexOutOfBoundsException e) {
+                if (maxLength >= 0 || capacity >= MAX_INTS_PER_INT * inlength + 1024) {
+                    throw new IllegalStateException(codec + " wrote more than " + capacity + " integers for "
+                            + inlength + " integers", e);
+                }
+                capacity = Math.min(2 * capacity, MAX_INTS_PER_INT * inlength + 1024);
             }
+        }
+        final int end = area.bufferPosition.get();
+        area.buffer[lengthPosition] = end - lengthPosition - 1;
+        return end;
+    }
 
-            if (1 == highPartsOutPosition.get() % 2) {
-                // Shift the trailing integer as first in the buffer
-                hasLeftover = true;
-                buffer[0] = buffer[highPartsOutPosition.get() - 1];
-            } else {
-                hasLeftover = false;
-            }
+    /**
+     * inlength is ignored by this codec: the length of each part is stored.
+     */
+    @Override
+    public void uncompress(long[] in, IntWrapper inpos, int inlength, long[] out, IntWrapper outpos) {
+        if (inlength == 0) {
+            return;
         }
+        decode(in, inpos, out, outpos, out.length - outpos.get());
+    }
 
-        {
-            // The first integer is reserved to hold the number of compressed ints
-            IntWrapper lowPartsOutPosition = new IntWrapper(1);
-            if (hasLeftover) {
-                // Keep the trailing int from highParts before the reserved int from lowParts compressed length
-                lowPartsOutPosition.set(2);
-            }
+    @Override
+    public void headlessUncompress(long[] in, IntWrapper inpos, int inlength, long[] out, IntWrapper outpos,
+            int num) {
+        if (num == 0) {
+            return;
+        }
+        decode(in, inpos, out, outpos, num);
+    }
 
-            lowPartsCodec.compress(lowParts, new IntWrapper(0), inlength, buffer, lowPartsOutPosition);
+    // maxNum is the size of the working arrays for the parts: the number of longs is given by the inner codecs
+    private void decode(long[] in, IntWrapper inpos, long[] out, IntWrapper outpos, int maxNum) {
+        final WorkingArea area = WORKING_AREA.get();
+        area.parts(maxNum);
+        final int longIndex = inpos.get();
+        final int num = uncompressPart(highPartsCodec, in, longIndex, 0, area.highParts, area);
+        final int lowIndex = 1 + readInt(in, longIndex, 0);
+        uncompressPart(lowPartsCodec, in, longIndex, lowIndex, area.lowParts, area);
+        final int intsLength = lowIndex + 1 + readInt(in, longIndex, lowIndex);
 
-            // Record the compressedHighparts length
-            buffer[hasLeftover ? 1 : 0] = lowPartsOutPosition.get() - (hasLeftover ? 2 : 1);
+        int outposition = outpos.get();
+        for (int i = 0; i < num; i++) {
+            out[outposition++] = RoaringIntPacking.pack(area.highParts[i], area.lowParts[i]);
+        }
 
-            for (int i = 0; i < lowPartsOutPosition.get() / 2; i++) {
-                long pack = RoaringIntPacking.pack(buffer[i * 2], buffer[i * 2 + 1]);
-                out[outPosition++] = pack;
-            }
+        inpos.add((intsLength + 1) / 2);
+        outpos.set(outposition);
+    }
 
-            if (1 == lowPartsOutPosition.get() % 2) {
-                // The trailing integer is packed with a 0
-                long pack = RoaringIntPacking.pack(buffer[lowPartsOutPosition.get() - 1], 0);
-                out[outPosition++] = pack;
-            }
+    // Uncompress the part whose length is at intIndex, in the integers starting at the long longIndex. Returns the
+    // number of integers.
+    private static int uncompressPart(IntegerCODEC codec, long[] in, int longIndex, int intIndex, int[] parts,
+            WorkingArea area) {
+        final int length = readInt(in, longIndex, intIndex);
+        area.buffer(length);
+        for (int i = 0; i < length; i++) {
+            area.buffer[i] = readInt(in, longIndex, intIndex + 1 + i);
         }
+        area.bufferPosition.set(0);
+        area.partsPosition.set(0);
+        codec.uncompress(area.buffer, area.bufferPosition, length, parts, area.partsPosition);
+        return area.partsPosition.get();
+    }
 
-        inpos.add(inlength);
-        outpos.set(outPosition);
+    // The integer at intIndex in the stream starting at the long longIndex: the first integer of a pair is in the high
+    // bits
+    private static int readInt(long[] in, int longIndex, int intIndex) {
+        final long pair = in[longIndex + intIndex / 2];
+        return (intIndex & 1) == 0 ? RoaringIntPacking.high(pair) : RoaringIntPacking.low(pair);
     }
 
-    /**
-     * inlength is ignored by this codec. We may rely on it instead of storing the compressedLowPart length
-     */
     @Override
-    public void uncompress(long[] in, IntWrapper inpos, int inlength, long[] out, IntWrapper outpos) {
+    public int maxHeadlessCompressedLength(IntWrapper compressedPositions, int inlength) {
         if (inlength == 0) {
-            return;
+            return 0;
         }
+        final IntWrapper position = WORKING_AREA.get().partsPosition;
+        // +2 for the lengths of the parts
+        final int maxInts = 2 + maxPartLength(highPartsCodec, inlength, position)
+                + maxPartLength(lowPartsCodec, inlength, position);
+        compressedPositions.add(inlength);
+        return (maxInts + 1) / 2;
+    }
 
-        int longIndex = inpos.get();
+    // The output of a codec whose bound is unknown is checked against MAX_INTS_PER_INT * inlength + 1024 integers
+    private static int maxPartLength(IntegerCODEC codec, int inlength, IntWrapper position) {
+        final int maxLength = maxCompressedLength(codec, inlength, position);
+        return maxLength >= 0 ? maxLength : MAX_INTS_PER_INT * inlength + 1024;
+    }
 
-        int nbCompressedHighParts = RoaringIntPacking.high(in[longIndex]);
-        int[] compressedHighParts = new int[nbCompressedHighParts];
+    // An upper bound of the output of codec.compress, or -1 if it is unknown. The codecs which are also a
+    // SkippableIntegerCODEC write at most a header before their headless format.
+    private static int maxCompressedLength(IntegerCODEC codec, int inlength, IntWrapper position) {
+        if (codec instanceof BoundedComposition) {
+            return ((BoundedComposition) codec).maxCompressedLength(inlength, position);
+        }
+        if (codec instanceof CountPrefixedCODEC) {
+            position.set(0);
+            return 1 + ((CountPrefixedCODEC) codec).codec.maxHeadlessCompressedLength(position, inlength);
+        }
+        if (codec instanceof SkippableIntegerCODEC) {
+            position.set(0);
+            return 1 + ((SkippableIntegerCODEC) codec).maxHeadlessCompressedLength(position, inlength);
+        }
+        return -1;
+    }
 
-        // !highPart as we just read the highPart for nbCompressedHighParts
-        boolean highPart = false;
-        for (int i = 0; i < nbCompressedHighParts; i++) {
-            int nextInt;
-            if (highPart) {
-                nextInt = RoaringIntPacking.high(in[longIndex + (i + 1) / 2]);
-            } else {
-                nextInt = RoaringIntPacking.low(in[longIndex + (i + 1) / 2]);
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName();
+    }
+
+    // Working arrays of a thread, which only grow
+    private static final class WorkingArea {
+        int[] highParts = new int[0];
+        int[] lowParts = new int[0];
+        int[] buffer = new int[0];
+        final IntWrapper partsPosition = new IntWrapper();
+        final IntWrapper bufferPosition = new IntWrapper();
+
+        void parts(int length) {
+            if (highParts.length < length) {
+                highParts = new int[length];
+                lowParts = new int[length];
             }
-            compressedHighParts[i] = nextInt;
-
-            highPart = !highPart;
-        }
-
-        // TODO What would be a relevant buffer size?
-        int[] buffer = new int[inlength * 16];
-
-        IntWrapper highPartsOutPosition = new IntWrapper();
-        highPartsCodec.uncompress(compressedHighParts,
-                new IntWrapper(),
-                compressedHighParts.length,
-                buffer,
-                highPartsOutPosition);
-        int[] highParts = Arrays.copyOf(buffer, highPartsOutPosition.get());
-
-        // +1 as we initially read nbCompressedHighParts
-        int intIndexNbCompressedLowParts = longIndex * 2 + 1 + nbCompressedHighParts;
-        int nbCompressedLowParts;
-        if (highPart) {
-            nbCompressedLowParts = RoaringIntPacking.high(in[intIndexNbCompressedLowParts / 2]);
-        } else {
-            nbCompressedLowParts = RoaringIntPacking.low(in[intIndexNbCompressedLowParts / 2]);
-        }
-        highPart = !highPart;
-
-        int[] compressedLowParts = new int[nbCompressedLowParts];
-        for (int i = 0; i < nbCompressedLowParts; i++) {
-            int nextInt;
-            if (highPart) {
-                nextInt = RoaringIntPacking.high(in[(intIndexNbCompressedLowParts + 1 + i) / 2]);
-            } else {
-                nextInt = RoaringIntPacking.low(in[(intIndexNbCompressedLowParts + 1 + i) / 2]);
+        }
+
+        // The content of the buffer is kept: the high parts are compressed before the buffer is grown for the low
+        // parts
+        void buffer(int length) {
+            if (buffer.length < length) {
+                buffer = Arrays.copyOf(buffer, length);
             }
-            compressedLowParts[i] = nextInt;
+        }
+    }
+
+    /**
+     * A Composition of SkippableIntegerCODECs, whose output bound is known: the output of each codec, and the 0
+     * written when the first one has no output, fit in a header and its headless format.
+     */
+    private static final class BoundedComposition extends Composition {
+        private final SkippableIntegerCODEC f1;
+        private final SkippableIntegerCODEC f2;
+
+        <C1 extends IntegerCODEC & SkippableIntegerCODEC, C2 extends IntegerCODEC & SkippableIntegerCODEC> BoundedComposition(
+                C1 f1, C2 f2) {
+            super(f1, f2);
+            this.f1 = f1;
+            this.f2 = f2;
+        }
 
-            highPart = !highPart;
+        int maxCompressedLength(int inlength, IntWrapper position) {
+            position.set(0);
+            final int maxLength = 1 + f1.maxHeadlessCompressedLength(position, inlength);
+            final int remaining = inlength - position.get();
+            position.set(0);
+            return maxLength + 1 + f2.maxHeadlessCompressedLength(position, remaining);
         }
+    }
 
-        IntWrapper lowPartsOutPosition = new IntWrapper();
-        lowPartsCodec.uncompress(compressedLowParts,
-                new IntWrapper(),
-                compressedLowParts.length,
-                buffer,
-                lowPartsOutPosition);
-        int[] lowParts = Arrays.copyOf(buffer, lowPartsOutPosition.get());
-        assert highParts.length == lowParts.length;
+    /**
+     * Calls a {@link SkippableIntegerCODEC}, preceding its headless output by the number of integers.
+     */
+    private static final class CountPrefixedCODEC implements IntegerCODEC {
+        final SkippableIntegerCODEC codec;
 
-        int outposition = outpos.get();
-        for (int i = 0; i < highParts.length; i++) {
-            out[outposition++] = RoaringIntPacking.pack(highParts[i], lowParts[i]);
+        CountPrefixedCODEC(SkippableIntegerCODEC codec) {
+            this.codec = codec;
         }
 
-        inpos.add(inlength);
-        outpos.set(outposition);
-    }
+        @Override
+        public void compress(int[] in, IntWrapper inpos, int inlength, int[] out, IntWrapper outpos) {
+            out[outpos.get()] = inlength;
+            outpos.increment();
+            codec.headlessCompress(in, inpos, inlength, out, outpos);
+        }
 
+        @Override
+        public void uncompress(int[] in, IntWrapper inpos, int inlength, int[] out, IntWrapper outpos) {
+            if (inlength == 0) {
+                return;
+            }
+            final int num = in[inpos.get()];
+            inpos.increment();
+            codec.headlessUncompress(in, inpos, inlength - 1, out, outpos, num);
+        }
+
+        @Override
+        public String toString() {
+            return codec.toString();
+        }
+    }
 }
@@ -143,4 +143,41 @@ public final class LongBitPacking {
                     shift += bit;
                 }
         }
+
+        /**
+         * Compute the number of bits needed to store a long (ceil(log(x+1)).
+         *
+         * @param i
+         *                source value
+         * @return number of bits (between 0 and 64)
+         */
+        static int bits(long i) {
+                return 64 - Long.numberOfLeadingZeros(i);
+        }
+
+        /**
+         * Read one long from longs bit packed by groups of 64 (as with
+         * fastpackwithoutmask) without unpacking them.
+         *
+         * @param in
+         *                packed data
+         * @param pos
+         *                position of the first group
+         * @param index
+         *                index of the long
+         * @param bit
+         *                number of bits per long (between 0 and 64)
+         * @return the long
+         */
+        static long extract(long[] in, int pos, int index, int bit) {
+                if (bit == 0)
+                        return 0;
+                final int firstbit = (index & 63) * bit;
+                final int wordpos = pos + (index >>> 6) * bit + (firstbit >>> 6);
+                final int shift = firstbit & 63;
+                long value = in[wordpos] >>> shift;
+                if (shift + bit > 64)
+                        value |= in[wordpos + 1] << (64 - shift);
+                return bit < 64 ? value & ((1L << bit) - 1) : value;
+        }
 }
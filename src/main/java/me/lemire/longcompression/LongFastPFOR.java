@@ -0,0 +1,372 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.longcompression;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.Util;
+
+/**
+ * This is a patching scheme for longs, following the design of FastPFOR: it
+ * encodes longs in blocks of 256 longs within pages of up to 65536 longs. Each
+ * block is bit packed with a width b chosen so that the few longs that do not
+ * fit (the exceptions, e.g., an outlier timestamp) are stored apart: their
+ * positions in a byte array and their high bits packed with the other
+ * exceptions of the page having the same width. A single large value thus
+ * does not force its whole block to a large bit width, as it does with
+ * LongBinaryPacking. For arrays containing a number of longs that is not
+ * divisible by BLOCK_SIZE, you should use it in conjunction with another
+ * CODEC:
+ *
+ * <pre>
+ * SkippableLongCODEC lc =
+ * new SkippableLongComposition(new LongFastPFOR(), new LongVariableByte()).
+ * </pre>
+ *
+ * Note that this does not use differential coding: if you are working on
+ * sorted lists, you should first compute deltas, @see
+ * me.lemire.longcompression.differential.LongDelta#delta.
+ *
+ * <p>
+ * For details, please see me.lemire.integercompression.FastPFOR
+ * </p>
+ *
+ * For multi-threaded applications, each thread should use its own
+ * LongFastPFOR object.
+ *
+ * @author Daniel Lemire
+ */
+public class LongFastPFOR implements LongCODEC, SkippableLongCODEC {
+        final static int OVERHEAD_OF_EACH_EXCEPT = 8;
+        private static final int PACKING_SIZE = 64;
+        // 1 long for the header, 1 for the byte array size, 1 for the bitmap,
+        // 1 for the byte array padding and, for each exception width, 1 for
+        // the size and 1 for the padding of the packed exceptions
+        private static final int OVERHEAD_OF_EACH_PAGE_IN_LONGS = 4 + 2 * 63;
+        // 1 byte for the bit width, 1 byte for the number of exceptions
+        private static final int OVERHEAD_OF_EACH_BLOCK_IN_LONGS = 1;
+        /**
+         *
+         */
+        public final static int DEFAULT_PAGE_SIZE = 65536;
+        /**
+         *
+         */
+        public final static int BLOCK_SIZE = 256;
+
+        final int pageSize;
+        final long[][] dataTobePacked = new long[65][];
+        final ByteBuffer byteContainer;
+
+        // Working area for compress and uncompress.
+        final int[] dataPointers = new int[65];
+        final int[] freqs = new int[65];
+        final int[] bestbbestcexceptmaxb = new int[3];
+        final long[] buffer = new long[BLOCK_SIZE];
+
+        /**
+         * Construct the LongFastPFOR CODEC.
+         *
+         * @param pagesize
+         *                the desired page size (recommended value is
+         *                LongFastPFOR.DEFAULT_PAGE_SIZE)
+         */
+        LongFastPFOR(int pagesize) {
+                pageSize = pagesize;
+                byteContainer = ByteBuffer.allocateDirect(3 * pageSize
+                        / BLOCK_SIZE + pageSize);
+                byteContainer.order(ByteOrder.LITTLE_ENDIAN);
+                // heuristic, a multiple of 64
+                for (int k = 1; k < dataTobePacked.length; ++k)
+                        dataTobePacked[k] = new long[Util.greatestMultiple(pageSize / 16 + 63, 64)];
+        }
+
+        /**
+         * Construct the LongFastPFOR CODEC with default parameters.
+         */
+        public LongFastPFOR() {
+                this(DEFAULT_PAGE_SIZE);
+        }
+
+        /**
+         * Compress data in blocks of BLOCK_SIZE longs (if fewer than
+         * BLOCK_SIZE longs are provided, nothing is done).
+         *
+         * @see LongCODEC#compress(long[], IntWrapper, int, long[], IntWrapper)
+         */
+        @Override
+        public void headlessCompress(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+                final int finalinpos = inpos.get() + inlength;
+                while (inpos.get() != finalinpos) {
+                        int thissize = Math.min(pageSize,
+                                finalinpos - inpos.get());
+                        encodePage(in, inpos, thissize, out, outpos);
+                }
+        }
+
+        private void getBestBFromData(long[] in, int pos) {
+                Arrays.fill(freqs, 0);
+                for (int k = pos, k_end = pos + BLOCK_SIZE; k < k_end; ++k) {
+                        freqs[LongBitPacking.bits(in[k])]++;
+                }
+                bestbbestcexceptmaxb[0] = 64;
+                while (freqs[bestbbestcexceptmaxb[0]] == 0)
+                        bestbbestcexceptmaxb[0]--;
+                bestbbestcexceptmaxb[2] = bestbbestcexceptmaxb[0];
+                int bestcost = bestbbestcexceptmaxb[0] * BLOCK_SIZE;
+                int cexcept = 0;
+                bestbbestcexceptmaxb[1] = cexcept;
+                for (int b = bestbbestcexceptmaxb[0] - 1; b >= 0; --b) {
+                        cexcept += freqs[b + 1];
+                        if (cexcept == BLOCK_SIZE)
+                                break;
+                        // the extra 8 is the cost of storing maxbits
+                        int thiscost = cexcept * OVERHEAD_OF_EACH_EXCEPT
+                                + cexcept * (bestbbestcexceptmaxb[2] - b) + b
+                                * BLOCK_SIZE + 8;
+                        if (bestbbestcexceptmaxb[2] - b == 1)
+                                thiscost -= cexcept;
+                        if (thiscost < bestcost) {
+                                bestcost = thiscost;
+                                bestbbestcexceptmaxb[0] = b;
+                                bestbbestcexceptmaxb[1] = cexcept;
+                        }
+                }
+        }
+
+        private void encodePage(long[] in, IntWrapper inpos, int thissize,
+                long[] out, IntWrapper outpos) {
+                final int headerpos = outpos.get();
+                outpos.increment();
+                int tmpoutpos = outpos.get();
+
+                // Clear working area.
+                Arrays.fill(dataPointers, 0);
+                byteContainer.clear();
+
+                int tmpinpos = inpos.get();
+                for (final int finalinpos = tmpinpos + thissize - BLOCK_SIZE; tmpinpos <= finalinpos; tmpinpos += BLOCK_SIZE) {
+                        getBestBFromData(in, tmpinpos);
+                        final int tmpbestb = bestbbestcexceptmaxb[0];
+                        byteContainer.put((byte) bestbbestcexceptmaxb[0]);
+                        byteContainer.put((byte) bestbbestcexceptmaxb[1]);
+                        long[] block = in;
+                        int blockpos = tmpinpos;
+                        if (bestbbestcexceptmaxb[1] > 0) {
+                                byteContainer.put((byte) bestbbestcexceptmaxb[2]);
+                                final int index = bestbbestcexceptmaxb[2]
+                                        - bestbbestcexceptmaxb[0];
+                                if (dataPointers[index]
+                                        + bestbbestcexceptmaxb[1] >= dataTobePacked[index].length) {
+                                        int newsize = 2 * (dataPointers[index] + bestbbestcexceptmaxb[1]);
+                                        // make sure it is a multiple of 64
+                                        newsize = Util.greatestMultiple(newsize + 63, 64);
+                                        dataTobePacked[index] = Arrays.copyOf(
+                                                dataTobePacked[index], newsize);
+                                }
+                                // LongBitPacking does not mask: the low bits
+                                // are copied to the buffer
+                                final long mask = (1L << tmpbestb) - 1;
+                                for (int k = 0; k < BLOCK_SIZE; ++k) {
+                                        final long value = in[k + tmpinpos];
+                                        buffer[k] = value & mask;
+                                        if ((value >>> tmpbestb) != 0) {
+                                                // we have an exception
+                                                byteContainer.put((byte) k);
+                                                dataTobePacked[index][dataPointers[index]++] = value >>> tmpbestb;
+                                        }
+                                }
+                                block = buffer;
+                                blockpos = 0;
+                        }
+                        for (int k = 0; k < BLOCK_SIZE; k += PACKING_SIZE) {
+                                LongBitPacking.fastpackwithoutmask(block, blockpos + k,
+                                        out, tmpoutpos, tmpbestb);
+                                tmpoutpos += tmpbestb;
+                        }
+                }
+                inpos.set(tmpinpos);
+                out[headerpos] = tmpoutpos - headerpos;
+                final int bytesize = byteContainer.position();
+                while ((byteContainer.position() & 7) != 0)
+                        byteContainer.put((byte) 0);
+                out[tmpoutpos++] = bytesize;
+                final int howmanylongs = byteContainer.position() / 8;
+                byteContainer.flip();
+                byteContainer.asLongBuffer().get(out, tmpoutpos, howmanylongs);
+                tmpoutpos += howmanylongs;
+                long bitmap = 0;
+                for (int k = 2; k <= 64; ++k) {
+                        if (dataPointers[k] != 0)
+                                bitmap |= (1L << (k - 1));
+                }
+                out[tmpoutpos++] = bitmap;
+
+                for (int k = 2; k <= 64; ++k) {
+                        if (dataPointers[k] != 0) {
+                                out[tmpoutpos++] = dataPointers[k];// size
+                                int j = 0;
+                                for (; j + PACKING_SIZE <= dataPointers[k]; j += PACKING_SIZE) {
+                                        LongBitPacking.fastpackwithoutmask(dataTobePacked[k],
+                                                j, out, tmpoutpos, k);
+                                        tmpoutpos += k;
+                                }
+                                if (j < dataPointers[k]) {
+                                        // the last group is packed apart so
+                                        // that only the words it needs are
+                                        // written
+                                        Arrays.fill(dataTobePacked[k], dataPointers[k],
+                                                j + PACKING_SIZE, 0);
+                                        LongBitPacking.fastpackwithoutmask(dataTobePacked[k],
+                                                j, buffer, 0, k);
+                                        final int words = lastGroupLength(dataPointers[k] - j, k);
+                                        System.arraycopy(buffer, 0, out, tmpoutpos, words);
+                                        tmpoutpos += words;
+                                }
+                        }
+                }
+                outpos.set(tmpoutpos);
+        }
+
+        // number of longs needed for size values of k bits
+        private static int lastGroupLength(int size, int k) {
+                return (size * k + 63) / 64;
+        }
+
+        /**
+         * Uncompress data in blocks of longs. In this particular case, the
+         * inlength parameter is ignored: it is deduced from the compressed
+         * data.
+         *
+         * @see LongCODEC#compress(long[], IntWrapper, int, long[], IntWrapper)
+         */
+        @Override
+        public void headlessUncompress(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos, int mynvalue) {
+                mynvalue = Util.greatestMultiple(mynvalue, BLOCK_SIZE);
+                int finalout = outpos.get() + mynvalue;
+                while (outpos.get() != finalout) {
+                        int thissize = Math.min(pageSize,
+                                finalout - outpos.get());
+                        decodePage(in, inpos, out, outpos, thissize);
+                }
+        }
+
+        @Override
+        public int maxHeadlessCompressedLength(IntWrapper compressedPositions, int inlength) {
+                inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+
+                int pageCount = (inlength + pageSize - 1) / pageSize;
+                int blockCount = inlength / BLOCK_SIZE;
+
+                // getBestBFromData limits the memory used for exceptions so
+                // that the total size of the block does not exceed BLOCK_SIZE
+                // longs.
+                int blockSizeInLongs = OVERHEAD_OF_EACH_BLOCK_IN_LONGS + BLOCK_SIZE;
+                compressedPositions.add(inlength);
+                return OVERHEAD_OF_EACH_PAGE_IN_LONGS * pageCount + blockSizeInLongs * blockCount;
+        }
+
+        private void decodePage(long[] in, IntWrapper inpos, long[] out,
+                IntWrapper outpos, int thissize) {
+                final int initpos = inpos.get();
+                final int wheremeta = (int) in[inpos.get()];
+                inpos.increment();
+                int inexcept = initpos + wheremeta;
+                final int bytesize = (int) in[inexcept++];
+                byteContainer.clear();
+                byteContainer.asLongBuffer().put(in, inexcept, (bytesize + 7) / 8);
+                inexcept += (bytesize + 7) / 8;
+
+                final long bitmap = in[inexcept++];
+                for (int k = 2; k <= 64; ++k) {
+                        if ((bitmap & (1L << (k - 1))) != 0) {
+                                int size = (int) in[inexcept++];
+                                int roundedup = Util.greatestMultiple(size + 63, 64);
+                                if (dataTobePacked[k].length < roundedup)
+                                        dataTobePacked[k] = new long[roundedup];
+                                int j = 0;
+                                for (; j + PACKING_SIZE <= size; j += PACKING_SIZE) {
+                                        LongBitPacking.fastunpack(in, inexcept,
+                                                dataTobePacked[k], j, k);
+                                        inexcept += k;
+                                }
+                                if (j < size) {
+                                        // the last group may end before k
+                                        // longs: it is copied to the buffer
+                                        final int words = lastGroupLength(size - j, k);
+                                        System.arraycopy(in, inexcept, buffer, 0, words);
+                                        LongBitPacking.fastunpack(buffer, 0,
+                                                dataTobePacked[k], j, k);
+                                        inexcept += words;
+                                }
+                        }
+                }
+                Arrays.fill(dataPointers, 0);
+                int tmpoutpos = outpos.get();
+                int tmpinpos = inpos.get();
+
+                for (int run = 0, run_end = thissize / BLOCK_SIZE; run < run_end; ++run, tmpoutpos += BLOCK_SIZE) {
+                        final int b = byteContainer.get();
+                        final int cexcept = byteContainer.get() & 0xFF;
+                        for (int k = 0; k < BLOCK_SIZE; k += PACKING_SIZE) {
+                                LongBitPacking.fastunpack(in, tmpinpos, out,
+                                        tmpoutpos + k, b);
+                                tmpinpos += b;
+                        }
+                        if (cexcept > 0) {
+                                final int maxbits = byteContainer.get();
+                                final int index = maxbits - b;
+                                if (index == 1) {
+                                        for (int k = 0; k < cexcept; ++k) {
+                                                final int pos = byteContainer.get() & 0xFF;
+                                                out[pos + tmpoutpos] |= 1L << b;
+                                        }
+                                } else {
+                                        for (int k = 0; k < cexcept; ++k) {
+                                                final int pos = byteContainer.get() & 0xFF;
+                                                final long exceptvalue = dataTobePacked[index][dataPointers[index]++];
+                                                out[pos + tmpoutpos] |= exceptvalue << b;
+                                        }
+                                }
+                        }
+                }
+                outpos.set(tmpoutpos);
+                inpos.set(inexcept);
+        }
+
+        @Override
+        public void compress(long[] in, IntWrapper inpos, int inlength, long[] out,
+                IntWrapper outpos) {
+                inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+                if (inlength == 0)
+                        return;
+                out[outpos.get()] = inlength;
+                outpos.increment();
+                headlessCompress(in, inpos, inlength, out, outpos);
+        }
+
+        @Override
+        public void uncompress(long[] in, IntWrapper inpos, int inlength, long[] out,
+                IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                final int outlength = (int) in[inpos.get()];
+                inpos.increment();
+                headlessUncompress(in, inpos, inlength, out, outpos, outlength);
+        }
+
+        @Override
+        public String toString() {
+                return this.getClass().getSimpleName();
+        }
+}
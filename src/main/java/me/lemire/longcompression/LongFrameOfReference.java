@@ -0,0 +1,198 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.longcompression;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.Util;
+
+/**
+ * Frame-of-reference scheme for longs: the longs are encoded in blocks of 256
+ * longs, and each block stores its minimum followed by the differences to the
+ * minimum, bit packed. For arrays containing an arbitrary number of longs, you
+ * should use it in conjunction with another CODEC:
+ *
+ * <pre>
+ * SkippableLongCODEC lc =
+ * new SkippableLongComposition(new LongFrameOfReference(), new LongVariableByte()).
+ * </pre>
+ *
+ * The blocks are stored by groups of GROUP_SIZE blocks (the last group may
+ * have fewer blocks). As with LongBinaryPacking, the bit widths of the blocks
+ * of a group are packed in a header long (8 bits per block, the first block in
+ * the most significant byte). Each block follows, made of its minimum and 4
+ * groups of 64 longs packed with b bits (4 * b longs): the longs of a group can
+ * be accessed in constant time (see select).
+ *
+ * <p>
+ * For details, please see me.lemire.integercompression.FrameOfReference
+ * </p>
+ *
+ * This codec is not thread-safe.
+ *
+ * @author Daniel Lemire
+ */
+public final class LongFrameOfReference implements LongCODEC, SkippableLongCODEC {
+        /**
+         * Number of longs per block.
+         */
+        public final static int BLOCK_SIZE = 256;
+        /**
+         * Number of blocks sharing a header long.
+         */
+        public final static int GROUP_SIZE = 8;
+        private final static int PACKING_SIZE = 64;
+
+        private final long[] buffer = new long[BLOCK_SIZE];
+
+        @Override
+        public void compress(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+                if (inlength == 0)
+                        return;
+                out[outpos.get()] = inlength;
+                outpos.increment();
+                headlessCompress(in, inpos, inlength, out, outpos);
+        }
+
+        @Override
+        public void headlessCompress(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+                int tmpoutpos = outpos.get();
+                final int finalinpos = inpos.get() + inlength;
+                for (int s = inpos.get(); s < finalinpos; s += GROUP_SIZE * BLOCK_SIZE) {
+                        final int blocks = Math.min(GROUP_SIZE, (finalinpos - s) / BLOCK_SIZE);
+                        final int headerpos = tmpoutpos++;
+                        long header = 0;
+                        for (int j = 0; j < blocks; ++j) {
+                                final int mbits = compressBlock(in, s + j * BLOCK_SIZE,
+                                        out, tmpoutpos);
+                                header |= (long) mbits << (56 - 8 * j);
+                                tmpoutpos += 1 + mbits * (BLOCK_SIZE / PACKING_SIZE);
+                        }
+                        out[headerpos] = header;
+                }
+                inpos.add(inlength);
+                outpos.set(tmpoutpos);
+        }
+
+        // writes the minimum and the packed differences, returns the bit width
+        private int compressBlock(long[] in, int inpos, long[] out, int outpos) {
+                long min = in[inpos];
+                for (int k = inpos + 1; k < inpos + BLOCK_SIZE; ++k)
+                        min = Math.min(min, in[k]);
+                long mask = 0;
+                for (int k = 0; k < BLOCK_SIZE; ++k) {
+                        buffer[k] = in[inpos + k] - min;
+                        mask |= buffer[k];
+                }
+                final int mbits = LongBitPacking.bits(mask);
+                out[outpos++] = min;
+                for (int k = 0; k < BLOCK_SIZE; k += PACKING_SIZE) {
+                        LongBitPacking.fastpackwithoutmask(buffer, k, out, outpos, mbits);
+                        outpos += mbits;
+                }
+                return mbits;
+        }
+
+        @Override
+        public void uncompress(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                final int outlength = (int) in[inpos.get()];
+                inpos.increment();
+                headlessUncompress(in, inpos, inlength, out, outpos, outlength);
+        }
+
+        @Override
+        public void headlessUncompress(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos, int num) {
+                final int outlength = Util.greatestMultiple(num, BLOCK_SIZE);
+                int tmpinpos = inpos.get();
+                final int finaloutpos = outpos.get() + outlength;
+                for (int s = outpos.get(); s < finaloutpos; s += GROUP_SIZE * BLOCK_SIZE) {
+                        final int blocks = Math.min(GROUP_SIZE, (finaloutpos - s) / BLOCK_SIZE);
+                        final long header = in[tmpinpos++];
+                        for (int j = 0; j < blocks; ++j) {
+                                final int mbits = (int) (header >>> (56 - 8 * j)) & 0xFF;
+                                final long min = in[tmpinpos++];
+                                final int blockstart = s + j * BLOCK_SIZE;
+                                for (int k = 0; k < BLOCK_SIZE; k += PACKING_SIZE) {
+                                        LongBitPacking.fastunpack(in, tmpinpos, out,
+                                                blockstart + k, mbits);
+                                        tmpinpos += mbits;
+                                }
+                                if (min != 0)
+                                        for (int k = blockstart; k < blockstart + BLOCK_SIZE; ++k)
+                                                out[k] += min;
+                        }
+                }
+                outpos.add(outlength);
+                inpos.set(tmpinpos);
+        }
+
+        @Override
+        public int maxHeadlessCompressedLength(IntWrapper compressedPositions, int inlength) {
+                final int blockCount = inlength / BLOCK_SIZE;
+                compressedPositions.add(blockCount * BLOCK_SIZE);
+                return (blockCount + GROUP_SIZE - 1) / GROUP_SIZE
+                        + blockCount * (1 + BLOCK_SIZE);
+        }
+
+        /**
+         * Number of longs used by a compressed group of blocks.
+         *
+         * @param in
+         *                compressed data
+         * @param grouppos
+         *                position of the group
+         * @param blocks
+         *                number of blocks in the group (GROUP_SIZE, except
+         *                for the last group)
+         * @return the position of the next group minus grouppos
+         */
+        public static int groupLength(long[] in, int grouppos, int blocks) {
+                final long header = in[grouppos];
+                // the bit widths of the missing blocks are 0
+                int widths = 0;
+                for (int j = 0; j < GROUP_SIZE; ++j)
+                        widths += (int) (header >>> (8 * j)) & 0xFF;
+                return 1 + blocks + widths * (BLOCK_SIZE / PACKING_SIZE);
+        }
+
+        /**
+         * Return one long of a compressed group of blocks, without
+         * uncompressing it.
+         *
+         * @param in
+         *                compressed data
+         * @param grouppos
+         *                position of the group
+         * @param index
+         *                index of the long in the group (between 0 and
+         *                GROUP_SIZE * BLOCK_SIZE - 1)
+         * @return the long
+         */
+        public static long select(long[] in, int grouppos, int index) {
+                final long header = in[grouppos];
+                final int block = index / BLOCK_SIZE;
+                int blockpos = grouppos + 1;
+                for (int j = 0; j < block; ++j)
+                        blockpos += 1 + ((int) (header >>> (56 - 8 * j)) & 0xFF)
+                                * (BLOCK_SIZE / PACKING_SIZE);
+                final int mbits = (int) (header >>> (56 - 8 * block)) & 0xFF;
+                return in[blockpos] + LongBitPacking.extract(in, blockpos + 1,
+                        index % BLOCK_SIZE, mbits);
+        }
+
+        @Override
+        public String toString() {
+                return this.getClass().getSimpleName();
+        }
+}
@@ -0,0 +1,153 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.longcompression.differential;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.Util;
+import me.lemire.longcompression.IntegratedLongCODEC;
+import me.lemire.longcompression.LongWrapper;
+
+/**
+ * Scheme based on a commonly used idea: can be extremely fast.
+ * 
+ * You should only use this scheme on sorted arrays. Use LongBinaryPacking if
+ * you have unsorted arrays.
+ * 
+ * It encodes longs in blocks of 64 longs, with the same layout as
+ * LongBinaryPacking applied to the deltas. For arrays containing an arbitrary
+ * number of longs, you should use it in conjunction with another CODEC:
+ * 
+ * <pre>
+ * IntegratedLongCODEC is = 
+ * new IntegratedLongComposition(new IntegratedLongBinaryPacking(), 
+ * new IntegratedLongVariableByte())
+ * </pre>
+ * 
+ * <p>
+ * For details, please see me.lemire.integercompression.differential.IntegratedBinaryPacking
+ * </p>
+ * 
+ * @author Daniel Lemire
+ * 
+ */
+public class IntegratedLongBinaryPacking implements IntegratedLongCODEC,
+        SkippableIntegratedLongCODEC {
+
+    public static final int BLOCK_SIZE = 64;
+    private static final int MAX_BIT_WIDTH = Long.SIZE;
+    // number of blocks sharing a header
+    private static final int BLOCKS_PER_HEADER = 8;
+
+    @Override
+    public void compress(long[] in, IntWrapper inpos, int inlength, long[] out,
+            IntWrapper outpos) {
+        inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+        if (inlength == 0)
+            return;
+        out[outpos.get()] = inlength;
+        outpos.increment();
+        headlessCompress(in, inpos, inlength, out, outpos, new LongWrapper(0));
+    }
+
+    @Override
+    public void uncompress(long[] in, IntWrapper inpos, int inlength, long[] out,
+            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        final int outlength = (int) in[inpos.get()];
+        inpos.increment();
+        headlessUncompress(in, inpos, inlength, out, outpos, outlength, new LongWrapper(0));
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName();
+    }
+
+    @Override
+    public void headlessCompress(long[] in, IntWrapper inpos, int inlength,
+            long[] out, IntWrapper outpos, LongWrapper initvalue) {
+        inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+        if (inlength == 0)
+            return;
+        int tmpoutpos = outpos.get();
+
+        long initoffset = initvalue.get();
+        initvalue.set(in[inpos.get() + inlength - 1]);
+        int s = inpos.get();
+        final int finalinpos = inpos.get() + inlength;
+        // Compress by group of 8 blocks as much as possible: the first long
+        // stores the bit widths of the 8 blocks
+        for (; s + BLOCK_SIZE * BLOCKS_PER_HEADER - 1 < finalinpos; s += BLOCK_SIZE * BLOCKS_PER_HEADER) {
+            final int headerpos = tmpoutpos++;
+            long header = 0;
+            for (int k = 0; k < BLOCKS_PER_HEADER; ++k) {
+                final int blockpos = s + k * BLOCK_SIZE;
+                final int mbits = LongDelta.maxdiffbits(initoffset, in, blockpos, BLOCK_SIZE);
+                header |= (long) mbits << (56 - 8 * k);
+                IntegratedLongBitPacking.integratedpack(initoffset, in, blockpos,
+                        out, tmpoutpos, mbits);
+                tmpoutpos += mbits;
+                initoffset = in[blockpos + BLOCK_SIZE - 1];
+            }
+            out[headerpos] = header;
+        }
+        // Then we compress up to 7 blocks of 64 longs
+        for (; s < finalinpos; s += BLOCK_SIZE) {
+            final int mbits = LongDelta.maxdiffbits(initoffset, in, s, BLOCK_SIZE);
+            out[tmpoutpos++] = mbits;
+            IntegratedLongBitPacking.integratedpack(initoffset, in, s, out,
+                    tmpoutpos, mbits);
+            tmpoutpos += mbits;
+            initoffset = in[s + BLOCK_SIZE - 1];
+        }
+        inpos.add(inlength);
+        outpos.set(tmpoutpos);
+    }
+
+    @Override
+    public void headlessUncompress(long[] in, IntWrapper inpos, int inlength,
+            long[] out, IntWrapper outpos, int num, LongWrapper initvalue) {
+        final int outlength = Util.greatestMultiple(num, BLOCK_SIZE);
+        int tmpinpos = inpos.get();
+        long initoffset = initvalue.get();
+        int s = outpos.get();
+        final int finaloutpos = outpos.get() + outlength;
+        for (; s + BLOCK_SIZE * BLOCKS_PER_HEADER - 1 < finaloutpos; s += BLOCK_SIZE * BLOCKS_PER_HEADER) {
+            final long header = in[tmpinpos++];
+            for (int k = 0; k < BLOCKS_PER_HEADER; ++k) {
+                final int mbits = (int) ((header >>> (56 - 8 * k)) & 0xFF);
+                final int blockpos = s + k * BLOCK_SIZE;
+                IntegratedLongBitPacking.integratedunpack(initoffset, in, tmpinpos,
+                        out, blockpos, mbits);
+                tmpinpos += mbits;
+                initoffset = out[blockpos + BLOCK_SIZE - 1];
+            }
+        }
+        for (; s < finaloutpos; s += BLOCK_SIZE) {
+            final int mbits = (int) in[tmpinpos];
+            ++tmpinpos;
+            IntegratedLongBitPacking.integratedunpack(initoffset, in, tmpinpos,
+                    out, s, mbits);
+            initoffset = out[s + BLOCK_SIZE - 1];
+            tmpinpos += mbits;
+        }
+        outpos.add(outlength);
+        initvalue.set(initoffset);
+        inpos.set(tmpinpos);
+    }
+
+    @Override
+    public int maxHeadlessCompressedLength(IntWrapper compressedPositions, int inlength) {
+        int blockCount = inlength / BLOCK_SIZE;
+        int headersSizeInLongs = blockCount / BLOCKS_PER_HEADER + (blockCount % BLOCKS_PER_HEADER);
+        int blocksSizeInLongs = blockCount * MAX_BIT_WIDTH;
+        compressedPositions.add(blockCount * BLOCK_SIZE);
+        return headersSizeInLongs + blocksSizeInLongs;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.longcompression.differential;
+
+import java.util.Arrays;
+
+/**
+ * "Integrated" bit packing routines for longs: they include both the bit
+ * packing and the differential coding, so that the deltas are computed (and
+ * the prefix sum is accumulated) while the words are packed (unpacked),
+ * without a separate pass over the data.
+ * 
+ * The layout is the one of me.lemire.longcompression.LongBitPacking: 64 longs
+ * are packed with b bits in b longs.
+ * 
+ * @see me.lemire.integercompression.differential.IntegratedBitPacking
+ * 
+ * @author Daniel Lemire
+ * 
+ */
+public final class IntegratedLongBitPacking {
+
+        private IntegratedLongBitPacking() {
+        }
+
+        /**
+         * Pack 64 longs as deltas with an initial value
+         * 
+         * @param initoffset initial value (used to compute first delta)
+         * @param in input array
+         * @param inpos initial position in input array
+         * @param out output array
+         * @param outpos initial position in output array
+         * @param bit number of bits to use per long
+         */
+        public static void integratedpack(final long initoffset, final long[] in,
+                final int inpos, final long[] out, final int outpos, final int bit) {
+                if (bit == 0)
+                        return;
+                long previous = initoffset;
+                if (bit == 64) {
+                        for (int i = 0; i < 64; ++i) {
+                                out[outpos + i] = in[inpos + i] - previous;
+                                previous = in[inpos + i];
+                        }
+                        return;
+                }
+                int o = outpos;
+                long word = 0;
+                int shift = 0;
+                for (int i = 0; i < 64; ++i) {
+                        final long delta = in[inpos + i] - previous;
+                        previous = in[inpos + i];
+                        word |= delta << shift;
+                        shift += bit;
+                        if (shift >= 64) {
+                                out[o++] = word;
+                                shift -= 64;
+                                // the high bits that did not fit
+                                word = shift > 0 ? delta >>> (bit - shift) : 0;
+                        }
+                }
+        }
+
+        /**
+         * Unpack 64 longs along with prefix sum computation
+         * 
+         * @param initoffset initial value (added to the first delta)
+         * @param in source array
+         * @param inpos position in source array
+         * @param out output array
+         * @param outpos position in output array
+         * @param bit number of bits to use per long
+         */
+        public static void integratedunpack(final long initoffset, final long[] in,
+                final int inpos, final long[] out, final int outpos, final int bit) {
+                if (bit == 0) {
+                        Arrays.fill(out, outpos, outpos + 64, initoffset);
+                        return;
+                }
+                long sum = initoffset;
+                if (bit == 64) {
+                        for (int i = 0; i < 64; ++i)
+                                out[outpos + i] = (sum += in[inpos + i]);
+                        return;
+                }
+                final long mask = (1L << bit) - 1;
+                // the word holding the value starts at bit i * bit; the
+                // value may continue in the next word
+                for (int i = 0, firstbit = 0; i < 64; ++i, firstbit += bit) {
+                        final int p = inpos + (firstbit >>> 6);
+                        final int shift = firstbit & 63;
+                        long delta = in[p] >>> shift;
+                        if (shift + bit > 64)
+                                delta |= in[p + 1] << (64 - shift);
+                        out[outpos + i] = (sum += delta & mask);
+                }
+        }
+}
@@ -0,0 +1,73 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.longcompression.differential;
+
+import java.util.Arrays;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.longcompression.LongWrapper;
+
+/**
+ * This is a convenience class that wraps a codec to provide
+ * a "friendly" API. It is useful to compress sorted longs.
+ * If your longs are not sorted (not even nearly so), please
+ * consider the LongCompressor class instead.
+ *
+ * @author Daniel Lemire
+ */
+public class IntegratedLongCompressor {
+    SkippableIntegratedLongCODEC codec;
+    /**
+     * Constructor wrapping a codec.
+     * 
+     * @param c the underlying codec
+     */
+    public IntegratedLongCompressor(SkippableIntegratedLongCODEC c) {
+      codec = c;
+    }
+    
+    /**
+     * Constructor with default codec.
+     */
+    public IntegratedLongCompressor() {
+        codec = new SkippableIntegratedLongComposition(new IntegratedLongBinaryPacking(),
+                new IntegratedLongVariableByte());
+    }
+
+    /**
+     * Compress an array and returns the compressed result as a new array.
+     * 
+     * @param input array to be compressed
+     * @return compressed array
+     */
+    public long[] compress(long[] input) {
+        int maxCompressedLength = codec.maxHeadlessCompressedLength(new IntWrapper(0), input.length);
+        long[] compressed = new long[maxCompressedLength + 1]; // +1 to store the length of the input
+        compressed[0] = input.length;
+        IntWrapper outpos = new IntWrapper(1);
+        codec.headlessCompress(input, new IntWrapper(0), input.length, compressed, outpos, new LongWrapper(0));
+        compressed = Arrays.copyOf(compressed, outpos.intValue());
+        return compressed;
+    }
+
+    /**
+     * Uncompress an array and returns the uncompressed result as a new array.
+     * 
+     * @param compressed compressed array
+     * @return uncompressed array
+     */
+    public long[] uncompress(long[] compressed) {
+        long[] decompressed = new long[(int) compressed[0]];
+        IntWrapper inpos = new IntWrapper(1);
+        codec.headlessUncompress(compressed, inpos,
+                compressed.length - inpos.intValue(),
+                decompressed, new IntWrapper(0),
+                decompressed.length, new LongWrapper(0));
+        return decompressed;
+    }
+
+}
@@ -0,0 +1,142 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.longcompression.differential;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.longcompression.IntegratedLongCODEC;
+import me.lemire.longcompression.LongWrapper;
+
+/**
+ * Implementation of variable-byte with differential coding for longs. The
+ * deltas are written as in LongVariableByte (as unsigned values: a negative
+ * delta uses 10 bytes).
+ * 
+ * You should only use this scheme on sorted arrays. Use LongVariableByte if
+ * you have unsorted arrays.
+ * 
+ * @author Daniel Lemire
+ */
+public class IntegratedLongVariableByte implements IntegratedLongCODEC,
+        SkippableIntegratedLongCODEC {
+
+    private static final int MAX_BYTES_PER_LONG = 10;
+
+    @Override
+    public void compress(long[] in, IntWrapper inpos, int inlength,
+            long[] out, IntWrapper outpos) {
+        headlessCompress(in, inpos, inlength, out, outpos, new LongWrapper(0));
+    }
+
+    @Override
+    public void uncompress(long[] in, IntWrapper inpos, int inlength,
+            long[] out, IntWrapper outpos) {
+        int s = 0;
+        int p = inpos.get();
+        final int finalp = inpos.get() + inlength;
+        int tmpoutpos = outpos.get();
+        long initoffset = 0;
+        for (long v = 0, shift = 0; p < finalp;) {
+            final long c = in[p] >>> s;
+            // Shift to next byte
+            s += 8;
+            // Shift to next long if s == 64
+            p += s >> 6;
+            // Cycle from 63 to 0
+            s = s & 63;
+            v += ((c & 127) << shift);
+            if ((c & 128) == 128) {
+                out[tmpoutpos++] = (initoffset = initoffset + v);
+                v = 0;
+                shift = 0;
+            } else
+                shift += 7;
+        }
+        outpos.set(tmpoutpos);
+        inpos.add(inlength);
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName();
+    }
+
+    @Override
+    public void headlessCompress(long[] in, IntWrapper inpos, int inlength,
+            long[] out, IntWrapper outpos, LongWrapper initvalue) {
+        if (inlength == 0)
+            return;
+        long initoffset = initvalue.get();
+        initvalue.set(in[inpos.get() + inlength - 1]);
+        // the bytes are gathered in a long (little endian), as read by
+        // headlessUncompress
+        int tmpoutpos = outpos.get();
+        long word = 0;
+        int s = 0;
+        for (int k = inpos.get(); k < inpos.get() + inlength; ++k) {
+            long val = in[k] - initoffset;
+            initoffset = in[k];
+            while ((val & ~127L) != 0) {
+                word |= (val & 127) << s;
+                s += 8;
+                if (s == 64) {
+                    out[tmpoutpos++] = word;
+                    word = 0;
+                    s = 0;
+                }
+                val >>>= 7;
+            }
+            word |= (val | 128) << s;
+            s += 8;
+            if (s == 64) {
+                out[tmpoutpos++] = word;
+                word = 0;
+                s = 0;
+            }
+        }
+        if (s != 0)
+            out[tmpoutpos++] = word;
+        outpos.set(tmpoutpos);
+        inpos.add(inlength);
+    }
+
+    @Override
+    public void headlessUncompress(long[] in, IntWrapper inpos, int inlength,
+            long[] out, IntWrapper outpos, int num, LongWrapper initvalue) {
+        int s = 0;
+        int p = inpos.get();
+        long initoffset = initvalue.get();
+        int tmpoutpos = outpos.get();
+        final int finaloutpos = num + tmpoutpos;
+        for (long v = 0, shift = 0; tmpoutpos < finaloutpos;) {
+            final long c = in[p] >>> s;
+            // Shift to next byte
+            s += 8;
+            // Shift to next long if s == 64
+            p += s >> 6;
+            // Cycle from 63 to 0
+            s = s & 63;
+            v += ((c & 127) << shift);
+            if ((c & 128) == 128) {
+                out[tmpoutpos++] = (initoffset = initoffset + v);
+                v = 0;
+                shift = 0;
+            } else
+                shift += 7;
+        }
+        initvalue.set(initoffset);
+        outpos.set(tmpoutpos);
+        inpos.set(p + (s != 0 ? 1 : 0));
+    }
+
+    @Override
+    public int maxHeadlessCompressedLength(IntWrapper compressedPositions, int inlength) {
+        int maxLengthInBytes = inlength * MAX_BYTES_PER_LONG;
+        int maxLengthInLongs = (maxLengthInBytes + Long.BYTES - 1) / Long.BYTES;
+        compressedPositions.add(inlength);
+        return maxLengthInLongs;
+    }
+}
@@ -147,4 +147,24 @@ public final class LongDelta {
                 return data[start + length - 1];
         }
 
+        /**
+         * Compute the number of bits needed to store the successive
+         * differences (deltas) of a range of longs.
+         *
+         * @param initoffset
+         *                initial value for the computation of the deltas
+         * @param i
+         *                source array
+         * @param pos
+         *                starting position
+         * @param length
+         *                number of longs to consider
+         * @return number of bits (between 0 and 64)
+         */
+        static int maxdiffbits(long initoffset, long[] i, int pos, int length) {
+                long mask = i[pos] - initoffset;
+                for (int k = pos + 1; k < pos + length; ++k)
+                        mask |= i[k] - i[k - 1];
+                return 64 - Long.numberOfLeadingZeros(mask);
+        }
 }
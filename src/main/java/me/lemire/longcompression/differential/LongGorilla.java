@@ -0,0 +1,275 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.longcompression.differential;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.longcompression.IntegratedLongCODEC;
+import me.lemire.longcompression.LongWrapper;
+
+/**
+ * XOR scheme for time series of longs or doubles (e.g., gauges), as in the
+ * Gorilla database. Each value is XORed with the previous one and the result
+ * is written to a bit stream:
+ * <ul>
+ * <li>a 0 bit if the value is repeated;</li>
+ * <li>the bits 1 and 0, followed by the meaningful bits of the XOR, when its
+ * leading and trailing zeros cover those of the previous window;</li>
+ * <li>the bits 1 and 1, followed by a new window (the number of leading
+ * zeros, up to 31, in 5 bits and the number of meaningful bits minus one in 6
+ * bits) and the meaningful bits.</li>
+ * </ul>
+ * Doubles are processed through their bits (Double#doubleToRawLongBits), so
+ * that the values (including NaN payloads and -0.0) are restored exactly.
+ * Slowly changing doubles share their sign, exponent and high mantissa bits,
+ * so their XOR has many leading zeros.
+ *
+ * The stream is decoded value by value, in one pass. With the
+ * SkippableIntegratedLongCODEC methods, a series can be compressed in several
+ * calls: the last value is passed along in initvalue (each call ends the bit
+ * stream on a long boundary and starts a new window).
+ *
+ * <pre>
+ * LongGorilla codec = new LongGorilla();
+ * LongWrapper previous = new LongWrapper();
+ * codec.headlessCompress(gauges, inpos, gauges.length, out, outpos, previous);
+ * </pre>
+ *
+ * <p>
+ * For details, please see: Tuomas Pelkonen et al., Gorilla: A Fast, Scalable,
+ * In-Memory Time Series Database, Proceedings of the VLDB Endowment 8 (12),
+ * 2015.
+ * </p>
+ *
+ * @author Daniel Lemire
+ */
+public class LongGorilla implements IntegratedLongCODEC, SkippableIntegratedLongCODEC {
+    // 1 bit for a repeated value, 2 control bits + 11 bits for a new window
+    // + 64 bits otherwise
+    private static final int MAX_BITS_PER_LONG = 2 + 11 + 64;
+    private static final int MAX_LEADING_ZEROS = 31;
+
+    @Override
+    public void compress(long[] in, IntWrapper inpos, int inlength, long[] out,
+            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        out[outpos.get()] = inlength;
+        outpos.increment();
+        headlessCompress(in, inpos, inlength, out, outpos, new LongWrapper(0));
+    }
+
+    @Override
+    public void uncompress(long[] in, IntWrapper inpos, int inlength, long[] out,
+            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        final int outlength = (int) in[inpos.get()];
+        inpos.increment();
+        headlessUncompress(in, inpos, inlength, out, outpos, outlength, new LongWrapper(0));
+    }
+
+    @Override
+    public void headlessCompress(long[] in, IntWrapper inpos, int inlength,
+            long[] out, IntWrapper outpos, LongWrapper initvalue) {
+        encode(in, null, inpos, inlength, out, outpos, initvalue);
+    }
+
+    /**
+     * Compress doubles (see headlessCompress(long[], ...)).
+     *
+     * @param in
+     *            input array
+     * @param inpos
+     *            location in the input array
+     * @param inlength
+     *            how many doubles to compress
+     * @param out
+     *            output array
+     * @param outpos
+     *            where to write in the output array
+     * @param initvalue
+     *            bits of the previous double (0 at the start of a series),
+     *            the value is automatically updated
+     */
+    public void headlessCompress(double[] in, IntWrapper inpos, int inlength,
+            long[] out, IntWrapper outpos, LongWrapper initvalue) {
+        encode(null, in, inpos, inlength, out, outpos, initvalue);
+    }
+
+    @Override
+    public void headlessUncompress(long[] in, IntWrapper inpos, int inlength,
+            long[] out, IntWrapper outpos, int num, LongWrapper initvalue) {
+        decode(in, inpos, out, null, outpos, num, initvalue);
+    }
+
+    /**
+     * Uncompress doubles (see headlessUncompress(long[], ...)).
+     *
+     * @param in
+     *            array containing data in compressed form
+     * @param inpos
+     *            where to start reading in the array
+     * @param inlength
+     *            length of the compressed data (ignored)
+     * @param out
+     *            array where to write the doubles
+     * @param outpos
+     *            where to write the doubles in out
+     * @param num
+     *            number of doubles to decode
+     * @param initvalue
+     *            bits of the previous double (0 at the start of a series),
+     *            the value is automatically updated
+     */
+    public void headlessUncompress(long[] in, IntWrapper inpos, int inlength,
+            double[] out, IntWrapper outpos, int num, LongWrapper initvalue) {
+        decode(in, inpos, null, out, outpos, num, initvalue);
+    }
+
+    @Override
+    public int maxHeadlessCompressedLength(IntWrapper compressedPositions, int inlength) {
+        compressedPositions.add(inlength);
+        return (int) (((long) inlength * MAX_BITS_PER_LONG + 63) / 64);
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName();
+    }
+
+    // either longs or doubles is null
+    private static void encode(long[] longs, double[] doubles, IntWrapper inpos,
+            int inlength, long[] out, IntWrapper outpos, LongWrapper initvalue) {
+        if (inlength == 0)
+            return;
+        final BitWriter writer = new BitWriter(out, outpos.get());
+        long previous = initvalue.get();
+        // no window yet
+        int windowLeading = -1;
+        int windowTrailing = 0;
+        final int finalinpos = inpos.get() + inlength;
+        for (int k = inpos.get(); k < finalinpos; ++k) {
+            final long value = longs != null ? longs[k] : Double.doubleToRawLongBits(doubles[k]);
+            final long xor = value ^ previous;
+            previous = value;
+            if (xor == 0) {
+                writer.write(0, 1);
+                continue;
+            }
+            final int leading = Math.min(Long.numberOfLeadingZeros(xor), MAX_LEADING_ZEROS);
+            final int trailing = Long.numberOfTrailingZeros(xor);
+            if (windowLeading >= 0 && leading >= windowLeading && trailing >= windowTrailing) {
+                // control bits 1, 0
+                writer.write(1, 2);
+                writer.write(xor >>> windowTrailing, 64 - windowLeading - windowTrailing);
+            } else {
+                final int meaningful = 64 - leading - trailing;
+                // control bits 1, 1 and the window
+                writer.write(3 | (leading << 2) | ((meaningful - 1) << 7), 13);
+                writer.write(xor >>> trailing, meaningful);
+                windowLeading = leading;
+                windowTrailing = trailing;
+            }
+        }
+        writer.flush();
+        initvalue.set(previous);
+        inpos.set(finalinpos);
+        outpos.set(writer.pos);
+    }
+
+    // either longs or doubles is null
+    private static void decode(long[] in, IntWrapper inpos, long[] longs,
+            double[] doubles, IntWrapper outpos, int num, LongWrapper initvalue) {
+        if (num == 0)
+            return;
+        final BitReader reader = new BitReader(in, inpos.get());
+        long previous = initvalue.get();
+        int windowTrailing = 0;
+        int windowMeaningful = 0;
+        final int finaloutpos = outpos.get() + num;
+        for (int k = outpos.get(); k < finaloutpos; ++k) {
+            if (reader.read(1) != 0) {
+                if (reader.read(1) != 0) {
+                    final int window = (int) reader.read(11);
+                    final int leading = window & 31;
+                    windowMeaningful = (window >>> 5) + 1;
+                    windowTrailing = 64 - leading - windowMeaningful;
+                }
+                previous ^= reader.read(windowMeaningful) << windowTrailing;
+            }
+            if (longs != null)
+                longs[k] = previous;
+            else
+                doubles[k] = Double.longBitsToDouble(previous);
+        }
+        initvalue.set(previous);
+        inpos.set(reader.pos + (reader.consumed != 0 ? 1 : 0));
+        outpos.set(finaloutpos);
+    }
+
+    /**
+     * Writes bits to longs, starting with the least significant bits.
+     */
+    private static final class BitWriter {
+        final long[] out;
+        int pos;
+        long word;
+        int filled;
+
+        BitWriter(long[] out, int pos) {
+            this.out = out;
+            this.pos = pos;
+        }
+
+        // append the n (between 1 and 64) low bits of v, which are the only
+        // set bits
+        void write(long v, int n) {
+            word |= v << filled;
+            final int total = filled + n;
+            if (total >= 64) {
+                out[pos++] = word;
+                filled = total - 64;
+                word = filled == 0 ? 0 : v >>> (n - filled);
+            } else {
+                filled = total;
+            }
+        }
+
+        void flush() {
+            if (filled > 0) {
+                out[pos++] = word;
+                word = 0;
+                filled = 0;
+            }
+        }
+    }
+
+    /**
+     * Reads bits written by BitWriter.
+     */
+    private static final class BitReader {
+        final long[] in;
+        int pos;
+        int consumed;
+
+        BitReader(long[] in, int pos) {
+            this.in = in;
+            this.pos = pos;
+        }
+
+        // read n bits, between 1 and 64
+        long read(int n) {
+            long v = in[pos] >>> consumed;
+            final int total = consumed + n;
+            if (total > 64)
+                v |= in[pos + 1] << (64 - consumed);
+            pos += total >>> 6;
+            consumed = total & 63;
+            return n == 64 ? v : v & ((1L << n) - 1);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.longcompression.differential;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.longcompression.LongWrapper;
+
+/**
+ * Helper class to compose schemes.
+ * 
+ * @author Daniel Lemire
+ */
+public class SkippableIntegratedLongComposition implements
+        SkippableIntegratedLongCODEC {
+    SkippableIntegratedLongCODEC F1, F2;
+
+    /**
+     * Compose a scheme from a first one (f1) and a second one (f2). The first
+     * one is called first and then the second one tries to compress whatever
+     * remains from the first run.
+     * 
+     * By convention, the first scheme should be such that if, during decoding,
+     * a 64-bit zero is first encountered, then there is no output.
+     * 
+     * @param f1
+     *            first codec
+     * @param f2
+     *            second codec
+     */
+    public SkippableIntegratedLongComposition(SkippableIntegratedLongCODEC f1,
+            SkippableIntegratedLongCODEC f2) {
+        F1 = f1;
+        F2 = f2;
+    }
+
+    @Override
+    public String toString() {
+        return F1.toString() + " + " + F2.toString();
+    }
+
+    @Override
+    public void headlessCompress(long[] in, IntWrapper inpos, int inlength,
+            long[] out, IntWrapper outpos, LongWrapper initvalue) {
+        if (inlength == 0)
+            return;
+        final int init = inpos.get();
+        int outposInit = outpos.get();
+
+        F1.headlessCompress(in, inpos, inlength, out, outpos, initvalue);
+        if (outpos.get() == outposInit) {
+            out[outposInit] = 0;
+            outpos.increment();
+        }
+        inlength -= inpos.get() - init;
+        F2.headlessCompress(in, inpos, inlength, out, outpos, initvalue);
+    }
+
+    @Override
+    public void headlessUncompress(long[] in, IntWrapper inpos, int inlength,
+            long[] out, IntWrapper outpos, int num, LongWrapper initvalue) {
+        if (inlength == 0)
+            return;
+        int init = inpos.get();
+        int outposInit = outpos.get();
+
+        F1.headlessUncompress(in, inpos, inlength, out, outpos, num, initvalue);
+        if (inpos.get() == init) {
+            inpos.increment();
+        }
+        inlength -= inpos.get() - init;
+
+        num -= outpos.get() - outposInit;
+        F2.headlessUncompress(in, inpos, inlength, out, outpos, num, initvalue);
+    }
+
+    @Override
+    public int maxHeadlessCompressedLength(IntWrapper compressedPositions, int inlength) {
+        int init = compressedPositions.get();
+        int maxLength = F1.maxHeadlessCompressedLength(compressedPositions, inlength);
+        maxLength += 1; // Add +1 for the potential F2 header.
+        inlength -= compressedPositions.get() - init;
+        maxLength += F2.maxHeadlessCompressedLength(compressedPositions, inlength);
+        return maxLength;
+    }
+}
@@ -2,9 +2,10 @@
 
 // SPDX-License-Identifier: Apache-2.0
 module me.lemire.integercompression {
-  // This is currently only for advanced users:
-  // requires jdk.incubator.vector;
+  // The vector package is only usable when jdk.incubator.vector is added
+  // at runtime (see VectorSupport).
+  requires static jdk.incubator.vector;
   exports me.lemire.integercompression;
   exports me.lemire.longcompression;
-  // exports me.lemire.integercompression.vector;
+  exports me.lemire.integercompression.vector;
 }
@@ -0,0 +1,102 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checking the choices made by AdaptiveCODEC.
+ */
+@SuppressWarnings({ "static-method" })
+public class AdaptiveCODECTest {
+
+    private static int tag(int[] compressed, int pos) {
+        return compressed[pos] & 0xFF;
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void selectionTest() {
+        Random r = new Random(1);
+        AdaptiveCODEC codec = new AdaptiveCODEC();
+        // short list of small integers
+        int[] shortlist = new int[20];
+        for (int k = 0; k < shortlist.length; ++k)
+            shortlist[k] = r.nextInt(4);
+        int tag = codec.select(shortlist, 0, shortlist.length);
+        assertTrue(tag == AdaptiveCODEC.VARIABLE_BYTE || tag == AdaptiveCODEC.SIMPLE16);
+        // dense list without outliers
+        int[] dense = new int[4096];
+        for (int k = 0; k < dense.length; ++k)
+            dense[k] = r.nextInt(1 << 10);
+        assertEquals(AdaptiveCODEC.BINARY_PACKING, codec.select(dense, 0, dense.length));
+        // a few outliers
+        for (int k = 0; k < dense.length; k += 100)
+            dense[k] = r.nextInt() >>> 1;
+        assertEquals(AdaptiveCODEC.FAST_PFOR, codec.select(dense, 0, dense.length));
+    }
+
+    /**
+     * Each chunk gets its own scheme.
+     */
+    @Test
+    public void chunkTest() {
+        Random r = new Random(2);
+        int chunk = 1024;
+        int[] data = new int[3 * chunk + 10];
+        int previous = 0;
+        for (int k = 0; k < chunk; ++k)
+            data[k] = previous += r.nextInt(100);
+        for (int k = chunk; k < 2 * chunk; ++k)
+            data[k] = r.nextInt(1 << 10) | (k % 100 == 0 ? 1 << 30 : 0);
+        for (int k = 2 * chunk; k < data.length; ++k)
+            data[k] = r.nextInt(1 << 12);
+        AdaptiveCODEC codec = new AdaptiveCODEC(chunk);
+        int[] compressed = TestUtils.compressHeadless(codec, data);
+        int pos = 0;
+        assertEquals(AdaptiveCODEC.DELTA | AdaptiveCODEC.BINARY_PACKING, tag(compressed, pos));
+        pos += 1 + (compressed[pos] >>> 8);
+        assertEquals(AdaptiveCODEC.FAST_PFOR, tag(compressed, pos));
+        pos += 1 + (compressed[pos] >>> 8);
+        assertEquals(AdaptiveCODEC.BINARY_PACKING, tag(compressed, pos));
+        pos += 1 + (compressed[pos] >>> 8);
+        // the last 10 integers
+        assertEquals(AdaptiveCODEC.VARIABLE_BYTE, tag(compressed, pos));
+        pos += 1 + (compressed[pos] >>> 8);
+        assertEquals(compressed.length, pos);
+        assertArrayEquals(data, TestUtils.uncompressHeadless(codec, compressed, data.length));
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void varyingTest() {
+        Random r = new Random(3);
+        for (int n : new int[] { 0, 1, 31, 255, 257, 5000, 100000 }) {
+            int[] data = new int[n];
+            for (int k = 0; k < n; ++k)
+                data[k] = r.nextInt() >>> (k / 300 % 32);
+            AdaptiveCODEC codec = new AdaptiveCODEC();
+            assertArrayEquals(data, TestUtils.uncompress(codec,
+                    TestUtils.compress(codec, data), n));
+            Arrays.sort(data);
+            assertArrayEquals(data, TestUtils.uncompress(codec,
+                    TestUtils.compress(codec, data), n));
+        }
+    }
+}
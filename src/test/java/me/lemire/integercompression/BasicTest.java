@@ -14,6 +14,7 @@ import me.lemire.integercompression.differential.Delta;
 import me.lemire.integercompression.differential.IntegratedBinaryPacking;
 import me.lemire.integercompression.differential.IntegratedComposition;
 import me.lemire.integercompression.differential.IntegratedIntegerCODEC;
+import me.lemire.integercompression.differential.IntegratedStreamVByte;
 import me.lemire.integercompression.differential.IntegratedVariableByte;
 import me.lemire.integercompression.differential.XorBinaryPacking;
 import me.lemire.integercompression.synth.ClusteredDataGenerator;
@@ -34,8 +35,10 @@ public class BasicTest {
                     new IntegratedVariableByte()),
             new JustCopy(),
             new VariableByte(),
+            new StreamVByte(),
             new GroupSimple9(),
             new IntegratedVariableByte(),
+            new IntegratedStreamVByte(),
             new Composition(new BinaryPacking(), new VariableByte()),
             new Composition(new NewPFD(), new VariableByte()),
             new Composition(new NewPFDS16(), new VariableByte()),
@@ -45,10 +48,14 @@ public class BasicTest {
             new Composition(new FastPFOR(), new VariableByte()),
             new Simple9(),
             new Simple16(),
+            new Simple8b(),
             new GroupSimple9(),
             new Composition(new XorBinaryPacking(), new VariableByte()),
             new Composition(new DeltaZigzagBinaryPacking(),
-                    new DeltaZigzagVariableByte()) };
+                    new DeltaZigzagVariableByte()),
+            new Composition(new FrameOfReference(), new VariableByte()),
+            new RunLength(new SkippableComposition(new BinaryPacking(), new VariableByte())),
+            new AdaptiveCODEC() };
 
     /**
      * This tests with a compressed array with various offset
@@ -0,0 +1,99 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checking BinaryPackingScan against a scan of the uncompressed data.
+ */
+@SuppressWarnings({ "static-method" })
+public class BinaryPackingScanTest {
+
+    private static int[] generate(int n) {
+        Random r = new Random(n);
+        int[] data = new int[n];
+        for (int k = 0; k < n; ++k) {
+            // the bit width changes with each block
+            int bits = (k / BinaryPacking.BLOCK_SIZE * 7) % 33;
+            data[k] = bits == 0 ? 0 : r.nextInt() >>> (32 - bits);
+        }
+        return data;
+    }
+
+    private static void check(int[] data, ScanPredicate predicate) {
+        int[] compressed = TestUtils.compressHeadless(new BinaryPacking(), data);
+        int m = Util.greatestMultiple(data.length, BinaryPacking.BLOCK_SIZE);
+        int[] expected = new int[m];
+        int count = 0;
+        long[] expectedbitmap = new long[(m + 63) / 64];
+        for (int k = 0; k < m; ++k)
+            if (predicate.test(data[k])) {
+                expected[count++] = k;
+                expectedbitmap[k / 64] |= 1L << k;
+            }
+
+        int[] positions = new int[m];
+        IntWrapper inpos = new IntWrapper(0);
+        assertEquals(count, BinaryPackingScan.scan(compressed, inpos, data.length,
+                predicate, positions));
+        assertEquals(compressed.length, inpos.get());
+        assertArrayEquals(Arrays.copyOf(expected, count), Arrays.copyOf(positions, count));
+
+        long[] bitmap = new long[expectedbitmap.length];
+        inpos = new IntWrapper(0);
+        assertEquals(count, BinaryPackingScan.scan(compressed, inpos, data.length,
+                predicate, bitmap));
+        assertEquals(compressed.length, inpos.get());
+        assertArrayEquals(expectedbitmap, bitmap);
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void predicateTest() {
+        for (int n : new int[] { 0, 32, 100, 32 * 33 + 5, 10000 }) {
+            int[] data = generate(n);
+            check(data, ScanPredicate.equalTo(0));
+            check(data, ScanPredicate.equalTo(1 << 20));
+            check(data, ScanPredicate.lessThan(100));
+            check(data, ScanPredicate.lessThan(0));
+            check(data, ScanPredicate.lessThan(Integer.MIN_VALUE));
+            check(data, ScanPredicate.greaterThan(1 << 16));
+            check(data, ScanPredicate.greaterThan(Integer.MAX_VALUE));
+            check(data, ScanPredicate.between(1000, 5000));
+            check(data, ScanPredicate.between(5000, 1000));
+            check(data, ScanPredicate.in(1, 3, 200, 1 << 30, -5));
+            check(data, ScanPredicate.in());
+        }
+    }
+
+    /**
+     * Blocks are accepted or skipped from their bit width.
+     */
+    @Test
+    public void rangeTest() {
+        ScanPredicate small = ScanPredicate.lessThan(256);
+        for (int b = 0; b < 32; ++b) {
+            long max = (1L << b) - 1;
+            assertEquals(b <= 8, small.matchesAll(0, (int) max));
+        }
+        assertFalse(ScanPredicate.greaterThan(255).mayMatch(0, 255));
+        assertTrue(ScanPredicate.in(7, 300).mayMatch(0, 255));
+        assertFalse(ScanPredicate.in(-7, 300).mayMatch(0, 255));
+    }
+}
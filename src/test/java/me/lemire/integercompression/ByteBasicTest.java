@@ -9,6 +9,7 @@ package me.lemire.integercompression;
 
 import java.util.Arrays;
 
+import me.lemire.integercompression.differential.IntegratedStreamVByte;
 import me.lemire.integercompression.differential.IntegratedVariableByte;
 
 import org.junit.Test;
@@ -26,6 +27,8 @@ public class ByteBasicTest {
     ByteIntegerCODEC[] codecs = {
             new VariableByte(),
             new IntegratedVariableByte(),
+            new StreamVByte(),
+            new IntegratedStreamVByte(),
          };
 
     /**
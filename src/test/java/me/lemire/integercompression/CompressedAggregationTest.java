@@ -0,0 +1,134 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checking CompressedAggregation against the uncompressed data.
+ */
+@SuppressWarnings({ "static-method" })
+public class CompressedAggregationTest {
+
+    static int[] generate(int n) {
+        Random r = new Random(n);
+        int[] data = new int[n];
+        for (int k = 0; k < n; ++k) {
+            int bits = k / 1000 % 33;
+            if (r.nextInt(20) == 0)
+                // exceptions
+                data[k] = r.nextInt() >>> r.nextInt(32);
+            else
+                data[k] = bits == 0 ? 0 : r.nextInt() >>> (32 - bits);
+        }
+        return data;
+    }
+
+    static void checkStatistics(int[] data, int length, BlockStatistics stats) {
+        long sum = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int k = 0; k < length; ++k) {
+            sum += data[k];
+            min = Math.min(min, data[k]);
+            max = Math.max(max, data[k]);
+        }
+        assertEquals(length, stats.getCount());
+        assertEquals(sum, stats.getSum());
+        assertEquals(min, stats.getMin());
+        assertEquals(max, stats.getMax());
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void binaryPackingTest() {
+        for (int n : new int[] { 0, 32, 100, 32 * 9, 100000 }) {
+            int[] data = generate(n);
+            int[] compressed = TestUtils.compressHeadless(new BinaryPacking(), data);
+            BlockStatistics stats = new BlockStatistics();
+            IntWrapper inpos = new IntWrapper(0);
+            CompressedAggregation.binaryPacking(compressed, inpos, n, stats);
+            assertEquals(compressed.length, inpos.get());
+            checkStatistics(data, Util.greatestMultiple(n, BinaryPacking.BLOCK_SIZE), stats);
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void fastPFORTest() {
+        for (int pageSize : new int[] { FastPFOR.BLOCK_SIZE * 4, FastPFOR.DEFAULT_PAGE_SIZE }) {
+            for (int n : new int[] { 0, 256, 1000, 300000 }) {
+                int[] data = generate(n);
+                int[] compressed = TestUtils.compressHeadless(new FastPFOR(pageSize), data);
+                BlockStatistics stats = new BlockStatistics();
+                IntWrapper inpos = new IntWrapper(0);
+                CompressedAggregation.fastPFOR(compressed, inpos, n, pageSize, stats);
+                assertEquals(compressed.length, inpos.get());
+                checkStatistics(data, Util.greatestMultiple(n, FastPFOR.BLOCK_SIZE), stats);
+            }
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void verticalFastPFORTest() {
+        VerticalAggregation aggregation = new VerticalAggregation();
+        for (int pageSize : new int[] { VerticalFastPFOR.BLOCK_SIZE * 4, VerticalFastPFOR.DEFAULT_PAGE_SIZE }) {
+            for (int n : new int[] { 0, 256, 1000, 300000 }) {
+                int[] data = generate(n);
+                int[] compressed = TestUtils.compressHeadless(new VerticalFastPFOR(pageSize), data);
+                BlockStatistics stats = new BlockStatistics();
+                IntWrapper inpos = new IntWrapper(0);
+                aggregation.fastPFOR(compressed, inpos, n, pageSize, stats);
+                assertEquals(compressed.length, inpos.get());
+                checkStatistics(data, Util.greatestMultiple(n, VerticalFastPFOR.BLOCK_SIZE), stats);
+            }
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void histogramTest() {
+        int[] data = generate(10000);
+        for (int k = 0; k < data.length; k += 7)
+            data[k] = -k;
+        BlockHistogram histogram = new BlockHistogram(-100, 1 << 20, 100);
+        long[] expected = new long[100];
+        long below = 0;
+        long above = 0;
+        for (int v : data) {
+            if (v < -100)
+                below++;
+            else if (((long) v + 100) >> 20 >= 100)
+                above++;
+            else
+                expected[(v + 100) >> 20]++;
+        }
+        int[] compressed = TestUtils.compressHeadless(new FastPFOR(), data);
+        CompressedAggregation.fastPFOR(compressed, new IntWrapper(0), data.length, histogram);
+        // 10000 = 39 * 256 + 16: the last integers are not in a block
+        for (int k = Util.greatestMultiple(data.length, FastPFOR.BLOCK_SIZE); k < data.length; ++k)
+            histogram.accept(data, k, 1);
+        assertArrayEquals(expected, histogram.getCounts());
+        assertEquals(below, histogram.getBelow());
+        assertEquals(above, histogram.getAbove());
+    }
+}
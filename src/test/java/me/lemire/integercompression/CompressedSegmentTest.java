@@ -0,0 +1,170 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Testing the memory-mapped segment files.
+ */
+public class CompressedSegmentTest {
+    /**
+     *
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static int[][] generate(int howmany) {
+        Random r = new Random(1234);
+        int[][] arrays = new int[howmany][];
+        for (int k = 0; k < howmany; ++k) {
+            arrays[k] = new int[r.nextInt(k % 10 == 0 ? 100000 : 300)];
+            for (int j = 0; j < arrays[k].length; ++j)
+                arrays[k][j] = r.nextInt(1 << (k % 20));
+        }
+        return arrays;
+    }
+
+    /**
+     * @throws IOException on error
+     */
+    @Test
+    public void roundTripTest() throws IOException {
+        Path file = folder.newFile().toPath();
+        int[][] arrays = generate(200);
+        try (CompressedSegmentWriter w = new CompressedSegmentWriter(file)) {
+            for (int k = 0; k < arrays.length; ++k)
+                assertEquals(k, w.append(arrays[k]));
+        }
+        CompressedSegmentReader r = new CompressedSegmentReader(file);
+        assertEquals(arrays.length, r.size());
+        // random order
+        for (int k = arrays.length - 1; k >= 0; k -= 3) {
+            assertEquals(arrays[k].length, r.length(k));
+            assertArrayEquals(arrays[k], r.get(k));
+        }
+        int[] buffer = new int[100010];
+        for (int k = 0; k < arrays.length; ++k) {
+            int howmany = r.get(k, IntBuffer.wrap(buffer), 10);
+            assertEquals(arrays[k].length, howmany);
+            for (int j = 0; j < howmany; ++j)
+                assertEquals(arrays[k][j], buffer[j + 10]);
+        }
+    }
+
+    /**
+     * Arrays compressed by IntCompressor can be stored as is.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void intCompressorTest() throws IOException {
+        Path file = folder.newFile().toPath();
+        int[][] arrays = generate(20);
+        IntCompressor ic = new IntCompressor();
+        try (CompressedSegmentWriter w = new CompressedSegmentWriter(file)) {
+            for (int[] a : arrays)
+                w.appendCompressed(ic.compress(a));
+        }
+        CompressedSegmentReader r = new CompressedSegmentReader(file);
+        for (int k = 0; k < arrays.length; ++k)
+            assertArrayEquals(arrays[k], r.get(k));
+    }
+
+    /**
+     * @throws IOException on error
+     */
+    @Test
+    public void fastPFORTest() throws IOException {
+        Path file = folder.newFile().toPath();
+        int[][] arrays = generate(50);
+        try (CompressedSegmentWriter w = new CompressedSegmentWriter(file,
+                new SkippableComposition(new FastPFOR(), new VariableByte()))) {
+            for (int[] a : arrays)
+                w.append(a);
+        }
+        CompressedSegmentReader r = new CompressedSegmentReader(file,
+                new SkippableIntBufferComposition(new FastPFOR(), new VariableByte()));
+        for (int k = 0; k < arrays.length; ++k)
+            assertArrayEquals(arrays[k], r.get(k));
+    }
+
+    /**
+     * Codecs without an IntBuffer API are read through an int array.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void arrayCodecTest() throws IOException {
+        Path file = folder.newFile().toPath();
+        int[][] arrays = generate(50);
+        try (CompressedSegmentWriter w = new CompressedSegmentWriter(file,
+                new SkippableComposition(new FastPFOR128(), new Simple16()))) {
+            for (int[] a : arrays)
+                w.append(a);
+        }
+        CompressedSegmentReader r = new CompressedSegmentReader(file,
+                new SkippableComposition(new FastPFOR128(), new Simple16()));
+        for (int k = 0; k < arrays.length; ++k)
+            assertArrayEquals(arrays[k], r.get(k));
+        int[] buffer = new int[100010];
+        for (int k = 0; k < arrays.length; ++k) {
+            int howmany = r.get(k, IntBuffer.wrap(buffer), 10);
+            assertEquals(arrays[k].length, howmany);
+            for (int j = 0; j < howmany; ++j)
+                assertEquals(arrays[k][j], buffer[j + 10]);
+        }
+    }
+
+    /**
+     * Closing twice writes the index once.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void closeTwiceTest() throws IOException {
+        Path file = folder.newFile().toPath();
+        CompressedSegmentWriter w = new CompressedSegmentWriter(file);
+        w.append(new int[] { 1, 2, 3 });
+        w.close();
+        w.close();
+        assertArrayEquals(new int[] { 1, 2, 3 }, new CompressedSegmentReader(file).get(0));
+    }
+
+    /**
+     * @throws IOException on error
+     */
+    @Test
+    public void emptySegmentTest() throws IOException {
+        Path file = folder.newFile().toPath();
+        new CompressedSegmentWriter(file).close();
+        assertEquals(0, new CompressedSegmentReader(file).size());
+    }
+
+    /**
+     * @throws IOException expected
+     */
+    @Test(expected = IOException.class)
+    public void invalidSegmentTest() throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        new CompressedSegmentReader(file.toPath());
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Testing random access to FastPFOR data.
+ */
+@SuppressWarnings({ "static-method" })
+public class FastPFORSkipIndexTest {
+
+    private static int[] generate(Random r, int n) {
+        int[] data = new int[n];
+        for (int k = 0; k < n; ++k) {
+            // a mix of exceptions of various widths
+            int bits = r.nextInt(20) == 0 ? 1 + r.nextInt(32) : (k / 256) % 12;
+            data[k] = bits == 0 ? 0 : r.nextInt() >>> (32 - bits);
+        }
+        return data;
+    }
+
+    private static void check(FastPFOR codec, int[] data) {
+        int[] compressed = TestUtils.compressHeadless(codec, data);
+        FastPFORSkipIndex index = codec.buildSkipIndex(compressed, 0, data.length);
+        final int n = Util.greatestMultiple(data.length, FastPFOR.BLOCK_SIZE);
+        assertEquals(n, index.size());
+        assertEquals(compressed.length, index.endPosition());
+        for (int k = 0; k < n; ++k)
+            assertEquals("index " + k, data[k], index.get(k));
+        int[] all = new int[n];
+        index.uncompressRange(0, n, all, 0);
+        assertArrayEquals(Arrays.copyOf(data, n), all);
+        Random r = new Random(n);
+        for (int t = 0; t < 100 && n > 0; ++t) {
+            int from = r.nextInt(n);
+            int to = from + r.nextInt(n - from + 1);
+            int[] range = new int[to - from + 1];
+            index.duplicate().uncompressRange(from, to, range, 1);
+            assertArrayEquals(Arrays.copyOfRange(data, from, to),
+                    Arrays.copyOfRange(range, 1, range.length));
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void randomAccessTest() {
+        Random r = new Random(1234);
+        for (int n : new int[] { 0, 255, 256, 1000, 65536, 65536 * 2 + 512 + 17 })
+            check(new FastPFOR(), generate(r, n));
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void smallPageTest() {
+        Random r = new Random(5678);
+        check(new FastPFOR(1024), generate(r, 10000));
+    }
+
+    /**
+     *
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void outOfBoundsTest() {
+        int[] data = new int[512];
+        FastPFOR codec = new FastPFOR();
+        int[] compressed = TestUtils.compressHeadless(codec, data);
+        codec.buildSkipIndex(compressed, 0, data.length).get(512);
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.Random;
+
+import me.lemire.longcompression.LongFrameOfReference;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing FrameOfReference and LongFrameOfReference.
+ */
+@SuppressWarnings({ "static-method" })
+public class FrameOfReferenceTest {
+
+    /**
+     * Timestamps take few bits.
+     */
+    @Test
+    public void timestampTest() {
+        Random r = new Random(1);
+        int[] data = new int[FrameOfReference.BLOCK_SIZE * 100];
+        for (int k = 0; k < data.length; ++k)
+            data[k] = 1700000000 + k * 60 + r.nextInt(1000);
+        int[] compressed = TestUtils.compressHeadless(new FrameOfReference(), data);
+        assertTrue(compressed.length * 2 < data.length);
+        assertTrue(compressed.length * 2
+                < TestUtils.compressHeadless(new BinaryPacking(), data).length);
+        assertArrayEquals(data, TestUtils.uncompressHeadless(new FrameOfReference(),
+                compressed, data.length));
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void selectTest() {
+        Random r = new Random(2);
+        for (int bit = 0; bit <= 32; ++bit) {
+            // a full group and a group of 2 blocks
+            int[] data = new int[FrameOfReference.BLOCK_SIZE * (FrameOfReference.GROUP_SIZE + 2)];
+            int min = r.nextInt();
+            for (int k = 0; k < data.length; ++k)
+                data[k] = min + (bit == 0 ? 0 : r.nextInt() >>> (32 - bit));
+            int[] compressed = TestUtils.compressHeadless(new FrameOfReference(), data);
+            int grouppos = 0;
+            final int groupsize = FrameOfReference.GROUP_SIZE * FrameOfReference.BLOCK_SIZE;
+            for (int s = 0; s < data.length; s += groupsize) {
+                int length = Math.min(groupsize, data.length - s);
+                for (int k = 0; k < length; ++k)
+                    assertEquals(data[s + k], FrameOfReference.select(compressed, grouppos, k));
+                grouppos += FrameOfReference.groupLength(compressed, grouppos,
+                        length / FrameOfReference.BLOCK_SIZE);
+            }
+            assertEquals(compressed.length, grouppos);
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void longSelectTest() {
+        Random r = new Random(3);
+        for (int bit = 0; bit <= 64; ++bit) {
+            // a full group and a group of 2 blocks
+            long[] data = new long[LongFrameOfReference.BLOCK_SIZE * (LongFrameOfReference.GROUP_SIZE + 2)];
+            long min = r.nextLong();
+            for (int k = 0; k < data.length; ++k)
+                data[k] = min + (bit == 0 ? 0 : r.nextLong() >>> (64 - bit));
+            LongFrameOfReference codec = new LongFrameOfReference();
+            long[] compressed = new long[codec.maxHeadlessCompressedLength(new IntWrapper(), data.length)];
+            IntWrapper outpos = new IntWrapper();
+            codec.headlessCompress(data, new IntWrapper(), data.length, compressed, outpos);
+            long[] back = new long[data.length];
+            codec.headlessUncompress(compressed, new IntWrapper(), outpos.get(), back,
+                    new IntWrapper(), data.length);
+            assertArrayEquals(data, back);
+            int grouppos = 0;
+            final int groupsize = LongFrameOfReference.GROUP_SIZE * LongFrameOfReference.BLOCK_SIZE;
+            for (int s = 0; s < data.length; s += groupsize) {
+                int length = Math.min(groupsize, data.length - s);
+                for (int k = 0; k < length; ++k)
+                    assertEquals(data[s + k], LongFrameOfReference.select(compressed, grouppos, k));
+                grouppos += LongFrameOfReference.groupLength(compressed, grouppos,
+                        length / LongFrameOfReference.BLOCK_SIZE);
+            }
+            assertEquals(outpos.get(), grouppos);
+        }
+    }
+}
@@ -26,7 +26,11 @@ public class IntCompressorTest {
             new IntegratedIntCompressor(
                     new SkippableIntegratedComposition(
                             new IntegratedBinaryPacking(),
-                            new IntegratedVariableByte())) };
+                            new IntegratedVariableByte())),
+            new IntegratedIntCompressor(
+                    new SkippableIntegratedComposition(
+                            new IntegratedBinaryPacking(),
+                            VectorSupport.newIntegratedStreamVByte())) };
     IntCompressor[] ic = {
             new IntCompressor(new VariableByte()),
             new IntCompressor(new SkippableComposition(new BinaryPacking(),
@@ -81,4 +85,28 @@ public class IntCompressorTest {
             }
         }
     }
+
+    /**
+     * 
+     */
+    @Test
+    public void bufferTest() {
+        for (int N = 0; N <= 10000; N = 10 * N + 1) {
+            int[] orig = new int[N];
+            for (int k = 0; k < N; k++)
+                orig[k] = 3 * k + 5;
+            int[] input = new int[N + 10];
+            System.arraycopy(orig, 0, input, 7, N);
+            for (IntCompressor i : ic) {
+                int[] compressed = new int[i.maxCompressedLength(N) + 5];
+                int length = i.compress(input, 7, N, compressed, 5);
+                Assert.assertArrayEquals(i.compress(orig),
+                        Arrays.copyOfRange(compressed, 5, 5 + length));
+                Assert.assertEquals(N, i.decompressedLength(compressed, 5));
+                int[] back = new int[N + 3];
+                Assert.assertEquals(N, i.uncompress(compressed, 5, length, back, 3));
+                Assert.assertArrayEquals(orig, Arrays.copyOfRange(back, 3, 3 + N));
+            }
+        }
+    }
 }
@@ -0,0 +1,112 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing the streaming compression of integers.
+ */
+@SuppressWarnings({ "static-method" })
+public class IntStreamTest {
+
+    private static int[] generate(int n) {
+        Random r = new Random(n);
+        int[] data = new int[n];
+        for (int k = 0; k < n; ++k)
+            data[k] = r.nextInt(1 << (k / 1000 % 20 + 1));
+        return data;
+    }
+
+    /**
+     * @throws IOException on error
+     */
+    @Test
+    public void roundTripTest() throws IOException {
+        for (int n : new int[] { 0, 1, 100, 4096, 4097, 100000 }) {
+            int[] data = generate(n);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (CompressingIntOutputStream out = new CompressingIntOutputStream(bytes)) {
+                // mix single writes and bulk writes
+                int k = 0;
+                for (; k < n / 3; ++k)
+                    out.write(data[k]);
+                out.write(data, k, n - k);
+            }
+            if (n > 1000)
+                assertTrue(bytes.size() < n * 4);
+            int[] back = new int[n];
+            try (DecompressingIntInputStream in = new DecompressingIntInputStream(
+                    new ByteArrayInputStream(bytes.toByteArray()))) {
+                int k = 0;
+                for (; k < n / 2; ++k)
+                    back[k] = in.next();
+                while (k < n) {
+                    int howmany = in.read(back, k, Math.min(777, n - k));
+                    k += howmany;
+                }
+                assertFalse(in.hasNext());
+                assertEquals(-1, in.read(back, 0, 1));
+            }
+            assertArrayEquals(data, back);
+        }
+    }
+
+    /**
+     * @throws IOException on error
+     */
+    @Test
+    public void flushAndCodecTest() throws IOException {
+        int[] data = generate(10000);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SkippableIntegerCODEC codec = new SkippableComposition(new FastPFOR(), new VariableByte());
+        try (CompressingIntOutputStream out = new CompressingIntOutputStream(
+                Channels.newChannel(bytes), codec, 65536)) {
+            for (int k = 0; k < data.length; k += 1000) {
+                out.write(data, k, 1000);
+                out.flush();
+            }
+        }
+        int[] back = new int[data.length + 10];
+        try (DecompressingIntInputStream in = new DecompressingIntInputStream(
+                Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())),
+                codec, 65536)) {
+            assertEquals(data.length, in.read(back, 0, back.length));
+        }
+        assertArrayEquals(data, Arrays.copyOf(back, data.length));
+    }
+
+    /**
+     * @throws IOException expected
+     */
+    @Test(expected = EOFException.class)
+    public void truncatedTest() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CompressingIntOutputStream out = new CompressingIntOutputStream(bytes)) {
+            out.write(generate(1000), 0, 1000);
+        }
+        byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 1);
+        try (DecompressingIntInputStream in = new DecompressingIntInputStream(
+                new ByteArrayInputStream(truncated))) {
+            in.next();
+        }
+    }
+}
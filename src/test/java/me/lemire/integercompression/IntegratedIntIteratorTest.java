@@ -0,0 +1,144 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import me.lemire.integercompression.differential.IntegratedIntCompressor;
+import me.lemire.integercompression.differential.IntegratedIntIterator;
+
+/**
+ * Testing skipping over compressed sorted arrays.
+ */
+@SuppressWarnings({ "static-method" })
+public class IntegratedIntIteratorTest {
+
+    private static int[] sortedArray(Random r, int n, int gap) {
+        int[] data = new int[n];
+        int value = 0;
+        for (int k = 0; k < n; ++k) {
+            value += r.nextInt(gap);
+            data[k] = value;
+        }
+        return data;
+    }
+
+    private static IntegratedIntIterator iterator(int[] data) {
+        return new IntegratedIntIterator(IntegratedIntIterator.compress(data));
+    }
+
+    /**
+     * The block maxima are stored after the number of integers.
+     */
+    @Test
+    public void formatTest() {
+        int[] data = sortedArray(new Random(1234), 100, 100);
+        int[] compressed = IntegratedIntIterator.compress(data);
+        Assert.assertEquals(100, compressed[0]);
+        for (int b = 0; b < 3; ++b)
+            Assert.assertEquals(data[32 * b + 31], compressed[1 + b]);
+        // the rest is the output of IntegratedIntCompressor
+        int[] expected = new IntegratedIntCompressor().compress(data);
+        Assert.assertArrayEquals(Arrays.copyOfRange(expected, 1, expected.length),
+                Arrays.copyOfRange(compressed, 4, compressed.length));
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void iterateTest() {
+        Random r = new Random(1234);
+        for (int n : new int[] { 0, 1, 31, 32, 33, 128, 129, 1000 }) {
+            int[] data = sortedArray(r, n, 100);
+            IntegratedIntIterator it = iterator(data);
+            Assert.assertEquals(n, it.size());
+            for (int k = 0; k < n; ++k) {
+                Assert.assertTrue(it.hasNext());
+                Assert.assertEquals(data[k], it.next());
+            }
+            Assert.assertFalse(it.hasNext());
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void advanceTest() {
+        Random r = new Random(5678);
+        for (int n : new int[] { 0, 1, 31, 32, 33, 128, 129, 1000, 100000 }) {
+            int[] data = sortedArray(r, n, 10);
+            IntegratedIntIterator it = iterator(data);
+            int target = 0;
+            int consumed = 0; // number of values already returned by next()
+            while (true) {
+                target += r.nextInt(n < 1000 ? 20 : 2000);
+                int expected = Math.max(consumed, lowerBound(data, target));
+                boolean found = it.advance(target);
+                Assert.assertEquals(expected < n, found);
+                if (!found)
+                    break;
+                Assert.assertEquals(data[expected], it.peek());
+                Assert.assertEquals(data[expected], it.next());
+                consumed = expected + 1;
+                // the iterator must continue from there
+                if (expected + 1 < n) {
+                    Assert.assertTrue(it.hasNext());
+                    Assert.assertEquals(data[expected + 1], it.peek());
+                }
+                target = data[expected];
+            }
+            Assert.assertFalse(it.hasNext());
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void intersectionTest() {
+        Random r = new Random(42);
+        int[] a = sortedArray(r, 100000, 4);
+        int[] b = sortedArray(r, 1000, 400);
+        List<Integer> expected = new ArrayList<>();
+        for (int x : b)
+            if (Arrays.binarySearch(a, x) >= 0 && (expected.isEmpty()
+                    || expected.get(expected.size() - 1) != x))
+                expected.add(x);
+        List<Integer> answer = new ArrayList<>();
+        IntegratedIntIterator small = iterator(b);
+        IntegratedIntIterator large = iterator(a);
+        int last = -1;
+        while (small.hasNext()) {
+            int x = small.next();
+            if (x != last && large.advance(x) && large.peek() == x)
+                answer.add(x);
+            last = x;
+        }
+        Assert.assertEquals(expected, answer);
+    }
+
+    private static int lowerBound(int[] data, int target) {
+        int lo = 0, hi = data.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (data[mid] < target)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+}
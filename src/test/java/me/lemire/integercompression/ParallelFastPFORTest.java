@@ -0,0 +1,88 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checking that ParallelFastPFOR is compatible with FastPFOR.
+ */
+@SuppressWarnings({ "static-method" })
+public class ParallelFastPFORTest {
+
+    private static int[] generate(int n) {
+        Random r = new Random(n);
+        int[] data = new int[n];
+        for (int k = 0; k < n; ++k)
+            data[k] = r.nextInt(50) == 0 ? r.nextInt() : r.nextInt(1 << (k / 5000 % 16 + 1));
+        return data;
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void sameFormatTest() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelFastPFOR parallel = new ParallelFastPFOR(pool);
+            FastPFOR sequential = new FastPFOR();
+            for (int n : new int[] { 0, 256, 65536, 65536 + 256, 1000000 + 17 }) {
+                int[] data = generate(n);
+                int[] expected = TestUtils.compressHeadless(sequential, data);
+                int[] actual = TestUtils.compressHeadless(parallel, data);
+                assertArrayEquals(expected, actual);
+
+                int m = Util.greatestMultiple(n, FastPFOR.BLOCK_SIZE);
+                int[] back = TestUtils.uncompressHeadless(parallel, expected, m);
+                assertArrayEquals(Arrays.copyOf(data, m), Arrays.copyOf(back, m));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The output array can be smaller than maxHeadlessCompressedLength.
+     */
+    @Test
+    public void smallOutputTest() {
+        int[] data = generate(300000);
+        ParallelFastPFOR parallel = new ParallelFastPFOR();
+        int[] compressed = new int[data.length + 1024];
+        IntWrapper outpos = new IntWrapper(5);
+        IntWrapper inpos = new IntWrapper(0);
+        parallel.compress(data, inpos, data.length, compressed, outpos);
+        int m = Util.greatestMultiple(data.length, FastPFOR.BLOCK_SIZE);
+        assertEquals(m, inpos.get());
+        int[] back = new int[m];
+        IntWrapper inpos2 = new IntWrapper(5);
+        new FastPFOR().uncompress(compressed, inpos2, outpos.get() - 5, back, new IntWrapper(0));
+        assertEquals(outpos.get(), inpos2.get());
+        assertArrayEquals(Arrays.copyOf(data, m), back);
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void compositionTest() {
+        int[] data = generate(200000 + 33);
+        SkippableIntegerCODEC codec = new SkippableComposition(new ParallelFastPFOR(),
+                new VariableByte());
+        int[] compressed = TestUtils.compressHeadless(codec, data);
+        assertArrayEquals(data, TestUtils.uncompressHeadless(codec, compressed, data.length));
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Sharing a PooledCODEC between threads.
+ */
+@SuppressWarnings({ "static-method" })
+public class PooledCODECTest {
+
+    private static void roundTrip(SkippableIntegerCODEC codec, Random r) {
+        int[] data = new int[r.nextInt(5000)];
+        for (int k = 0; k < data.length; ++k)
+            data[k] = r.nextInt(20) == 0 ? r.nextInt() : r.nextInt(1000);
+        int[] compressed = TestUtils.compressHeadless(codec, data);
+        int[] back = TestUtils.uncompressHeadless(codec, compressed, data.length);
+        assertArrayEquals(data, Arrays.copyOf(back, data.length));
+    }
+
+    /**
+     * @throws Exception on error
+     */
+    @Test
+    public void concurrentTest() throws Exception {
+        SkippableIntegerCODEC[] codecs = {
+                new PooledCODEC(() -> new SkippableComposition(new FastPFOR(), new VariableByte()), 2),
+                new PooledCODEC(() -> new SkippableComposition(new OptPFD(), new VariableByte())) };
+        for (SkippableIntegerCODEC codec : codecs) {
+            for (ExecutorService executor : new ExecutorService[] {
+                    Executors.newFixedThreadPool(8),
+                    Executors.newVirtualThreadPerTaskExecutor() }) {
+                try {
+                    List<Future<?>> futures = new ArrayList<>();
+                    for (int t = 0; t < 32; ++t) {
+                        final int seed = t;
+                        futures.add(executor.submit(() -> {
+                            Random r = new Random(seed);
+                            for (int k = 0; k < 50; ++k)
+                                roundTrip(codec, r);
+                        }));
+                    }
+                    for (Future<?> f : futures)
+                        f.get();
+                } catch (ExecutionException e) {
+                    throw new AssertionError(e.getCause());
+                } finally {
+                    executor.shutdown();
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void integerCODECTest() {
+        PooledIntegerCODEC codec = new PooledIntegerCODEC(FastPFOR::new);
+        int[] data = new int[1024];
+        for (int k = 0; k < data.length; ++k)
+            data[k] = k;
+        TestUtils.assertSymmetry(codec, data);
+        assertEquals("PooledIntegerCODEC(FastPFOR)", codec.toString());
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import me.lemire.integercompression.differential.Delta;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing RunLength on columns with runs.
+ */
+@SuppressWarnings({ "static-method" })
+public class RunLengthTest {
+    private static RunLength newCodec() {
+        return new RunLength(new SkippableComposition(new BinaryPacking(), new VariableByte()));
+    }
+
+    /**
+     * A constant column is a single run.
+     */
+    @Test
+    public void constantTest() {
+        int[] data = new int[10000];
+        Arrays.fill(data, 123456);
+        int[] compressed = TestUtils.compressHeadless(newCodec(), data);
+        // number of runs, one triple, and the (empty) literals
+        assertEquals(5, compressed.length);
+        assertArrayEquals(data, TestUtils.uncompressHeadless(newCodec(), compressed, data.length));
+    }
+
+    private static RunLength newDifferentialCodec(int minRun) {
+        return new RunLength(new SkippableComposition(new BinaryPacking(), new VariableByte()),
+                minRun, true);
+    }
+
+    /**
+     * Dense sorted lists are runs of deltas.
+     */
+    @Test
+    public void sortedDenseTest() {
+        int[] data = new int[10000];
+        for (int k = 0; k < data.length; ++k)
+            data[k] = 1000 + k;
+        int[] deltas = Arrays.copyOf(data, data.length);
+        Delta.delta(deltas);
+        int[] compressed = TestUtils.compressHeadless(newCodec(), deltas);
+        assertTrue(compressed.length < 16);
+        int[] answer = TestUtils.uncompressHeadless(newCodec(), compressed, data.length);
+        Delta.fastinverseDelta(answer);
+        assertArrayEquals(data, answer);
+        // the same without a separate Delta pass
+        int[] differential = TestUtils.compressHeadless(
+                newDifferentialCodec(RunLength.DEFAULT_MIN_RUN), data);
+        assertArrayEquals(compressed, differential);
+        assertArrayEquals(data, TestUtils.uncompressHeadless(
+                newDifferentialCodec(RunLength.DEFAULT_MIN_RUN), differential, data.length));
+    }
+
+    /**
+     * Sorted lists made of dense ranges and gaps, at various offsets.
+     */
+    @Test
+    public void differentialTest() {
+        Random r = new Random(2);
+        RunLength codec = newDifferentialCodec(8);
+        assertEquals("RunLength(differential) + BinaryPacking+VariableByte", codec.toString());
+        for (int N = 1; N <= 100000; N *= 10) {
+            int[] data = new int[N];
+            int value = r.nextInt(1000);
+            for (int k = 0; k < N;) {
+                int length = Math.min(N - k, 1 + r.nextInt(100));
+                int step = r.nextInt(2) == 0 ? 1 : r.nextInt(1000);
+                for (int i = 0; i < length; ++i)
+                    data[k + i] = value += step;
+                k += length;
+            }
+            int[] compressed = new int[codec.maxHeadlessCompressedLength(new IntWrapper(), N) + 7];
+            IntWrapper outpos = new IntWrapper(7);
+            codec.headlessCompress(data, new IntWrapper(), N, compressed, outpos);
+            int[] answer = new int[N + 3];
+            IntWrapper inpos = new IntWrapper(7);
+            IntWrapper answerpos = new IntWrapper(3);
+            codec.headlessUncompress(compressed, inpos, outpos.get() - 7, answer, answerpos, N);
+            assertEquals(outpos.get(), inpos.get());
+            assertEquals(N + 3, answerpos.get());
+            assertArrayEquals(data, Arrays.copyOfRange(answer, 3, N + 3));
+        }
+    }
+
+    /**
+     * Runs mixed with literals, at various offsets.
+     */
+    @Test
+    public void mixedTest() {
+        Random r = new Random(1);
+        RunLength codec = new RunLength(new SkippableComposition(new BinaryPacking(), new VariableByte()), 8);
+        for (int N = 1; N <= 100000; N *= 10) {
+            int[] data = new int[N];
+            for (int k = 0; k < N;) {
+                int length = Math.min(N - k, r.nextInt(2) == 0 ? 1 + r.nextInt(4) : 1 + r.nextInt(100));
+                Arrays.fill(data, k, k + length, r.nextInt() >>> r.nextInt(32));
+                k += length;
+            }
+            int[] compressed = new int[codec.maxHeadlessCompressedLength(new IntWrapper(), N) + 7];
+            IntWrapper outpos = new IntWrapper(7);
+            codec.headlessCompress(data, new IntWrapper(), N, compressed, outpos);
+            int[] answer = new int[N + 3];
+            IntWrapper inpos = new IntWrapper(7);
+            IntWrapper answerpos = new IntWrapper(3);
+            codec.headlessUncompress(compressed, inpos, outpos.get() - 7, answer, answerpos, N);
+            assertEquals(outpos.get(), inpos.get());
+            assertEquals(N + 3, answerpos.get());
+            assertArrayEquals(data, Arrays.copyOfRange(answer, 3, N + 3));
+        }
+    }
+}
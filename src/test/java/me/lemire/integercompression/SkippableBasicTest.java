@@ -10,6 +10,7 @@ package me.lemire.integercompression;
 import java.util.Arrays;
 
 import me.lemire.integercompression.differential.IntegratedBinaryPacking;
+import me.lemire.integercompression.differential.IntegratedStreamVByte;
 import me.lemire.integercompression.differential.IntegratedVariableByte;
 import me.lemire.integercompression.differential.SkippableIntegratedComposition;
 import me.lemire.integercompression.differential.SkippableIntegratedIntegerCODEC;
@@ -28,7 +29,9 @@ public class SkippableBasicTest {
     final SkippableIntegerCODEC[] codecs = {
             new JustCopy(),
             new VariableByte(),
+            new StreamVByte(),
             new SkippableComposition(new BinaryPacking(), new VariableByte()),
+            new SkippableComposition(new BinaryPacking(), new StreamVByte()),
             new SkippableComposition(new NewPFD(), new VariableByte()),
             new SkippableComposition(new NewPFDS9(), new VariableByte()),
             new SkippableComposition(new NewPFDS16(), new VariableByte()),
@@ -38,7 +41,11 @@ public class SkippableBasicTest {
             new SkippableComposition(new FastPFOR128(), new VariableByte()),
             new SkippableComposition(new FastPFOR(), new VariableByte()),
             new Simple9(),
-            new Simple16() };
+            new Simple16(),
+            new Simple8b(),
+            new SkippableComposition(new FrameOfReference(), new VariableByte()),
+            new RunLength(new SkippableComposition(new BinaryPacking(), new VariableByte())),
+            new AdaptiveCODEC() };
 
     
     /**
@@ -158,14 +165,17 @@ public class SkippableBasicTest {
     public void testMaxHeadlessCompressedLength() {
         testMaxHeadlessCompressedLength(new IntegratedBinaryPacking(), 16 * IntegratedBinaryPacking.BLOCK_SIZE);
         testMaxHeadlessCompressedLength(new IntegratedVariableByte(), 128);
+        testMaxHeadlessCompressedLength(new IntegratedStreamVByte(), 128);
         testMaxHeadlessCompressedLength(new SkippableIntegratedComposition(new IntegratedBinaryPacking(), new IntegratedVariableByte()), 16 * IntegratedBinaryPacking.BLOCK_SIZE + 10);
 
         testMaxHeadlessCompressedLength(new BinaryPacking(), 16 * BinaryPacking.BLOCK_SIZE, 32);
         testMaxHeadlessCompressedLength(new VariableByte(), 128, 32);
+        testMaxHeadlessCompressedLength(new StreamVByte(), 128, 32);
         testMaxHeadlessCompressedLength(new SkippableComposition(new BinaryPacking(), new VariableByte()), 16 * BinaryPacking.BLOCK_SIZE + 10, 32);
         testMaxHeadlessCompressedLength(new JustCopy(), 128, 32);
         testMaxHeadlessCompressedLength(new Simple9(), 128, 28);
         testMaxHeadlessCompressedLength(new Simple16(), 128, 28);
+        testMaxHeadlessCompressedLength(new Simple8b(), 128, 32);
         testMaxHeadlessCompressedLength(new GroupSimple9(), 128, 28);
         testMaxHeadlessCompressedLength(new OptPFD(), 4 * OptPFD.BLOCK_SIZE, 32);
         testMaxHeadlessCompressedLength(new SkippableComposition(new OptPFD(), new VariableByte()), 4 * OptPFD.BLOCK_SIZE + 10, 32);
@@ -186,6 +196,10 @@ public class SkippableBasicTest {
         int fastPforPageSize = FastPFOR.BLOCK_SIZE * 4; // smaller page size than the default to speed up the test
         testMaxHeadlessCompressedLength(new FastPFOR(fastPforPageSize), 2 * fastPforPageSize, 32);
         testMaxHeadlessCompressedLength(new SkippableComposition(new FastPFOR(fastPforPageSize), new VariableByte()), 2 * fastPforPageSize + 10, 32);
+        testMaxHeadlessCompressedLength(new FrameOfReference(), 4 * FrameOfReference.BLOCK_SIZE, 32);
+        testMaxHeadlessCompressedLength(new SkippableComposition(new FrameOfReference(), new VariableByte()), 4 * FrameOfReference.BLOCK_SIZE + 10, 32);
+        testMaxHeadlessCompressedLength(new RunLength(new SkippableComposition(new BinaryPacking(), new VariableByte())), 4 * BinaryPacking.BLOCK_SIZE + 10, 32);
+        testMaxHeadlessCompressedLength(new AdaptiveCODEC(FastPFOR.BLOCK_SIZE), 3 * FastPFOR.BLOCK_SIZE + 10, 32);
     }
 
     private static void testMaxHeadlessCompressedLength(SkippableIntegratedIntegerCODEC codec, int inlengthTo) {
@@ -0,0 +1,118 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checking that the IntBuffer methods are consistent with the array methods.
+ */
+@SuppressWarnings({ "static-method" })
+public class SkippableIntBufferTest {
+    final SkippableIntBufferCODEC[] codecs = {
+            new VariableByte(),
+            new SkippableIntBufferComposition(new BinaryPacking(), new VariableByte()),
+            new SkippableIntBufferComposition(new FastPFOR(), new VariableByte()) };
+
+    private static int[] generate(Random r, int n) {
+        int[] data = new int[n];
+        for (int k = 0; k < n; ++k) {
+            // mostly small values with a few exceptions
+            data[k] = r.nextInt(10) == 0 ? r.nextInt() : r.nextInt(1 << (k % 12));
+        }
+        return data;
+    }
+
+    private static IntBuffer directIntBuffer(int n) {
+        return ByteBuffer.allocateDirect(n * 4).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    /**
+     * The compressed output must be identical with both APIs.
+     */
+    @Test
+    public void sameFormatTest() {
+        Random r = new Random(1234);
+        for (SkippableIntBufferCODEC c : codecs) {
+            for (int n : new int[] { 0, 1, 31, 32, 129, 256, 1000, 5000, 70000 }) {
+                int[] data = generate(r, n);
+                int[] expected = TestUtils.compressHeadless(c, data);
+
+                IntBuffer compressed = directIntBuffer(c.maxHeadlessCompressedLength(new IntWrapper(0), n));
+                IntWrapper inpos = new IntWrapper(0);
+                IntWrapper outpos = new IntWrapper(0);
+                c.headlessCompress(IntBuffer.wrap(data), inpos, n, compressed, outpos);
+                assertEquals(n, inpos.get());
+                int[] actual = new int[outpos.get()];
+                compressed.get(0, actual);
+                assertArrayEquals(c.toString(), expected, actual);
+            }
+        }
+    }
+
+    /**
+     * Data compressed to an array can be uncompressed directly from a buffer.
+     */
+    @Test
+    public void uncompressFromBufferTest() {
+        Random r = new Random(5678);
+        for (SkippableIntBufferCODEC c : codecs) {
+            for (int n : new int[] { 0, 1, 31, 32, 129, 256, 1000, 5000, 70000 }) {
+                int[] data = generate(r, n);
+                int[] compressed = TestUtils.compressHeadless(c, data);
+                // store the data at an offset within a little-endian byte buffer
+                final int offset = 3;
+                ByteBuffer bytes = ByteBuffer.allocateDirect((compressed.length + offset) * 4)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                IntBuffer in = bytes.asIntBuffer();
+                in.put(offset, compressed);
+                IntBuffer out = directIntBuffer(n + offset);
+                IntWrapper inpos = new IntWrapper(offset);
+                IntWrapper outpos = new IntWrapper(offset);
+                c.headlessUncompress(in, inpos, compressed.length, out, outpos, n);
+                assertEquals(compressed.length + offset, inpos.get());
+                assertEquals(n + offset, outpos.get());
+                int[] back = new int[n];
+                out.get(offset, back);
+                assertArrayEquals(c.toString(), data, back);
+            }
+        }
+    }
+
+    /**
+     * Several segments can be decoded one after the other from the same buffer.
+     */
+    @Test
+    public void consecutiveSegmentsTest() {
+        Random r = new Random(42);
+        for (SkippableIntBufferCODEC c : codecs) {
+            int[][] segments = { generate(r, 300), generate(r, 17), generate(r, 2048) };
+            IntBuffer compressed = directIntBuffer(4096);
+            IntWrapper outpos = new IntWrapper(0);
+            for (int[] segment : segments)
+                c.headlessCompress(IntBuffer.wrap(segment), new IntWrapper(0), segment.length,
+                        compressed, outpos);
+            IntWrapper inpos = new IntWrapper(0);
+            for (int[] segment : segments) {
+                int[] back = new int[segment.length];
+                c.headlessUncompress(compressed, inpos, outpos.get() - inpos.get(),
+                        IntBuffer.wrap(back), new IntWrapper(0), segment.length);
+                assertArrayEquals(c.toString(), segment, back);
+            }
+            assertEquals(outpos.get(), inpos.get());
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import jdk.incubator.vector.IntVector;
+import me.lemire.integercompression.differential.Delta;
+import me.lemire.integercompression.differential.IntegratedStreamVByte;
+import me.lemire.integercompression.vector.VectorAggregation;
+import me.lemire.integercompression.vector.VectorBlockStatistics;
+import me.lemire.integercompression.vector.VectorDelta;
+import me.lemire.integercompression.vector.VectorFastPFOR;
+import me.lemire.integercompression.vector.VectorIntegratedStreamVByte;
+import me.lemire.integercompression.vector.VectorSimple16;
+import me.lemire.integercompression.vector.VectorStreamVByte;
+import me.lemire.longcompression.differential.LongDelta;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checking that VerticalFastPFOR is compatible with VectorFastPFOR. The tests
+ * are run with the Vector API (see pom.xml).
+ */
+@SuppressWarnings({ "static-method" })
+public class VectorSupportTest {
+
+    private static int[] generate(int n) {
+        Random r = new Random(n);
+        int[] data = new int[n];
+        for (int k = 0; k < n; ++k) {
+            int bits = k / 4096 % 33;
+            if (bits == 32)
+                // mostly zeros with large exceptions (b = 0, maxbits = 32)
+                data[k] = r.nextInt(20) == 0 ? r.nextInt() | Integer.MIN_VALUE : 0;
+            else if (r.nextInt(30) == 0)
+                data[k] = r.nextInt() >>> r.nextInt(32);
+            else
+                data[k] = bits == 0 ? 0 : r.nextInt() >>> (32 - bits);
+        }
+        return data;
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void vectorIsAvailableTest() {
+        assertTrue(VectorSupport.isAvailable());
+        assertTrue(VectorSupport.newFastPFOR() instanceof VectorFastPFOR);
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void bitPackingTest() {
+        Random r = new Random(1234);
+        int[] data = new int[VerticalBitPacking.BLOCK_SIZE];
+        for (int bit = 0; bit <= 32; ++bit) {
+            for (int k = 0; k < data.length; ++k)
+                data[k] = bit == 0 ? 0 : r.nextInt() >>> (32 - bit);
+            int[] compressed = new int[8 * bit];
+            VerticalBitPacking.pack(data, 0, compressed, 0, bit);
+            int[] back = new int[data.length];
+            VerticalBitPacking.unpack(compressed, 0, back, 0, bit);
+            assertArrayEquals(data, back);
+            for (int num = 0; num < data.length; num += 17) {
+                int end = VerticalBitPacking.slowpack(data, 0, num, compressed, 0, bit);
+                assertTrue(end == (num * bit + 31) / 32);
+                Arrays.fill(back, 0);
+                VerticalBitPacking.slowunpack(compressed, 0, back, 0, num, bit);
+                assertArrayEquals(Arrays.copyOf(data, num), Arrays.copyOf(back, num));
+            }
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void sameFormatTest() {
+        VectorFastPFOR vector = new VectorFastPFOR();
+        VerticalFastPFOR scalar = new VerticalFastPFOR();
+        for (int n : new int[] { 0, 256, 4096 * 33, 65536 + 256, 300000 + 17 }) {
+            int[] data = generate(n);
+            int m = Util.greatestMultiple(n, VerticalFastPFOR.BLOCK_SIZE);
+            int[] expected = TestUtils.compressHeadless(vector, data);
+            int[] actual = TestUtils.compressHeadless(scalar, data);
+            assertArrayEquals(expected, actual);
+            assertArrayEquals(Arrays.copyOf(data, m),
+                    TestUtils.uncompressHeadless(scalar, expected, m));
+            assertArrayEquals(Arrays.copyOf(data, m),
+                    TestUtils.uncompressHeadless(vector, actual, m));
+        }
+    }
+
+    /**
+     * The output must not depend on the content of the output array.
+     */
+    @Test
+    public void dirtyOutputTest() {
+        int[] data = generate(4096 * 33);
+        for (SkippableIntegerCODEC codec : new SkippableIntegerCODEC[] {
+                new VectorFastPFOR(), new VerticalFastPFOR() }) {
+            int[] clean = TestUtils.compressHeadless(codec, data);
+            int[] dirty = new int[codec.maxHeadlessCompressedLength(new IntWrapper(0), data.length)];
+            Arrays.fill(dirty, -1);
+            IntWrapper outpos = new IntWrapper(0);
+            codec.headlessCompress(data, new IntWrapper(0), data.length, dirty, outpos);
+            assertArrayEquals(clean, Arrays.copyOf(dirty, outpos.get()));
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void compositionTest() {
+        int[] data = generate(100000 + 3);
+        TestUtils.assertSymmetry(new Composition(new VerticalFastPFOR(), new VariableByte()), data);
+        TestUtils.assertSymmetry(new Composition(
+                (IntegerCODEC) VectorSupport.newFastPFOR(), new VariableByte()), data);
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void parallelTest() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelFastPFOR parallel = new ParallelFastPFOR(pool,
+                    VectorSupport::newFastPFOR, VerticalFastPFOR.DEFAULT_PAGE_SIZE);
+            int[] data = generate(500000);
+            int m = Util.greatestMultiple(data.length, VerticalFastPFOR.BLOCK_SIZE);
+            int[] compressed = TestUtils.compressHeadless(parallel, data);
+            assertArrayEquals(TestUtils.compressHeadless(new VerticalFastPFOR(), data), compressed);
+            assertArrayEquals(Arrays.copyOf(data, m),
+                    TestUtils.uncompressHeadless(parallel, compressed, m));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void inverseDeltaTest() {
+        Random r = new Random(5);
+        for (int length = 1; length < 200; length += 7) {
+            int[] data = new int[length + 10];
+            long[] longs = new long[data.length];
+            for (int k = 0; k < data.length; ++k) {
+                data[k] = r.nextInt();
+                longs[k] = r.nextLong();
+            }
+            int init = r.nextInt();
+            int[] expected = data.clone();
+            int next = Delta.fastinverseDelta(expected, 5, length, init);
+            int[] actual = data.clone();
+            assertEquals(next, VectorDelta.fastinverseDelta(actual, 5, length, init));
+            assertArrayEquals(expected, actual);
+            actual = data.clone();
+            assertEquals(next, VectorSupport.fastinverseDelta(actual, 5, length, init));
+            assertArrayEquals(expected, actual);
+            expected = data.clone();
+            Delta.fastinverseDelta(expected);
+            actual = data.clone();
+            VectorDelta.fastinverseDelta(actual);
+            assertArrayEquals(expected, actual);
+
+            long[] expectedlongs = longs.clone();
+            long nextlong = LongDelta.fastinverseDelta(expectedlongs, 5, length, init);
+            long[] actuallongs = longs.clone();
+            assertEquals(nextlong, VectorDelta.fastinverseDelta(actuallongs, 5, length, init));
+            assertArrayEquals(expectedlongs, actuallongs);
+            expectedlongs = longs.clone();
+            LongDelta.fastinverseDelta(expectedlongs);
+            actuallongs = longs.clone();
+            VectorDelta.fastinverseDelta(actuallongs);
+            assertArrayEquals(expectedlongs, actuallongs);
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void aggregationTest() {
+        assertTrue(VectorSupport.newVerticalAggregation() instanceof VectorAggregation);
+        for (int n : new int[] { 0, 256, 4096 * 33, 300000 }) {
+            int[] data = generate(n);
+            int m = Util.greatestMultiple(n, VerticalFastPFOR.BLOCK_SIZE);
+            int[] compressed = TestUtils.compressHeadless(new VerticalFastPFOR(), data);
+            for (VerticalAggregation aggregation : new VerticalAggregation[] {
+                    new VerticalAggregation(), new VectorAggregation() }) {
+                for (BlockStatistics stats : new BlockStatistics[] {
+                        new BlockStatistics(), new VectorBlockStatistics() }) {
+                    IntWrapper inpos = new IntWrapper(0);
+                    aggregation.fastPFOR(compressed, inpos, n, stats);
+                    assertEquals(compressed.length, inpos.get());
+                    CompressedAggregationTest.checkStatistics(data, m, stats);
+                }
+            }
+        }
+        int[] data = CompressedAggregationTest.generate(1000);
+        BlockStatistics stats = new VectorBlockStatistics();
+        stats.accept(data, 3, 997);
+        CompressedAggregationTest.checkStatistics(Arrays.copyOfRange(data, 3, 1000), 997, stats);
+    }
+
+    /**
+     * VectorStreamVByte reads the format of StreamVByte, including at the end
+     * of the arrays.
+     */
+    @Test
+    public void streamVByteTest() {
+        assertTrue(VectorSupport.newStreamVByte() instanceof VectorStreamVByte);
+        Random r = new Random(1234);
+        for (int n : new int[] { 0, 1, 3, 4, 5, 15, 16, 17, 63, 100, 1000, 100003 }) {
+            int[] data = new int[n];
+            for (int k = 0; k < n; ++k)
+                data[k] = r.nextInt() >>> (8 * r.nextInt(4) + r.nextInt(8));
+            StreamVByte scalar = new StreamVByte();
+            StreamVByte vector = new VectorStreamVByte();
+            int[] compressed = TestUtils.compressHeadless(scalar, data);
+            assertArrayEquals(data, TestUtils.uncompressHeadless(scalar, compressed, n));
+            assertArrayEquals(data, TestUtils.uncompressHeadless(vector, compressed, n));
+            byte[] bytes = TestUtils.compress((ByteIntegerCODEC) scalar, data);
+            assertArrayEquals(data, TestUtils.uncompress((ByteIntegerCODEC) scalar, bytes, n));
+            assertArrayEquals(data, TestUtils.uncompress((ByteIntegerCODEC) vector, bytes, n));
+        }
+    }
+
+    /**
+     * VectorIntegratedStreamVByte reads the format of IntegratedStreamVByte,
+     * including at the end of the arrays and with an initial value.
+     */
+    @Test
+    public void integratedStreamVByteTest() {
+        assertTrue(VectorSupport.newIntegratedStreamVByte() instanceof VectorIntegratedStreamVByte);
+        Random r = new Random(1234);
+        for (int n : new int[] { 0, 1, 3, 4, 5, 15, 16, 17, 63, 100, 1000, 100003 }) {
+            int[] data = new int[n];
+            int value = 12345;
+            for (int k = 0; k < n; ++k)
+                data[k] = value += r.nextInt() >>> (8 * r.nextInt(4) + r.nextInt(8));
+            IntegratedStreamVByte scalar = new IntegratedStreamVByte();
+            IntegratedStreamVByte vector = new VectorIntegratedStreamVByte();
+            int[] compressed = new int[scalar.maxHeadlessCompressedLength(new IntWrapper(), n)];
+            IntWrapper outpos = new IntWrapper();
+            IntWrapper initvalue = new IntWrapper(7);
+            scalar.headlessCompress(data, new IntWrapper(), n, compressed, outpos, initvalue);
+            compressed = Arrays.copyOf(compressed, outpos.get());
+            for (IntegratedStreamVByte codec : new IntegratedStreamVByte[] { scalar, vector }) {
+                int[] answer = new int[n];
+                IntWrapper inpos = new IntWrapper();
+                IntWrapper last = new IntWrapper(7);
+                codec.headlessUncompress(compressed, inpos, compressed.length, answer, new IntWrapper(), n, last);
+                assertArrayEquals(data, answer);
+                assertEquals(compressed.length, inpos.get());
+                assertEquals(initvalue.get(), last.get());
+            }
+            byte[] bytes = TestUtils.compress((ByteIntegerCODEC) scalar, data);
+            assertArrayEquals(data, TestUtils.uncompress((ByteIntegerCODEC) vector, bytes, n));
+        }
+    }
+
+    /**
+     * VectorSimple16 reads the format of Simple16, for all selectors.
+     */
+    @Test
+    public void simple16Test() {
+        // the scalar codec is selected with vectors narrower than 256 bits
+        assertEquals(IntVector.SPECIES_PREFERRED.vectorBitSize() >= 256,
+                VectorSupport.newSimple16() instanceof VectorSimple16);
+        Random r = new Random(1234);
+        for (int n : new int[] { 0, 1, 27, 28, 33, 1000, 100003 }) {
+            int[] data = new int[n];
+            for (int k = 0; k < n; ++k)
+                data[k] = r.nextInt() >>> (4 + r.nextInt(28) * (k / 500 % 2));
+            int[] compressed = TestUtils.compressHeadless(new Simple16(), data);
+            assertArrayEquals(compressed, TestUtils.compressHeadless(new VectorSimple16(), data));
+            assertArrayEquals(data, TestUtils.uncompressHeadless(new VectorSimple16(), compressed, n));
+            TestUtils.assertSymmetry(new VectorSimple16(), data);
+        }
+    }
+}
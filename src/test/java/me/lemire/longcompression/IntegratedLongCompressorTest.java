@@ -0,0 +1,123 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.longcompression;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.longcompression.differential.IntegratedLongBinaryPacking;
+import me.lemire.longcompression.differential.IntegratedLongCompressor;
+import me.lemire.longcompression.differential.IntegratedLongVariableByte;
+import me.lemire.longcompression.differential.LongDelta;
+import me.lemire.longcompression.differential.LongGorilla;
+import me.lemire.longcompression.differential.SkippableIntegratedLongCODEC;
+import me.lemire.longcompression.differential.SkippableIntegratedLongComposition;
+
+/**
+ * Testing IntegratedLongCompressor objects and the integrated long codecs.
+ */
+public class IntegratedLongCompressorTest {
+    IntegratedLongCompressor[] ilc = {
+            new IntegratedLongCompressor(),
+            new IntegratedLongCompressor(new IntegratedLongVariableByte()),
+            new IntegratedLongCompressor(new LongGorilla()),
+            new IntegratedLongCompressor(
+                    new SkippableIntegratedLongComposition(
+                            new IntegratedLongBinaryPacking(),
+                            new IntegratedLongVariableByte())) };
+
+    private static long[] sorted(int N, int gapbits) {
+        Random r = new Random(N + gapbits);
+        long[] data = new long[N];
+        long value = 1700000000000000000L;
+        for (int k = 0; k < N; k++) {
+            data[k] = value;
+            value += gapbits == 0 ? 0 : r.nextLong() >>> (64 - gapbits);
+        }
+        return data;
+    }
+
+    /**
+     * 
+     */
+    @Test
+    public void basicIntegratedTest() {
+        for (int N = 1; N <= 100000; N *= 10) {
+            for (int gapbits = 0; gapbits <= 56; gapbits += 7) {
+                long[] orig = sorted(N, gapbits);
+                for (IntegratedLongCompressor i : ilc) {
+                    long[] comp = i.compress(orig);
+                    long[] back = i.uncompress(comp);
+                    Assert.assertArrayEquals(orig, back);
+                }
+            }
+        }
+    }
+
+    /**
+     * Every bit width, with unsorted data (the deltas wrap around).
+     */
+    @Test
+    public void bitWidthTest() {
+        Random r = new Random(1234);
+        for (int bits = 0; bits <= 64; ++bits) {
+            long[] orig = new long[IntegratedLongBinaryPacking.BLOCK_SIZE * 11 + 5];
+            for (int k = 0; k < orig.length; k++)
+                orig[k] = bits == 0 ? 7 : r.nextLong() >>> (64 - bits);
+            for (IntegratedLongCompressor i : ilc)
+                Assert.assertArrayEquals(orig, i.uncompress(i.compress(orig)));
+        }
+    }
+
+    /**
+     * Compressing and uncompressing in several calls, passing the initial
+     * value along.
+     */
+    @Test
+    public void segmentTest() {
+        SkippableIntegratedLongCODEC codec = new SkippableIntegratedLongComposition(
+                new IntegratedLongBinaryPacking(), new IntegratedLongVariableByte());
+        long[] orig = sorted(10000, 20);
+        int[] segments = { 1000, 3000, 6000 };
+        long[] compressed = new long[codec.maxHeadlessCompressedLength(new IntWrapper(), orig.length)
+                + segments.length];
+        IntWrapper inpos = new IntWrapper();
+        IntWrapper outpos = new IntWrapper();
+        LongWrapper initvalue = new LongWrapper();
+        for (int length : segments)
+            codec.headlessCompress(orig, inpos, length, compressed, outpos, initvalue);
+        Assert.assertEquals(orig[orig.length - 1], initvalue.get());
+
+        long[] back = new long[orig.length];
+        inpos.set(0);
+        outpos.set(0);
+        initvalue.set(0);
+        for (int length : segments)
+            codec.headlessUncompress(compressed, inpos, compressed.length - inpos.get(), back,
+                    outpos, length, initvalue);
+        Assert.assertArrayEquals(orig, back);
+    }
+
+    /**
+     * The integrated codec compresses sorted keys as well as LongBinaryPacking
+     * after LongDelta.
+     */
+    @Test
+    public void sizeTest() {
+        long[] orig = sorted(100000, 12);
+        long[] deltas = Arrays.copyOf(orig, orig.length);
+        LongDelta.delta(deltas);
+        long[] separate = new LongCompressor().compress(deltas);
+        long[] integrated = new IntegratedLongCompressor().compress(orig);
+        Assert.assertEquals(separate.length, integrated.length);
+    }
+}
@@ -17,7 +17,11 @@ import org.junit.Test;
 import me.lemire.integercompression.FastPFOR;
 import me.lemire.integercompression.FastPFOR128;
 import me.lemire.integercompression.IntWrapper;
+import me.lemire.longcompression.differential.IntegratedLongBinaryPacking;
+import me.lemire.longcompression.differential.IntegratedLongComposition;
+import me.lemire.longcompression.differential.IntegratedLongVariableByte;
 import me.lemire.longcompression.differential.LongDelta;
+import me.lemire.longcompression.differential.LongGorilla;
 import me.lemire.longcompression.synth.LongClusteredDataGenerator;
 
 /**
@@ -32,6 +36,11 @@ public class LongBasicTest {
             new LongVariableByte(),
             new LongAs2IntsCodec(),
             new LongComposition(new LongBinaryPacking(), new LongVariableByte()),
+            new LongComposition(new LongFrameOfReference(), new LongVariableByte()),
+            new LongComposition(new LongFastPFOR(), new LongVariableByte()),
+            new IntegratedLongVariableByte(),
+            new LongGorilla(),
+            new IntegratedLongComposition(new IntegratedLongBinaryPacking(), new IntegratedLongVariableByte()),
             };
 
     /**
@@ -0,0 +1,65 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.longcompression;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checking LongFastPFOR on data with exceptions.
+ */
+@SuppressWarnings({ "static-method" })
+public class LongFastPFORTest {
+
+    /**
+     * Exceptions of all widths, over several pages.
+     */
+    @Test
+    public void exceptionsTest() {
+        Random r = new Random(1234);
+        for (int pageSize : new int[] { LongFastPFOR.BLOCK_SIZE, LongFastPFOR.BLOCK_SIZE * 4,
+                LongFastPFOR.DEFAULT_PAGE_SIZE }) {
+            for (int bits = 0; bits <= 64; ++bits) {
+                long[] data = new long[LongFastPFOR.BLOCK_SIZE * 9 + 17];
+                for (int k = 0; k < data.length; ++k) {
+                    data[k] = bits == 0 ? 0 : r.nextLong() >>> (64 - bits);
+                    if (r.nextInt(30) == 0)
+                        data[k] = r.nextLong() >>> r.nextInt(64);
+                }
+                SkippableLongCODEC codec = new SkippableLongComposition(new LongFastPFOR(pageSize),
+                        new LongVariableByte());
+                long[] compressed = LongTestUtils.compressHeadless(codec, data);
+                long[] answer = LongTestUtils.uncompressHeadless(codec, compressed, data.length);
+                assertArrayEquals(data, answer);
+            }
+        }
+    }
+
+    /**
+     * One outlier per block does not make LongFastPFOR pack its block with
+     * 64 bits.
+     */
+    @Test
+    public void outlierTest() {
+        long[] data = new long[LongFastPFOR.BLOCK_SIZE * 64];
+        long timestamp = 1700000000000000000L;
+        for (int k = 0; k < data.length; ++k) {
+            // nanosecond timestamps, after differential coding
+            data[k] = k % 200 == 0 ? timestamp : 1000 + (k * 7919) % 1000;
+        }
+        long[] fastpfor = LongTestUtils.compressHeadless(new LongFastPFOR(), data);
+        long[] binarypacking = LongTestUtils.compressHeadless(new LongBinaryPacking(), data);
+        assertArrayEquals(data,
+                LongTestUtils.uncompressHeadless(new LongFastPFOR(), fastpfor, data.length));
+        assertTrue(fastpfor.length * 2 < binarypacking.length);
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.longcompression;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.longcompression.differential.LongGorilla;
+
+/**
+ * Checking LongGorilla on doubles and on time series of longs.
+ */
+@SuppressWarnings({ "static-method" })
+public class LongGorillaTest {
+
+    // a gauge: slowly changing, often repeated, values
+    private static double[] gauge(int N) {
+        Random r = new Random(N);
+        double[] data = new double[N];
+        double value = 20.5;
+        for (int k = 0; k < N; ++k) {
+            if (r.nextInt(4) == 0)
+                value += (r.nextInt(21) - 10) * 0.25;
+            data[k] = value;
+        }
+        return data;
+    }
+
+    private static long[] compress(LongGorilla codec, double[] data) {
+        long[] compressed = new long[codec.maxHeadlessCompressedLength(new IntWrapper(), data.length)];
+        IntWrapper outpos = new IntWrapper();
+        codec.headlessCompress(data, new IntWrapper(), data.length, compressed, outpos, new LongWrapper());
+        return Arrays.copyOf(compressed, outpos.get());
+    }
+
+    private static double[] uncompress(LongGorilla codec, long[] compressed, int num) {
+        double[] answer = new double[num];
+        IntWrapper inpos = new IntWrapper();
+        codec.headlessUncompress(compressed, inpos, compressed.length, answer, new IntWrapper(), num,
+                new LongWrapper());
+        assertEquals(compressed.length, inpos.get());
+        return answer;
+    }
+
+    /**
+     * Gauges are restored exactly, with a few bits per value.
+     */
+    @Test
+    public void gaugeTest() {
+        LongGorilla codec = new LongGorilla();
+        for (int N = 1; N <= 100000; N *= 10) {
+            double[] data = gauge(N);
+            long[] compressed = compress(codec, data);
+            assertArrayEquals(data, uncompress(codec, compressed, N), 0);
+            if (N >= 1000)
+                assertTrue(compressed.length * 4 < N);
+        }
+    }
+
+    /**
+     * The bits of special doubles are kept.
+     */
+    @Test
+    public void specialValuesTest() {
+        LongGorilla codec = new LongGorilla();
+        double[] data = { 0.0, -0.0, Double.NaN, Double.longBitsToDouble(0x7ff8000000000123L),
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.MIN_VALUE, Double.MAX_VALUE,
+                -Double.MAX_VALUE, 1.0, 1.0, 0.1, 0.2, 0.3 };
+        double[] answer = uncompress(codec, compress(codec, data), data.length);
+        for (int k = 0; k < data.length; ++k)
+            assertEquals(Double.doubleToRawLongBits(data[k]), Double.doubleToRawLongBits(answer[k]));
+    }
+
+    /**
+     * Random longs of all bit widths, including windows over 31 leading zeros.
+     */
+    @Test
+    public void randomLongsTest() {
+        Random r = new Random(1234);
+        LongGorilla codec = new LongGorilla();
+        long[] data = new long[10000];
+        for (int k = 0; k < data.length; ++k)
+            data[k] = r.nextInt(10) == 0 ? data[Math.max(k - 1, 0)] : r.nextLong() >>> r.nextInt(64);
+        long[] compressed = LongTestUtils.compress(codec, data);
+        assertArrayEquals(data, LongTestUtils.uncompress(codec, compressed, data.length));
+    }
+
+    /**
+     * A series compressed in several calls, the previous value being passed
+     * along.
+     */
+    @Test
+    public void streamingTest() {
+        LongGorilla codec = new LongGorilla();
+        double[] data = gauge(10000);
+        long[] compressed = new long[codec.maxHeadlessCompressedLength(new IntWrapper(), data.length) + 100];
+        IntWrapper inpos = new IntWrapper();
+        IntWrapper outpos = new IntWrapper();
+        LongWrapper previous = new LongWrapper();
+        for (int length = 1; inpos.get() < data.length; length *= 2)
+            codec.headlessCompress(data, inpos, Math.min(length, data.length - inpos.get()), compressed, outpos,
+                    previous);
+        assertEquals(Double.doubleToRawLongBits(data[data.length - 1]), previous.get());
+
+        double[] answer = new double[data.length];
+        inpos.set(0);
+        outpos.set(0);
+        previous.set(0);
+        for (int length = 1; outpos.get() < data.length; length *= 2)
+            codec.headlessUncompress(compressed, inpos, 0, answer, outpos,
+                    Math.min(length, data.length - outpos.get()), previous);
+        assertArrayEquals(data, answer, 0);
+    }
+}
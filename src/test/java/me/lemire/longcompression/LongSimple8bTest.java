@@ -0,0 +1,89 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.longcompression;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import me.lemire.integercompression.IntWrapper;
+
+/**
+ * Checking LongSimple8b on sparse data and on all bit widths.
+ */
+@SuppressWarnings({ "static-method" })
+public class LongSimple8bTest {
+    final LongSimple8b codec = new LongSimple8b();
+
+    private void checkConsistency(long[] data) {
+        assertArrayEquals(data, LongTestUtils.uncompress(codec, LongTestUtils.compress(codec, data), data.length));
+        assertArrayEquals(data,
+                LongTestUtils.uncompressHeadless(codec, LongTestUtils.compressHeadless(codec, data), data.length));
+    }
+
+    /**
+     * All integers from 0 to 2^60-1 are supported.
+     */
+    @Test
+    public void allBitWidthsTest() {
+        Random r = new Random(1234);
+        for (int bitWidth = 0; bitWidth <= 60; bitWidth++) {
+            for (int N = 1; N <= 1000; N *= 10) {
+                long[] data = new long[N];
+                for (int k = 0; k < N; ++k)
+                    data[k] = bitWidth == 0 ? 0 : r.nextLong() >>> (64 - bitWidth);
+                checkConsistency(data);
+            }
+        }
+    }
+
+    /**
+     * Runs of zeros use a single word for 240 integers.
+     */
+    @Test
+    public void zerosTest() {
+        for (int N = 1; N <= 10000; N *= 10) {
+            long[] data = new long[N];
+            data[N - 1] = 1;
+            checkConsistency(data);
+            long[] compressed = LongTestUtils.compressHeadless(codec, data);
+            assertTrue(compressed.length <= (N + 239) / 240 + 1);
+        }
+        long[] data = new long[2400];
+        assertEquals(10, LongTestUtils.compressHeadless(codec, data).length);
+    }
+
+    /**
+     * Sparse counters (mostly zeros, a few small integers) are smaller than
+     * with LongVariableByte.
+     */
+    @Test
+    public void sparseTest() {
+        Random r = new Random(1234);
+        long[] data = new long[100000];
+        for (int k = 0; k < data.length; ++k)
+            if (r.nextInt(20) == 0)
+                data[k] = r.nextInt(1000);
+        checkConsistency(data);
+        int simple8b = LongTestUtils.compress(codec, data).length;
+        int vbyte = LongTestUtils.compress((LongCODEC) new LongVariableByte(), data).length;
+        assertTrue(simple8b < vbyte);
+    }
+
+    /**
+     * Integers larger than 2^60-1 cannot be compressed.
+     */
+    @Test(expected = RuntimeException.class)
+    public void tooBigTest() {
+        codec.headlessCompress(new long[] { 1L << 60 }, new IntWrapper(), 1, new long[1], new IntWrapper());
+    }
+}
@@ -14,6 +14,10 @@ import org.junit.Test;
 import me.lemire.integercompression.IntWrapper;
 import me.lemire.integercompression.TestUtils;
 import me.lemire.integercompression.VariableByte;
+import me.lemire.longcompression.differential.IntegratedLongBinaryPacking;
+import me.lemire.longcompression.differential.IntegratedLongVariableByte;
+import me.lemire.longcompression.differential.SkippableIntegratedLongCODEC;
+import me.lemire.longcompression.differential.SkippableIntegratedLongComposition;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertTrue;
@@ -28,7 +32,10 @@ public class SkippableLongBasicTest {
     final SkippableLongCODEC[] codecs = {
             new LongJustCopy(),
             new LongVariableByte(),
-            new SkippableLongComposition(new LongBinaryPacking(), new LongVariableByte()), };
+            new SkippableLongComposition(new LongBinaryPacking(), new LongVariableByte()),
+            new SkippableLongComposition(new LongFrameOfReference(), new LongVariableByte()),
+            new SkippableLongComposition(new LongFastPFOR(), new LongVariableByte()),
+            new LongAs2IntsCodec(), };
 
     
     /**
@@ -147,12 +154,40 @@ public class SkippableLongBasicTest {
 
     @Test
     public void testMaxHeadlessCompressedLength() {
+        testMaxHeadlessCompressedLength(new IntegratedLongBinaryPacking(), 16 * IntegratedLongBinaryPacking.BLOCK_SIZE);
+        testMaxHeadlessCompressedLength(new IntegratedLongVariableByte(), 128);
+        testMaxHeadlessCompressedLength(new SkippableIntegratedLongComposition(new IntegratedLongBinaryPacking(), new IntegratedLongVariableByte()), 16 * IntegratedLongBinaryPacking.BLOCK_SIZE + 10);
+
         testMaxHeadlessCompressedLength(new LongJustCopy(), 128);
         testMaxHeadlessCompressedLength(new LongBinaryPacking(), 16 * LongBinaryPacking.BLOCK_SIZE);
         testMaxHeadlessCompressedLength(new LongVariableByte(), 128);
+        testMaxHeadlessCompressedLength(new LongAs2IntsCodec(new VariableByte(), new VariableByte()), 128);
         testMaxHeadlessCompressedLength(new SkippableLongComposition(new LongBinaryPacking(), new LongVariableByte()), 16 * LongBinaryPacking.BLOCK_SIZE + 10);
     }
 
+    private static void testMaxHeadlessCompressedLength(SkippableIntegratedLongCODEC codec, int inlengthTo) {
+        // We test the worst-case scenario by making all deltas and the initial value negative.
+        long delta = -1;
+        long value = delta;
+
+        for (int inlength = 0; inlength < inlengthTo; ++inlength) {
+            long[] input = new long[inlength];
+            for (int i = 0; i < inlength; i++) {
+                input[i] = value;
+                value += delta;
+            }
+
+            int maxOutputLength = codec.maxHeadlessCompressedLength(new IntWrapper(), inlength);
+            long[] output = new long[maxOutputLength];
+            IntWrapper outPos = new IntWrapper();
+
+            codec.headlessCompress(input, new IntWrapper(), inlength, output, outPos, new LongWrapper());
+            // If we reach this point, no exception was thrown, which means the calculated output length was sufficient.
+
+            assertTrue(maxOutputLength <= outPos.get() + 1); // +1 because SkippableIntegratedLongComposition always adds one extra long for the potential header
+        }
+    }
+
     private static void testMaxHeadlessCompressedLength(SkippableLongCODEC codec, int inlengthTo) {
         for (int inlength = 0; inlength < inlengthTo; ++inlength) {
             long[] input = new long[inlength];
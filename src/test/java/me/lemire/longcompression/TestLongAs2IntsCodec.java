@@ -7,9 +7,17 @@
 
 package me.lemire.longcompression;
 
+import java.util.Arrays;
+
 import org.junit.Assert;
 import org.junit.Test;
 
+import me.lemire.integercompression.BinaryPacking;
+import me.lemire.integercompression.Composition;
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.SkippableComposition;
+import me.lemire.integercompression.VariableByte;
+
 /**
  * Edge-cases having caused issue specifically with LongVariableByte.
  * 
@@ -28,4 +36,77 @@ public class TestLongAs2IntsCodec extends ATestLongCODEC {
         Assert.assertEquals(3, LongTestUtils.compress((LongCODEC) codec, new long[] { 1L << 42 }).length);
     }
 
+    @Test
+    public void testCodec_format() {
+        // the output of the 0.3.8 release
+        Assert.assertArrayEquals(new long[] { 15025866752L, -8106620620806029184L, 17179869184L,
+                7220418644709182324L, -8678577773482082304L },
+                LongTestUtils.compress((LongCODEC) codec, new long[] { 1L << 42, 123456789012L, -1L, 7L }));
+        long[] array = new long[130];
+        for (int i = 0; i < array.length; i++)
+            array[i] = (1L << 40) + i * 1000003L;
+        long[] compressed = LongTestUtils.compress((LongCODEC) codec, array);
+        Assert.assertEquals(88, compressed.length);
+        Assert.assertEquals(925749927, Arrays.hashCode(compressed));
+    }
+
+    @Test
+    public void testCodec_sharedBetweenThreads() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        boolean[] ok = new boolean[threads.length];
+        for (int t = 0; t < threads.length; t++) {
+            final int id = t;
+            threads[t] = new Thread(() -> {
+                long[] array = new long[1000 + 100 * id];
+                for (int i = 0; i < array.length; i++)
+                    array[i] = ((long) id << 40) + i * 1000003L;
+                for (int k = 0; k < 100; k++)
+                    checkConsistency(codec, array);
+                ok[id] = true;
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        for (boolean b : ok)
+            Assert.assertTrue(b);
+    }
+
+    @Test
+    public void testCodec_reusedWorkingArea() {
+        // the working arrays grow and are reused with smaller inputs
+        for (int length : new int[] { 1000, 10, 100000, 0, 33 }) {
+            long[] array = new long[length];
+            for (int i = 0; i < length; i++)
+                array[i] = (1L << 40) + i * 1000003L;
+            checkConsistency(codec, array);
+        }
+    }
+
+    @Test
+    public void testCodec_integerCODECs() {
+        // Composition is not a SkippableIntegerCODEC
+        LongAs2IntsCodec legacy = new LongAs2IntsCodec(new VariableByte(),
+                new Composition(new BinaryPacking(), new VariableByte()));
+        for (int length : new int[] { 1, 10, 1000, 0 }) {
+            long[] array = new long[length];
+            for (int i = 0; i < length; i++)
+                array[i] = (1L << 40) + i * 1000003L;
+            checkConsistency(legacy, array);
+        }
+        // the bound of Composition is unknown: its output is checked against 16 integers per integer
+        Assert.assertTrue(legacy.maxHeadlessCompressedLength(new IntWrapper(), 100) > (16 * 100 + 1024) / 2);
+    }
+
+    @Test
+    public void testCodec_skippableCODECs() {
+        LongAs2IntsCodec skippable = LongAs2IntsCodec.of(new VariableByte(),
+                new SkippableComposition(new BinaryPacking(), new VariableByte()));
+        for (int length : new int[] { 1, 10, 1000, 0 }) {
+            long[] array = new long[length];
+            for (int i = 0; i < length; i++)
+                array[i] = (1L << 40) + i * 1000003L;
+            checkConsistency(skippable, array);
+        }
+    }
 }